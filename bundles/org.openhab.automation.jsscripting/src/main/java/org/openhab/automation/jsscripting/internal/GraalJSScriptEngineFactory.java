@@ -19,12 +19,15 @@ import java.util.Map;
 
 import javax.script.ScriptEngine;
 
+import org.graalvm.polyglot.Engine;
 import org.openhab.core.automation.module.script.ScriptEngineFactory;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 
 /**
@@ -38,8 +41,12 @@ import org.osgi.service.component.annotations.Modified;
 @ConfigurableService(category = "automation", label = "JS Scripting", description_uri = "automation:jsscripting")
 public final class GraalJSScriptEngineFactory implements ScriptEngineFactory {
     private static final String CFG_INJECTION_ENABLED = "injectionEnabled";
+    private static final String CFG_CONTEXT_POOL_SIZE = "contextPoolSize";
     private static final String INJECTION_CODE = "Object.assign(this, require('openhab'));";
+    private static final int DEFAULT_CONTEXT_POOL_SIZE = 1;
     private boolean injectionEnabled = true;
+    private int contextPoolSize = DEFAULT_CONTEXT_POOL_SIZE;
+    private final Engine engine = OpenhabGraalJSScriptEngine.createEngine();
 
     public static final String MIME_TYPE = "application/javascript;version=ECMAScript-2021";
 
@@ -70,8 +77,10 @@ public final class GraalJSScriptEngineFactory implements ScriptEngineFactory {
 
     @Override
     public ScriptEngine createScriptEngine(String scriptType) {
+        String injectionCode = injectionEnabled ? INJECTION_CODE : null;
         return new DebuggingGraalScriptEngine<>(
-                new OpenhabGraalJSScriptEngine(injectionEnabled ? INJECTION_CODE : null));
+                new PooledGraalJSScriptEngine(() -> new OpenhabGraalJSScriptEngine(engine, injectionCode),
+                        contextPoolSize, ThreadPoolManager.getScheduledPool("jsscripting")));
     }
 
     @Activate
@@ -79,9 +88,22 @@ public final class GraalJSScriptEngineFactory implements ScriptEngineFactory {
         modified(config);
     }
 
+    @Deactivate
+    protected void deactivate() {
+        // contexts of scripts which have not been disposed yet are cancelled
+        engine.close(true);
+    }
+
     @Modified
     protected void modified(Map<String, ?> config) {
         Object injectionEnabled = config.get(CFG_INJECTION_ENABLED);
         this.injectionEnabled = injectionEnabled == null || (Boolean) injectionEnabled;
+        Object contextPoolSize = config.get(CFG_CONTEXT_POOL_SIZE);
+        try {
+            this.contextPoolSize = contextPoolSize == null ? DEFAULT_CONTEXT_POOL_SIZE
+                    : Math.max(1, Integer.parseInt(contextPoolSize.toString()));
+        } catch (NumberFormatException e) {
+            this.contextPoolSize = DEFAULT_CONTEXT_POOL_SIZE;
+        }
     }
 }
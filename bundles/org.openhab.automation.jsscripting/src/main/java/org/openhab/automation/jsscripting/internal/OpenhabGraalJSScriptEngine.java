@@ -30,17 +30,20 @@ import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import javax.script.ScriptContext;
-import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
 import org.openhab.automation.jsscripting.internal.fs.DelegatingFileSystem;
 import org.openhab.automation.jsscripting.internal.fs.PrefixedSeekableByteChannel;
@@ -67,42 +70,52 @@ public class OpenhabGraalJSScriptEngine
     private static final String REQUIRE_WRAPPER_NAME = "__wraprequire__";
     // final CommonJS search path for our library
     private static final Path NODE_DIR = Paths.get("node_modules");
+    // the bundled library never changes, so it is read only once for all engines
+    private static final Map<String, byte[]> NODE_FILE_CACHE = new ConcurrentHashMap<>();
+
+    // Custom translate JS Objects - > Java Objects
+    // all contexts of the shared engine use the same host access, so they can share the code compiled by the engine
+    private static final HostAccess HOST_ACCESS = HostAccess.newBuilder(HostAccess.ALL)
+            // Translate JS-Joda ZonedDateTime to java.time.ZonedDateTime
+            .targetTypeMapping(Value.class, ZonedDateTime.class, (v) -> v.hasMember("withFixedOffsetZone"), v -> {
+                return ZonedDateTime.parse(v.invokeMember("withFixedOffsetZone").invokeMember("toString").asString());
+            }, HostAccess.TargetMappingPrecedence.LOW)
+
+            // Translate JS-Joda Duration to java.time.Duration
+            .targetTypeMapping(Value.class, Duration.class,
+                    // picking two members to check as Duration has many common function names
+                    (v) -> v.hasMember("minusDuration") && v.hasMember("toNanos"), v -> {
+                        return Duration.ofNanos(v.invokeMember("toNanos").asLong());
+                    }, HostAccess.TargetMappingPrecedence.LOW)
+            .build();
 
     // these fields start as null because they are populated on first use
     private @NonNullByDefault({}) String engineIdentifier;
     private @NonNullByDefault({}) Consumer<String> scriptDependencyListener;
 
     private boolean initialized = false;
-    private String globalScript;
+    private final Source globalSource;
+    private final long createNanos;
 
     /**
      * Creates an implementation of ScriptEngine (& Invocable), wrapping the contained engine, that tracks the script
      * lifecycle and provides hooks for scripts to do so too.
+     *
+     * @param engine the polyglot engine shared by all script engines, so that the parsed and compiled code of the
+     *            library is shared between them too
+     * @param injectionCode code to run after the global library has been loaded
      */
-    public OpenhabGraalJSScriptEngine(@Nullable String injectionCode) {
+    public OpenhabGraalJSScriptEngine(Engine engine, @Nullable String injectionCode) {
         super(null); // delegate depends on fields not yet initialised, so we cannot set it immediately
-        this.globalScript = GLOBAL_REQUIRE + (injectionCode != null ? injectionCode : "");
-
-        // Custom translate JS Objects - > Java Objects
-        HostAccess hostAccess = HostAccess.newBuilder(HostAccess.ALL)
-                // Translate JS-Joda ZonedDateTime to java.time.ZonedDateTime
-                .targetTypeMapping(Value.class, ZonedDateTime.class, (v) -> v.hasMember("withFixedOffsetZone"), v -> {
-                    return ZonedDateTime
-                            .parse(v.invokeMember("withFixedOffsetZone").invokeMember("toString").asString());
-                }, HostAccess.TargetMappingPrecedence.LOW)
-
-                // Translate JS-Joda Duration to java.time.Duration
-                .targetTypeMapping(Value.class, Duration.class,
-                        // picking two members to check as Duration has many common function names
-                        (v) -> v.hasMember("minusDuration") && v.hasMember("toNanos"), v -> {
-                            return Duration.ofNanos(v.invokeMember("toNanos").asLong());
-                        }, HostAccess.TargetMappingPrecedence.LOW)
-                .build();
-
-        delegate = GraalJSScriptEngine.create(
-                Engine.newBuilder().allowExperimentalOptions(true).option("engine.WarnInterpreterOnly", "false")
-                        .build(),
-                Context.newBuilder("js").allowExperimentalOptions(true).allowAllAccess(true).allowHostAccess(hostAccess)
+        long start = System.nanoTime();
+        // cached sources with the same content are only parsed once per engine
+        this.globalSource = Source
+                .newBuilder("js", GLOBAL_REQUIRE + (injectionCode != null ? injectionCode : ""), "@openhab-globals.js")
+                .cached(true).buildLiteral();
+
+        delegate = GraalJSScriptEngine.create(engine,
+                Context.newBuilder("js").allowExperimentalOptions(true).allowAllAccess(true)
+                        .allowHostAccess(HOST_ACCESS)
                         .option("js.commonjs-require-cwd", JSDependencyTracker.LIB_PATH)
                         .option("js.nashorn-compat", "true") // to ease migration
                         .option("js.ecmascript-version", "2021") // nashorn compat will enforce es5 compatibility, we
@@ -120,11 +133,7 @@ public class OpenhabGraalJSScriptEngine
                                 if (path.toString().endsWith(".js")) {
                                     SeekableByteChannel sbc = null;
                                     if (isRootNodePath(path)) {
-                                        InputStream is = getClass().getResourceAsStream(nodeFileToResource(path));
-                                        if (is == null) {
-                                            throw new IOException("Could not read " + path.toString());
-                                        }
-                                        sbc = new ReadOnlySeekableByteArrayChannel(is.readAllBytes());
+                                        sbc = new ReadOnlySeekableByteArrayChannel(readNodeFile(path));
                                     } else {
                                         sbc = super.newByteChannel(path, options, attrs);
                                     }
@@ -164,6 +173,17 @@ public class OpenhabGraalJSScriptEngine
                                 return super.toRealPath(path, linkOptions);
                             }
                         }));
+        this.createNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Creates the polyglot engine to be shared by all script engines. All their contexts use the same
+     * {@link HostAccess}, as required for sharing code between the contexts of an engine.
+     *
+     * @return the engine, which has to be closed by the caller
+     */
+    public static Engine createEngine() {
+        return Engine.newBuilder().allowExperimentalOptions(true).option("engine.WarnInterpreterOnly", "false").build();
     }
 
     @Override
@@ -172,6 +192,7 @@ public class OpenhabGraalJSScriptEngine
             return;
         }
 
+        long start = System.nanoTime();
         ScriptContext ctx = delegate.getContext();
 
         // these are added post-construction, so we need to fetch them late
@@ -206,10 +227,39 @@ public class OpenhabGraalJSScriptEngine
         initialized = true;
 
         try {
-            eval(globalScript);
-        } catch (ScriptException e) {
+            delegate.getPolyglotContext().eval(globalSource);
+        } catch (PolyglotException e) {
             LOGGER.error("Could not inject global script", e);
         }
+
+        if (LOGGER.isDebugEnabled()) {
+            long initNanos = System.nanoTime() - start;
+            LOGGER.debug("Script engine '{}' started in {} ms (context created in {} ms, globals injected in {} ms)",
+                    engineIdentifier, TimeUnit.NANOSECONDS.toMillis(createNanos + initNanos),
+                    TimeUnit.NANOSECONDS.toMillis(createNanos), TimeUnit.NANOSECONDS.toMillis(initNanos));
+        }
+    }
+
+    /**
+     * Reads a file of the bundled library
+     *
+     * @param path the root node path of the file
+     * @return the content of the file
+     * @throws IOException if the file does not exist
+     */
+    private byte[] readNodeFile(Path path) throws IOException {
+        String resource = nodeFileToResource(path);
+        byte[] content = NODE_FILE_CACHE.get(resource);
+        if (content == null) {
+            try (InputStream is = getClass().getResourceAsStream(resource)) {
+                if (is == null) {
+                    throw new IOException("Could not read " + path.toString());
+                }
+                content = is.readAllBytes();
+            }
+            NODE_FILE_CACHE.putIfAbsent(resource, content);
+        }
+        return content;
     }
 
     /**
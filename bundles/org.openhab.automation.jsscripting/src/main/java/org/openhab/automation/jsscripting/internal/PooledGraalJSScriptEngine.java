@@ -0,0 +1,499 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.automation.jsscripting.internal;
+
+import static org.openhab.core.automation.module.script.ScriptEngineFactory.*;
+
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import javax.script.Bindings;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A script engine which evaluates scripts on a pool of {@link OpenhabGraalJSScriptEngine}s. GraalJS contexts can only
+ * be used by one thread at a time, so concurrent evaluations of the same script, e.g. a script action of a UI rule
+ * which is triggered again while it is still running, are evaluated on additional contexts instead of waiting for each
+ * other.
+ *
+ * The first ("primary") context is used for everything but {@link #eval(String)}: scripts loaded from files keep their
+ * state in it and are never evaluated concurrently. Attributes set in the engine scope by the host are recorded and
+ * applied to a context right before it is used. Attributes set by a thread are only visible to evaluations of that
+ * thread, so concurrent executions of a rule do not see each other's event.
+ *
+ * Additional ("secondary") contexts are used for a single evaluation only: <code>scriptUnloaded</code> is called and
+ * the context is closed as soon as the evaluation has finished. So no state is split between contexts, and timers
+ * created by the evaluation can't fire while the context is used by another thread. Global variables of the primary
+ * context are not visible to evaluations on a secondary context.
+ *
+ * Contexts of UI-defined scripts are initialized in the background as soon as the script engine has been set up, so the
+ * first execution does not have to load the library. A spare secondary context is prepared the same way whenever one
+ * has been used.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PooledGraalJSScriptEngine implements ScriptEngine, Invocable, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledGraalJSScriptEngine.class);
+    // engines of script files are evaluated right after they have been created, warming them up is pointless
+    private static final String FILE_IDENTIFIER_PREFIX = "file:";
+
+    private final Supplier<OpenhabGraalJSScriptEngine> engineSupplier;
+    private final int poolSize;
+    private final ExecutorService executor;
+
+    private final PooledContext primary;
+    private final ReentrantLock primaryLock = new ReentrantLock();
+    // initialized secondary contexts which have not evaluated a script yet
+    private final BlockingDeque<PooledContext> spares = new LinkedBlockingDeque<>();
+    // the number of spare and busy secondary contexts
+    private final AtomicInteger secondaryCount = new AtomicInteger();
+
+    private final Map<String, Object> hostAttributes = new ConcurrentHashMap<>();
+    // the attributes set by each thread, removed as soon as the thread has evaluated a script and those of threads
+    // which never evaluate one, e.g. the thread which has set up the engine, when the engine is closed
+    private final Map<Thread, Map<String, Object>> threadAttributes = new ConcurrentHashMap<>();
+    private final ScriptContext context;
+    private final AtomicBoolean warmUpScheduled = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a pooled script engine
+     *
+     * @param engineSupplier creates the script engines of the pool
+     * @param poolSize the maximum number of contexts evaluating the script at the same time
+     * @param executor the executor contexts are warmed up with
+     */
+    public PooledGraalJSScriptEngine(Supplier<OpenhabGraalJSScriptEngine> engineSupplier, int poolSize,
+            ExecutorService executor) {
+        this.engineSupplier = engineSupplier;
+        this.poolSize = poolSize;
+        this.executor = executor;
+        this.primary = new PooledContext(engineSupplier.get());
+        this.context = new RecordingScriptContext(primary.engine.getContext());
+    }
+
+    @Override
+    public Object eval(String script) throws ScriptException {
+        if (primaryLock.tryLock()) {
+            try {
+                return primary.eval(script);
+            } finally {
+                primaryLock.unlock();
+            }
+        }
+
+        PooledContext secondary = borrow();
+        if (secondary == null) {
+            // all contexts are busy, wait for the primary one
+            return withPrimary(() -> primary.eval(script));
+        }
+        try {
+            return secondary.eval(script);
+        } finally {
+            discard(secondary);
+        }
+    }
+
+    @Override
+    public Object eval(Reader reader) throws ScriptException {
+        return withPrimary(() -> primary.engine.eval(reader));
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext scriptContext) throws ScriptException {
+        return withPrimary(() -> primary.engine.eval(script, scriptContext));
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext scriptContext) throws ScriptException {
+        return withPrimary(() -> primary.engine.eval(reader, scriptContext));
+    }
+
+    @Override
+    public Object eval(String script, Bindings bindings) throws ScriptException {
+        return withPrimary(() -> primary.engine.eval(script, bindings));
+    }
+
+    @Override
+    public Object eval(Reader reader, Bindings bindings) throws ScriptException {
+        return withPrimary(() -> primary.engine.eval(reader, bindings));
+    }
+
+    @Override
+    public Object invokeMethod(Object thiz, String name, Object... args) throws ScriptException, NoSuchMethodException {
+        return withPrimary(() -> primary.engine.invokeMethod(thiz, name, args));
+    }
+
+    @Override
+    public Object invokeFunction(String name, Object... args) throws ScriptException, NoSuchMethodException {
+        return withPrimary(() -> primary.engine.invokeFunction(name, args));
+    }
+
+    @Override
+    public <T> T getInterface(Class<T> clasz) {
+        return primary.engine.getInterface(clasz);
+    }
+
+    @Override
+    public <T> T getInterface(Object thiz, Class<T> clasz) {
+        return primary.engine.getInterface(thiz, clasz);
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        context.setAttribute(key, value, ScriptContext.ENGINE_SCOPE);
+    }
+
+    @Override
+    public @Nullable Object get(String key) {
+        return context.getAttribute(key, ScriptContext.ENGINE_SCOPE);
+    }
+
+    @Override
+    public Bindings getBindings(int scope) {
+        return primary.engine.getBindings(scope);
+    }
+
+    @Override
+    public void setBindings(Bindings bindings, int scope) {
+        primary.engine.setBindings(bindings, scope);
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return primary.engine.createBindings();
+    }
+
+    @Override
+    public ScriptContext getContext() {
+        return context;
+    }
+
+    @Override
+    public void setContext(ScriptContext scriptContext) {
+        primary.engine.setContext(scriptContext);
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return primary.engine.getFactory();
+    }
+
+    @Override
+    public void close() throws Exception {
+        closed = true;
+        primaryLock.lock();
+        try {
+            primary.engine.close();
+        } finally {
+            primaryLock.unlock();
+        }
+        // busy contexts are closed when their evaluation has finished
+        PooledContext secondary;
+        while ((secondary = spares.poll()) != null) {
+            secondary.close();
+        }
+        threadAttributes.clear();
+    }
+
+    private <T> T withPrimary(Invocation<T> invocation) throws ScriptException, NoSuchMethodException {
+        primaryLock.lock();
+        try {
+            primary.apply(attributes());
+            return invocation.invoke();
+        } finally {
+            threadAttributes.remove(Thread.currentThread());
+            primaryLock.unlock();
+        }
+    }
+
+    private @Nullable PooledContext borrow() {
+        PooledContext secondary = spares.poll();
+        if (secondary != null || closed) {
+            return secondary;
+        }
+        if (secondaryCount.getAndIncrement() < poolSize - 1) {
+            try {
+                return new PooledContext(engineSupplier.get());
+            } catch (RuntimeException e) {
+                secondaryCount.decrementAndGet();
+                throw e;
+            }
+        }
+        secondaryCount.decrementAndGet();
+        return null;
+    }
+
+    private void discard(PooledContext secondary) {
+        secondary.unload();
+        secondary.close();
+        secondaryCount.decrementAndGet();
+        if (!closed) {
+            executor.execute(this::prepareSpare);
+        }
+    }
+
+    private void prepareSpare() {
+        if (closed || !spares.isEmpty()) {
+            return;
+        }
+        if (secondaryCount.getAndIncrement() >= poolSize - 1) {
+            secondaryCount.decrementAndGet();
+            return;
+        }
+        PooledContext spare;
+        try {
+            spare = new PooledContext(engineSupplier.get());
+            spare.eval("");
+        } catch (ScriptException | RuntimeException e) {
+            secondaryCount.decrementAndGet();
+            LOGGER.debug("Failed to prepare a context of script engine '{}': {}",
+                    hostAttributes.get(CONTEXT_KEY_ENGINE_IDENTIFIER), e.getMessage());
+            return;
+        }
+        spares.offer(spare);
+        if (closed && spares.remove(spare)) {
+            spare.close();
+        }
+    }
+
+    private Map<String, Object> attributes() {
+        Map<String, Object> attributes = new HashMap<>(hostAttributes);
+        Map<String, Object> ownAttributes = threadAttributes.get(Thread.currentThread());
+        if (ownAttributes != null) {
+            attributes.putAll(ownAttributes);
+        }
+        return attributes;
+    }
+
+    private void scheduleWarmUp() {
+        if (warmUpScheduled.get()) {
+            return;
+        }
+        Object identifier = hostAttributes.get(CONTEXT_KEY_ENGINE_IDENTIFIER);
+        if (identifier == null || !hostAttributes.containsKey(CONTEXT_KEY_EXTENSION_ACCESSOR)
+                || identifier.toString().startsWith(FILE_IDENTIFIER_PREFIX)
+                || !warmUpScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                if (!closed && primaryLock.tryLock()) {
+                    try {
+                        primary.eval("");
+                    } finally {
+                        primaryLock.unlock();
+                    }
+                }
+                prepareSpare();
+            } catch (ScriptException | RuntimeException e) {
+                LOGGER.debug("Failed to warm up script engine '{}': {}", identifier, e.getMessage());
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Invocation<T> {
+        T invoke() throws ScriptException, NoSuchMethodException;
+    }
+
+    /**
+     * A script engine of the pool together with the host attributes which have been applied to it
+     */
+    private class PooledContext {
+        private final OpenhabGraalJSScriptEngine engine;
+        private final Set<String> appliedKeys = new HashSet<>();
+
+        PooledContext(OpenhabGraalJSScriptEngine engine) {
+            this.engine = engine;
+        }
+
+        Object eval(String script) throws ScriptException {
+            try {
+                apply(attributes());
+                return engine.eval(script);
+            } finally {
+                threadAttributes.remove(Thread.currentThread());
+            }
+        }
+
+        void apply(Map<String, Object> attributes) {
+            ScriptContext engineContext = engine.getContext();
+            for (Iterator<String> it = appliedKeys.iterator(); it.hasNext();) {
+                String key = it.next();
+                if (!attributes.containsKey(key)) {
+                    engineContext.removeAttribute(key, ScriptContext.ENGINE_SCOPE);
+                    it.remove();
+                }
+            }
+            attributes.forEach((key, value) -> engineContext.setAttribute(key, value, ScriptContext.ENGINE_SCOPE));
+            appliedKeys.addAll(attributes.keySet());
+        }
+
+        /**
+         * Calls the <code>scriptUnloaded</code> function of the script, like the host does for the primary context
+         */
+        void unload() {
+            try {
+                engine.invokeFunction("scriptUnloaded");
+            } catch (NoSuchMethodException e) {
+                // the script does not define it
+            } catch (ScriptException | RuntimeException e) {
+                LOGGER.debug("scriptUnloaded failed on a context of script engine '{}': {}",
+                        hostAttributes.get(CONTEXT_KEY_ENGINE_IDENTIFIER), e.getMessage());
+            }
+        }
+
+        void close() {
+            try {
+                engine.close();
+            } catch (Exception e) {
+                LOGGER.debug("Failed to close pooled script engine: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The context handed out to the host. Engine scope attributes are recorded instead of being set on the primary
+     * context, which may be busy, and everything else is delegated to it.
+     */
+    private class RecordingScriptContext implements ScriptContext {
+        private final ScriptContext delegate;
+
+        RecordingScriptContext(ScriptContext delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void setAttribute(String name, @Nullable Object value, int scope) {
+            if (scope != ENGINE_SCOPE) {
+                delegate.setAttribute(name, value, scope);
+                return;
+            }
+            if (value == null) {
+                removeAttribute(name, scope);
+                return;
+            }
+            hostAttributes.put(name, value);
+            threadAttributes.computeIfAbsent(Thread.currentThread(), thread -> new HashMap<>()).put(name, value);
+            scheduleWarmUp();
+        }
+
+        @Override
+        public @Nullable Object getAttribute(String name, int scope) {
+            if (scope != ENGINE_SCOPE) {
+                return delegate.getAttribute(name, scope);
+            }
+            Map<String, Object> ownAttributes = threadAttributes.get(Thread.currentThread());
+            Object value = ownAttributes != null ? ownAttributes.get(name) : null;
+            return value != null ? value : hostAttributes.get(name);
+        }
+
+        @Override
+        public @Nullable Object removeAttribute(String name, int scope) {
+            if (scope != ENGINE_SCOPE) {
+                return delegate.removeAttribute(name, scope);
+            }
+            Map<String, Object> ownAttributes = threadAttributes.get(Thread.currentThread());
+            if (ownAttributes != null) {
+                ownAttributes.remove(name);
+                // the host removes the attributes of an execution once it has finished
+                if (ownAttributes.isEmpty()) {
+                    threadAttributes.remove(Thread.currentThread());
+                }
+            }
+            return hostAttributes.remove(name);
+        }
+
+        @Override
+        public @Nullable Object getAttribute(String name) {
+            Object value = getAttribute(name, ENGINE_SCOPE);
+            return value != null ? value : delegate.getAttribute(name, GLOBAL_SCOPE);
+        }
+
+        @Override
+        public int getAttributesScope(String name) {
+            return getAttribute(name, ENGINE_SCOPE) != null ? ENGINE_SCOPE : delegate.getAttributesScope(name);
+        }
+
+        @Override
+        public void setBindings(Bindings bindings, int scope) {
+            delegate.setBindings(bindings, scope);
+        }
+
+        @Override
+        public Bindings getBindings(int scope) {
+            return delegate.getBindings(scope);
+        }
+
+        @Override
+        public Writer getWriter() {
+            return delegate.getWriter();
+        }
+
+        @Override
+        public Writer getErrorWriter() {
+            return delegate.getErrorWriter();
+        }
+
+        @Override
+        public void setWriter(Writer writer) {
+            delegate.setWriter(writer);
+        }
+
+        @Override
+        public void setErrorWriter(Writer writer) {
+            delegate.setErrorWriter(writer);
+        }
+
+        @Override
+        public Reader getReader() {
+            return delegate.getReader();
+        }
+
+        @Override
+        public void setReader(Reader reader) {
+            delegate.setReader(reader);
+        }
+
+        @Override
+        public List<Integer> getScopes() {
+            return delegate.getScopes();
+        }
+    }
+}
@@ -14,29 +14,95 @@ package org.openhab.automation.jsscripting.internal.scope;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.automation.module.script.ScriptExtensionProvider;
+import org.openhab.core.common.ThreadPoolManager;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Shared Cache implementation for JS scripting.
  *
+ * An entry is used by every script which has put or read it. When a script is unloaded and not loaded again within
+ * {@link #RELEASE_DELAY_SECONDS}, e.g. because it has been deleted, it stops using its entries, and entries which are
+ * not used by any other script are removed. Scripts which are reloaded keep their entries.
+ *
+ * The keys are additionally kept in the order of their last access, so the least recently used entry can be evicted
+ * without looking at all entries when the cache is full.
+ *
  * @author Jonathan Gilbert - Initial contribution
  */
-@Component(immediate = true)
+@Component(immediate = true, configurationPid = "org.openhab.jsscripting")
 @NonNullByDefault
 public class SharedCache implements ScriptExtensionProvider {
 
     private static final String PRESET_NAME = "cache";
     private static final String OBJECT_NAME = "sharedcache";
+    private static final String CFG_CACHE_MAX_SIZE = "cacheMaxSize";
+    private static final long RELEASE_DELAY_SECONDS = 60;
+    private static final long CLEANUP_INTERVAL_SECONDS = 60;
+
+    private final Logger logger = LoggerFactory.getLogger(SharedCache.class);
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("jsscripting");
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // the keys in the order of their last access, guarded by itself; it may briefly lag behind the entries
+    private final Map<String, Boolean> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, JSCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> pendingReleases = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
 
-    private JSCache cache = new JSCache();
+    private volatile int maxSize = 0;
+    private @Nullable ScheduledFuture<?> cleanupJob;
+
+    @Activate
+    protected void activate(Map<String, ?> config) {
+        modified(config);
+        cleanupJob = scheduler.scheduleWithFixedDelay(this::removeExpired, CLEANUP_INTERVAL_SECONDS,
+                CLEANUP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Modified
+    protected void modified(Map<String, ?> config) {
+        Object maxSize = config.get(CFG_CACHE_MAX_SIZE);
+        try {
+            this.maxSize = maxSize == null ? 0 : Math.max(0, Integer.parseInt(maxSize.toString()));
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid cache size '{}', the shared cache is not limited", maxSize);
+            this.maxSize = 0;
+        }
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        ScheduledFuture<?> cleanupJob = this.cleanupJob;
+        if (cleanupJob != null) {
+            cleanupJob.cancel(false);
+            this.cleanupJob = null;
+        }
+        pendingReleases.values().forEach(release -> release.cancel(false));
+        pendingReleases.clear();
+    }
 
     @Override
     public Collection<String> getDefaultPresets() {
@@ -56,7 +122,12 @@ public class SharedCache implements ScriptExtensionProvider {
     @Override
     public @Nullable Object get(String scriptIdentifier, String type) throws IllegalArgumentException {
         if (OBJECT_NAME.equals(type)) {
-            return cache;
+            // the script has been loaded again, so it keeps its entries
+            ScheduledFuture<?> release = pendingReleases.remove(scriptIdentifier);
+            if (release != null) {
+                release.cancel(false);
+            }
+            return caches.computeIfAbsent(scriptIdentifier, JSCache::new);
         }
 
         return null;
@@ -76,26 +147,287 @@ public class SharedCache implements ScriptExtensionProvider {
 
     @Override
     public void unload(String scriptIdentifier) {
-        // ignore for now
+        caches.remove(scriptIdentifier);
+        ScheduledFuture<?> previous = pendingReleases.put(scriptIdentifier,
+                scheduler.schedule(() -> release(scriptIdentifier), RELEASE_DELAY_SECONDS, TimeUnit.SECONDS));
+        if (previous != null) {
+            previous.cancel(false);
+        }
     }
 
-    public static class JSCache {
-        private Map<String, Object> backingMap = new HashMap<>();
+    /**
+     * Removes an unloaded script from the users of the entries, and removes the entries which are not used anymore
+     */
+    void release(String scriptIdentifier) {
+        pendingReleases.remove(scriptIdentifier);
+        if (caches.containsKey(scriptIdentifier)) {
+            return;
+        }
+        int removed = 0;
+        for (String key : entries.keySet()) {
+            Entry entry = entries.computeIfPresent(key, (k, current) -> {
+                current.users.remove(scriptIdentifier);
+                return current.users.isEmpty() ? null : current;
+            });
+            if (entry == null) {
+                removed++;
+                forget(key);
+            }
+        }
+        logger.debug("Released {} shared cache entries of unloaded script '{}'", removed, scriptIdentifier);
+    }
 
-        public void put(String k, Object v) {
-            backingMap.put(k, v);
+    private void removeExpired() {
+        long now = System.nanoTime();
+        entries.entrySet().removeIf(entry -> {
+            if (entry.getValue().isExpired(now)) {
+                evictionCount.incrementAndGet();
+                forget(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+        synchronized (accessOrder) {
+            // keys of entries which have been removed while they were accessed
+            accessOrder.keySet().retainAll(entries.keySet());
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Shared cache: {} entries, {} hits, {} misses, {} evictions", entries.size(), hitCount.get(),
+                    missCount.get(), evictionCount.get());
+        }
+    }
+
+    /**
+     * Puts the entry unless the key has an entry which has not expired
+     *
+     * @return the entry of the key
+     */
+    private Entry putIfAbsentOrExpired(String key, Entry entry) {
+        while (true) {
+            Entry current = entries.putIfAbsent(key, entry);
+            if (current == null) {
+                return entry;
+            } else if (!current.isExpired(System.nanoTime())) {
+                return current;
+            } else if (entries.replace(key, current, entry.inheritUsers(current))) {
+                return entry;
+            }
+        }
+    }
+
+    private void touch(String key) {
+        synchronized (accessOrder) {
+            accessOrder.put(key, Boolean.TRUE);
+        }
+    }
+
+    private void forget(String key) {
+        synchronized (accessOrder) {
+            accessOrder.remove(key);
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is not larger than its maximum size
+     */
+    private void evictIfFull() {
+        int maxSize = this.maxSize;
+        while (maxSize > 0 && entries.size() > maxSize) {
+            String eldest;
+            synchronized (accessOrder) {
+                Iterator<String> keys = accessOrder.keySet().iterator();
+                if (!keys.hasNext()) {
+                    return;
+                }
+                eldest = keys.next();
+                keys.remove();
+            }
+            if (entries.remove(eldest) != null) {
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        // the scripts which have put or read the entry
+        private final Set<String> users = ConcurrentHashMap.newKeySet();
+        private final long expiresAt;
+
+        Entry(Object value, String user, long ttl) {
+            this.value = value;
+            this.users.add(user);
+            this.expiresAt = ttl > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl) : 0;
+        }
+
+        /**
+         * Adds the users of the entry this one replaces, as they keep using the key
+         */
+        Entry inheritUsers(@Nullable Entry previous) {
+            if (previous != null) {
+                users.addAll(previous.users);
+            }
+            return this;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != 0 && now - expiresAt >= 0;
+        }
+
+        Object use(String user) {
+            if (!users.contains(user)) {
+                users.add(user);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * The cache as seen by a script. All scripts share the same entries, the entries put or read by a script are
+     * used by it.
+     */
+    public class JSCache {
+        private final String owner;
+
+        private JSCache(String owner) {
+            this.owner = owner;
+        }
+
+        public @Nullable Object put(String k, Object v) {
+            return put(k, v, 0);
+        }
+
+        /**
+         * Puts a value which expires after the given time
+         *
+         * @param k the key
+         * @param v the value
+         * @param ttl the time to live in milliseconds, values &lt;= 0 never expire
+         * @return the previous value or <code>null</code>
+         */
+        public @Nullable Object put(String k, Object v, long ttl) {
+            Entry entry = new Entry(v, owner, ttl);
+            Entry previous = entries.put(k, entry);
+            entry.inheritUsers(previous);
+            touch(k);
+            evictIfFull();
+            return previous != null && !previous.isExpired(System.nanoTime()) ? previous.value : null;
         }
 
         public @Nullable Object remove(String k) {
-            return backingMap.remove(k);
+            Entry entry = entries.remove(k);
+            forget(k);
+            return entry != null && !entry.isExpired(System.nanoTime()) ? entry.value : null;
         }
 
         public @Nullable Object get(String k) {
-            return backingMap.get(k);
+            Entry entry = entries.get(k);
+            if (entry != null && entry.isExpired(System.nanoTime())) {
+                if (entries.remove(k, entry)) {
+                    forget(k);
+                }
+                entry = null;
+            }
+            if (entry == null) {
+                missCount.incrementAndGet();
+                return null;
+            }
+            hitCount.incrementAndGet();
+            touch(k);
+            return entry.use(owner);
         }
 
+        /**
+         * Returns the value of the key, or puts the value of the supplier if the key has none. The supplier is not
+         * called while the entry is locked, so it may use the cache. If another script has put a value meanwhile,
+         * that value is kept and returned.
+         *
+         * @param k the key
+         * @param supplier returns the value for the key, or <code>null</code> to leave the key without a value
+         * @return the value of the key
+         */
         public @Nullable Object get(String k, Supplier<Object> supplier) {
-            return backingMap.computeIfAbsent(k, (unused_key) -> supplier.get());
+            Entry current = entries.get(k);
+            if (current != null && !current.isExpired(System.nanoTime())) {
+                hitCount.incrementAndGet();
+                touch(k);
+                return current.use(owner);
+            }
+            missCount.incrementAndGet();
+            Object value = supplier.get();
+            if (value == null) {
+                if (current != null && entries.remove(k, current)) {
+                    forget(k);
+                }
+                return null;
+            }
+            Entry entry = putIfAbsentOrExpired(k, new Entry(value, owner, 0));
+            touch(k);
+            evictIfFull();
+            return entry.use(owner);
+        }
+
+        /**
+         * Atomically computes a new value from the current one. The entry is removed if the function returns
+         * <code>null</code>.
+         *
+         * The function is not called while the entry is locked, so it may use the cache. If the entry has been changed
+         * meanwhile, the function is called again with the new value, so it must not change the entry of the key
+         * itself.
+         *
+         * @param k the key
+         * @param remappingFunction gets the current value or <code>null</code> and returns the new value
+         * @return the new value
+         */
+        public @Nullable Object compute(String k, Function<@Nullable Object, @Nullable Object> remappingFunction) {
+            while (true) {
+                Entry current = entries.get(k);
+                Object currentValue = current != null && !current.isExpired(System.nanoTime()) ? current.value : null;
+                Object value = remappingFunction.apply(currentValue);
+                Entry entry = value != null ? new Entry(value, owner, 0).inheritUsers(current) : null;
+                boolean updated;
+                if (current == null) {
+                    updated = entry == null || entries.putIfAbsent(k, entry) == null;
+                } else if (entry == null) {
+                    updated = entries.remove(k, current);
+                } else {
+                    updated = entries.replace(k, current, entry);
+                }
+                if (!updated) {
+                    continue;
+                }
+                if (entry == null) {
+                    forget(k);
+                    return null;
+                }
+                touch(k);
+                evictIfFull();
+                return entry.value;
+            }
+        }
+
+        public boolean exists(String k) {
+            Entry entry = entries.get(k);
+            return entry != null && !entry.isExpired(System.nanoTime());
+        }
+
+        /**
+         * Returns the number of entries of all scripts, including expired entries which have not been removed yet
+         */
+        public int size() {
+            return entries.size();
+        }
+
+        public long getHitCount() {
+            return hitCount.get();
+        }
+
+        public long getMissCount() {
+            return missCount.get();
+        }
+
+        public long getEvictionCount() {
+            return evictionCount.get();
         }
     }
 }
@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.automation.jsscripting.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptContext;
+import javax.script.ScriptException;
+import javax.script.SimpleScriptContext;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.test.java.JavaTest;
+
+/**
+ * Tests the {@link PooledGraalJSScriptEngine} with script engines which record their evaluations instead of running
+ * them.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PooledGraalJSScriptEngineTest extends JavaTest {
+
+    // evaluations of this script wait until they are released
+    private static final String BLOCKING_SCRIPT = "block";
+    private static final String SCRIPT = "run";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // all engines created by the pool, the first one is the primary context
+    private final List<OpenhabGraalJSScriptEngine> engines = Collections.synchronizedList(new ArrayList<>());
+    private final Set<OpenhabGraalJSScriptEngine> evaluating = ConcurrentHashMap.newKeySet();
+    private final Semaphore started = new Semaphore(0);
+    private final CountDownLatch release = new CountDownLatch(1);
+    // the results of the evaluations run on other threads, by thread name
+    private final Map<String, Object> results = new ConcurrentHashMap<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        executor.shutdownNow();
+    }
+
+    private PooledGraalJSScriptEngine createPool(int poolSize) {
+        return new PooledGraalJSScriptEngine(this::createEngine, poolSize, executor);
+    }
+
+    private OpenhabGraalJSScriptEngine createEngine() {
+        OpenhabGraalJSScriptEngine engine = mock(OpenhabGraalJSScriptEngine.class);
+        ScriptContext context = new SimpleScriptContext();
+        when(engine.getContext()).thenReturn(context);
+        try {
+            when(engine.eval(anyString())).thenAnswer(invocation -> evaluate(engine, invocation.getArgument(0)));
+        } catch (ScriptException e) {
+            throw new IllegalStateException(e);
+        }
+        engines.add(engine);
+        return engine;
+    }
+
+    /**
+     * Returns the attributes a script would see, evaluations of the {@link #BLOCKING_SCRIPT} wait until they are
+     * released
+     */
+    private @Nullable Object evaluate(OpenhabGraalJSScriptEngine engine, String script) throws InterruptedException {
+        if (script.isEmpty()) {
+            // contexts are warmed up with an empty script
+            return null;
+        }
+        ScriptContext context = engine.getContext();
+        String result = context.getAttribute("setup", ScriptContext.ENGINE_SCOPE) + "/"
+                + context.getAttribute("event", ScriptContext.ENGINE_SCOPE);
+        assertThat("a context is only used by one thread at a time", evaluating.add(engine), is(true));
+        try {
+            started.release();
+            if (BLOCKING_SCRIPT.equals(script)) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return result;
+        } finally {
+            evaluating.remove(engine);
+        }
+    }
+
+    private Thread evalInThread(PooledGraalJSScriptEngine pool, String name, @Nullable String event, String script) {
+        Thread thread = new Thread(() -> {
+            if (event != null) {
+                pool.getContext().setAttribute("event", event, ScriptContext.ENGINE_SCOPE);
+            }
+            try {
+                Object result = pool.eval(script);
+                if (result != null) {
+                    results.put(name, result);
+                }
+            } catch (ScriptException e) {
+                results.put(name, e);
+            } finally {
+                if (event != null) {
+                    pool.getContext().removeAttribute("event", ScriptContext.ENGINE_SCOPE);
+                }
+            }
+        }, name);
+        threads.add(thread);
+        thread.start();
+        return thread;
+    }
+
+    private void awaitStarted(int evaluations) throws InterruptedException {
+        assertThat(started.tryAcquire(evaluations, 5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void concurrentEvaluationsRunOnSeparateContexts() throws InterruptedException {
+        PooledGraalJSScriptEngine pool = createPool(2);
+
+        Thread first = evalInThread(pool, "first", null, BLOCKING_SCRIPT);
+        Thread second = evalInThread(pool, "second", null, BLOCKING_SCRIPT);
+        awaitStarted(2);
+        assertThat(evaluating.size(), is(2));
+
+        // all contexts are busy, so the third evaluation waits for the primary one
+        Thread third = evalInThread(pool, "third", null, BLOCKING_SCRIPT);
+        waitForAssert(() -> assertThat(third.getState(), is(Thread.State.WAITING)));
+        assertThat(started.availablePermits(), is(0));
+
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+        third.join(5000);
+
+        assertThat(results.keySet(), is(Set.of("first", "second", "third")));
+    }
+
+    @Test
+    public void attributesOfAThreadAreOnlyVisibleToItsEvaluation() throws InterruptedException {
+        PooledGraalJSScriptEngine pool = createPool(2);
+        // set by the host when it sets up the engine, on a thread which never evaluates a script
+        pool.put("setup", "engine");
+
+        Thread first = evalInThread(pool, "first", "a", BLOCKING_SCRIPT);
+        awaitStarted(1);
+        Thread second = evalInThread(pool, "second", "b", BLOCKING_SCRIPT);
+        awaitStarted(1);
+
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        assertThat(results.get("first"), is("engine/a"));
+        assertThat(results.get("second"), is("engine/b"));
+        // the attributes of an execution are removed once it has finished
+        assertThat(pool.get("event"), is(nullValue()));
+        assertThat(pool.get("setup"), is("engine"));
+    }
+
+    @Test
+    public void scriptUnloadedIsCalledOnSecondaryContexts() throws Exception {
+        PooledGraalJSScriptEngine pool = createPool(2);
+        Thread blocking = evalInThread(pool, "blocking", null, BLOCKING_SCRIPT);
+        awaitStarted(1);
+
+        pool.eval(SCRIPT);
+
+        OpenhabGraalJSScriptEngine primary = engines.get(0);
+        OpenhabGraalJSScriptEngine secondary = engines.get(1);
+        verify(secondary).eval(SCRIPT);
+        verify(secondary).invokeFunction("scriptUnloaded");
+        verify(secondary).close();
+        // a spare context is prepared for the next concurrent evaluation
+        waitForAssert(() -> assertThat(engines.size(), is(3)));
+        verify(engines.get(2), timeout(5000)).eval("");
+
+        release.countDown();
+        blocking.join(5000);
+        verify(primary, never()).invokeFunction(anyString());
+        verify(primary, never()).close();
+    }
+
+    @Test
+    public void closeWaitsForRunningEvaluation() throws Exception {
+        PooledGraalJSScriptEngine pool = createPool(2);
+        Thread first = evalInThread(pool, "first", null, BLOCKING_SCRIPT);
+        Thread second = evalInThread(pool, "second", null, BLOCKING_SCRIPT);
+        awaitStarted(2);
+        OpenhabGraalJSScriptEngine primary = engines.get(0);
+        OpenhabGraalJSScriptEngine secondary = engines.get(1);
+
+        Thread closing = new Thread(() -> {
+            try {
+                pool.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        threads.add(closing);
+        closing.start();
+        waitForAssert(() -> assertThat(closing.getState(), is(Thread.State.WAITING)));
+        verify(primary, never()).close();
+        verify(secondary, never()).close();
+
+        release.countDown();
+        closing.join(5000);
+        first.join(5000);
+        second.join(5000);
+
+        assertThat(results.keySet(), is(Set.of("first", "second")));
+        verify(primary).close();
+        verify(secondary).invokeFunction("scriptUnloaded");
+        verify(secondary).close();
+        // no spare context is prepared for a closed engine
+        assertThat(engines.size(), is(2));
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.automation.jsscripting.internal.scope;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.automation.jsscripting.internal.scope.SharedCache.JSCache;
+import org.openhab.core.test.java.JavaTest;
+
+/**
+ * Tests the {@link SharedCache}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class SharedCacheTest extends JavaTest {
+
+    private static final String SCRIPT1 = "script1";
+    private static final String SCRIPT2 = "script2";
+
+    private final SharedCache sharedCache = new SharedCache();
+
+    @AfterEach
+    public void tearDown() {
+        sharedCache.deactivate();
+    }
+
+    @Test
+    public void entriesExpireAfterTheirTimeToLive() {
+        sharedCache.activate(Map.of());
+        JSCache cache = cache(SCRIPT1);
+        cache.put("expiring", "value", 10);
+        cache.put("permanent", "value");
+
+        waitForAssert(() -> assertFalse(cache.exists("expiring")));
+        assertNull(cache.get("expiring"));
+        assertEquals("value", cache.get("permanent"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        sharedCache.activate(Map.of("cacheMaxSize", 2));
+        JSCache cache = cache(SCRIPT1);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.exists("a"));
+        assertFalse(cache.exists("b"));
+        assertTrue(cache.exists("c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void computedEntriesAreEvictedWhenFull() {
+        sharedCache.activate(Map.of("cacheMaxSize", 1));
+        JSCache cache = cache(SCRIPT1);
+        cache.compute("a", value -> 1);
+        cache.get("b", () -> 2);
+
+        assertEquals(1, cache.size());
+        assertFalse(cache.exists("a"));
+        assertEquals(2, cache.get("b"));
+    }
+
+    @Test
+    public void supplierAndFunctionMayUseTheCache() {
+        sharedCache.activate(Map.of());
+        JSCache cache = cache(SCRIPT1);
+        cache.put("a", "a");
+
+        assertEquals("ab", cache.get("b", () -> cache.get("a") + "b"));
+        assertEquals("abc", cache.compute("c", value -> cache.get("b") + "c"));
+        assertEquals("d", cache.get("outer", () -> Objects.requireNonNull(cache.get("inner", () -> "d"))));
+        assertEquals("d", cache.get("inner"));
+    }
+
+    @Test
+    public void computeUsesTheValueChangedWhileTheFunctionRuns() {
+        sharedCache.activate(Map.of());
+        JSCache cache = cache(SCRIPT1);
+        cache.put("counter", 1);
+        AtomicBoolean changed = new AtomicBoolean();
+
+        Object result = cache.compute("counter", value -> {
+            if (!changed.getAndSet(true)) {
+                // another script changes the value while it is computed
+                cache(SCRIPT2).put("counter", 10);
+            }
+            return (Integer) Objects.requireNonNull(value) + 1;
+        });
+
+        assertEquals(11, result);
+        assertEquals(11, cache.get("counter"));
+    }
+
+    @Test
+    public void valuePutWhileTheSupplierRunsIsKept() {
+        sharedCache.activate(Map.of());
+        JSCache cache = cache(SCRIPT1);
+
+        Object result = cache.get("key", () -> {
+            cache(SCRIPT2).put("key", "other");
+            return "own";
+        });
+
+        assertEquals("other", result);
+        assertEquals("other", cache.get("key"));
+    }
+
+    @Test
+    public void entriesOfAnUnloadedScriptAreReleased() {
+        sharedCache.activate(Map.of());
+        cache(SCRIPT1).put("own", 1);
+
+        sharedCache.unload(SCRIPT1);
+        sharedCache.release(SCRIPT1);
+
+        assertFalse(cache(SCRIPT2).exists("own"));
+    }
+
+    @Test
+    public void entriesReadByAnotherScriptAreKeptOnRelease() {
+        sharedCache.activate(Map.of());
+        cache(SCRIPT1).put("shared", 1);
+        assertEquals(1, cache(SCRIPT2).get("shared"));
+
+        sharedCache.unload(SCRIPT1);
+        sharedCache.release(SCRIPT1);
+        assertTrue(cache(SCRIPT2).exists("shared"));
+
+        sharedCache.unload(SCRIPT2);
+        sharedCache.release(SCRIPT2);
+        assertFalse(cache("script3").exists("shared"));
+    }
+
+    @Test
+    public void entriesOfAReloadedScriptAreKept() {
+        sharedCache.activate(Map.of());
+        cache(SCRIPT1).put("own", 1);
+
+        sharedCache.unload(SCRIPT1);
+        JSCache reloaded = cache(SCRIPT1);
+        sharedCache.release(SCRIPT1);
+
+        assertEquals(1, reloaded.get("own"));
+    }
+
+    private JSCache cache(String scriptIdentifier) {
+        Object cache = sharedCache.get(scriptIdentifier, "sharedcache");
+        assertNotNull(cache);
+        return (JSCache) cache;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.metrics;
+
+import java.time.Duration;
+import java.util.function.ToDoubleFunction;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link AddonMetrics} lets add-ons register their own meters with the openHAB metrics registry. All meters are tagged
+ * with the add-on (binding or service id), the thing UID and the operation, so they can be aggregated per add-on or per
+ * thing by the monitoring system.
+ *
+ * Meters should be looked up once and kept by the caller. While add-on metrics are disabled, the returned meters are
+ * not attached to any registry and recording a value costs next to nothing.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public interface AddonMetrics {
+
+    String TAG_BINDING = "binding";
+    String TAG_THING = "thing";
+    String TAG_OPERATION = "operation";
+
+    /** Counts events received or sent by a binding */
+    String METER_EVENTS = "openhab.addon.events";
+    /** Duration of {@code ThingHandler.handleCommand} */
+    String METER_HANDLE_COMMAND = "openhab.addon.handler.command";
+    /** Duration of polling jobs */
+    String METER_POLL = "openhab.addon.poll";
+    /** Counts polling jobs which took longer than their interval */
+    String METER_POLL_OVERRUNS = "openhab.addon.poll.overruns";
+    /** Duration of persistence store operations */
+    String METER_PERSISTENCE_STORE = "openhab.addon.persistence.store";
+    /** Number of values waiting to be written by a persistence service */
+    String METER_PERSISTENCE_QUEUE = "openhab.addon.persistence.queue";
+
+    /**
+     * Returns whether add-on metrics are enabled. Callers can use this to skip collecting values which are expensive
+     * to compute.
+     */
+    boolean isEnabled();
+
+    /**
+     * Gets a counter
+     *
+     * @param name the meter name
+     * @param binding the binding or service id
+     * @param thingUID the thing UID or <code>null</code> if the counter is not related to a thing
+     * @param operation the operation, e.g. "poll" or "store"
+     * @return the counter
+     */
+    Counter counter(String name, String binding, @Nullable String thingUID, String operation);
+
+    /**
+     * Gets a timer which publishes a latency histogram
+     *
+     * @param name the meter name
+     * @param binding the binding or service id
+     * @param thingUID the thing UID or <code>null</code> if the timer is not related to a thing
+     * @param operation the operation, e.g. "poll" or "store"
+     * @return the timer
+     */
+    Timer timer(String name, String binding, @Nullable String thingUID, String operation);
+
+    /**
+     * Registers a gauge. The gauge only keeps a weak reference to the object, so the caller has to keep a strong
+     * reference for as long as the gauge should report values.
+     *
+     * @param name the meter name
+     * @param binding the binding or service id
+     * @param thingUID the thing UID or <code>null</code> if the gauge is not related to a thing
+     * @param operation the operation
+     * @param obj the object to observe
+     * @param valueFunction the function which computes the value from the object
+     * @return the object
+     */
+    <T> T gauge(String name, String binding, @Nullable String thingUID, String operation, T obj,
+            ToDoubleFunction<T> valueFunction);
+
+    /**
+     * Gets the timer for {@code ThingHandler.handleCommand} of a thing
+     */
+    default Timer handleCommandTimer(String binding, String thingUID) {
+        return timer(METER_HANDLE_COMMAND, binding, thingUID, "handleCommand");
+    }
+
+    /**
+     * Gets the counter for events of a binding
+     *
+     * @param operation the kind of event, e.g. "received" or "sent"
+     */
+    default Counter eventCounter(String binding, @Nullable String thingUID, String operation) {
+        return counter(METER_EVENTS, binding, thingUID, operation);
+    }
+
+    /**
+     * Gets the timer for store operations of a persistence service
+     */
+    default Timer persistenceStoreTimer(String serviceId) {
+        return timer(METER_PERSISTENCE_STORE, serviceId, null, "store");
+    }
+
+    /**
+     * Registers the queue depth of a persistence service, see {@link #gauge}
+     */
+    default <T> T persistenceQueueGauge(String serviceId, T obj, ToDoubleFunction<T> valueFunction) {
+        return gauge(METER_PERSISTENCE_QUEUE, serviceId, null, "store", obj, valueFunction);
+    }
+
+    /**
+     * Runs a polling job, records its duration and counts an overrun if it took longer than its interval
+     *
+     * @param binding the binding id
+     * @param thingUID the thing UID
+     * @param interval the interval the job is scheduled with
+     * @param job the polling job
+     */
+    default void recordPoll(String binding, String thingUID, Duration interval, Runnable job) {
+        if (!isEnabled()) {
+            job.run();
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            job.run();
+        } finally {
+            long duration = System.nanoTime() - start;
+            timer(METER_POLL, binding, thingUID, "poll").record(Duration.ofNanos(duration));
+            if (duration > interval.toNanos()) {
+                counter(METER_POLL_OVERRUNS, binding, thingUID, "poll").increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.metrics;
+
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.config.core.Configuration;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * The {@link AddonMetricsService} registers the meters of add-ons with a registry of its own. That registry is only
+ * attached to the openHAB core registry while add-on metrics are enabled. Meters of a composite registry without
+ * registries attached do not record anything, so add-ons can keep their meters and record values unconditionally.
+ *
+ * @author agent - Initial contribution
+ */
+@Component(configurationPid = "org.openhab.metrics", service = AddonMetrics.class)
+@NonNullByDefault
+public class AddonMetricsService implements AddonMetrics {
+
+    private static final String NO_THING = "none";
+
+    private final Logger logger = LoggerFactory.getLogger(AddonMetricsService.class);
+    private final CompositeMeterRegistry addonRegistry = new CompositeMeterRegistry();
+    private final CompositeMeterRegistry coreRegistry;
+    private volatile boolean enabled = false;
+
+    @Activate
+    public AddonMetricsService(final @Reference MeterRegistryProvider meterRegistryProvider,
+            Map<String, @Nullable Object> configuration) {
+        this.coreRegistry = meterRegistryProvider.getOHMeterRegistry();
+        modified(configuration);
+    }
+
+    @Modified
+    protected synchronized void modified(Map<String, @Nullable Object> configuration) {
+        MetricsConfiguration config = new Configuration(configuration).as(MetricsConfiguration.class);
+        if (config.addonMetricsEnabled && !enabled) {
+            addonRegistry.add(coreRegistry);
+            enabled = true;
+            logger.debug("Add-on metrics enabled.");
+        } else if (!config.addonMetricsEnabled && enabled) {
+            disable();
+            logger.debug("Add-on metrics disabled.");
+        }
+    }
+
+    @Deactivate
+    protected synchronized void deactivate() {
+        if (enabled) {
+            disable();
+        }
+    }
+
+    private void disable() {
+        enabled = false;
+        addonRegistry.remove(coreRegistry);
+        // the meters stay in the core registry otherwise and keep being exported with their last values
+        addonRegistry.getMeters().forEach(meter -> coreRegistry.remove(meter.getId()));
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Counter counter(String name, String binding, @Nullable String thingUID, String operation) {
+        return Counter.builder(name).tags(tags(binding, thingUID, operation)).register(addonRegistry);
+    }
+
+    @Override
+    public Timer timer(String name, String binding, @Nullable String thingUID, String operation) {
+        return Timer.builder(name).tags(tags(binding, thingUID, operation)).publishPercentileHistogram()
+                .register(addonRegistry);
+    }
+
+    @Override
+    public <T> T gauge(String name, String binding, @Nullable String thingUID, String operation, T obj,
+            ToDoubleFunction<T> valueFunction) {
+        Gauge.builder(name, obj, valueFunction).tags(tags(binding, thingUID, operation)).register(addonRegistry);
+        return obj;
+    }
+
+    private Tags tags(String binding, @Nullable String thingUID, String operation) {
+        return Tags.of(TAG_BINDING, binding, TAG_THING, thingUID != null ? thingUID : NO_THING, TAG_OPERATION,
+                operation);
+    }
+}
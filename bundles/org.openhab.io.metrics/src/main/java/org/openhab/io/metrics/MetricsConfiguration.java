@@ -31,11 +31,14 @@ public class MetricsConfiguration {
 
     public boolean jmxMetricsEnabled = false;
 
+    public boolean addonMetricsEnabled = false;
+
     @Override
     public String toString() {
         return "MetricsConfiguration{" + "influxMetricsEnabled=" + influxMetricsEnabled + ", influxURL='" + influxURL
                 + '\'' + ", influxDB='" + influxDB + '\'' + ", influxPassword='" + influxPassword + '\''
                 + ", influxUsername='" + influxUsername + '\'' + ", influxUpdateIntervalInSeconds="
-                + influxUpdateIntervalInSeconds + ", jmxMetricsEnabled=" + jmxMetricsEnabled + '}';
+                + influxUpdateIntervalInSeconds + ", jmxMetricsEnabled=" + jmxMetricsEnabled
+                + ", addonMetricsEnabled=" + addonMetricsEnabled + '}';
     }
 }
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the {@link AddonMetricsService}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class AddonMetricsServiceTest {
+
+    private static final String BINDING = "test";
+    private static final String THING = "test:thing:1";
+    private static final Map<String, @Nullable Object> ENABLED = Map.of("addonMetricsEnabled", true);
+    private static final Map<String, @Nullable Object> DISABLED = Map.of("addonMetricsEnabled", false);
+
+    private final CompositeMeterRegistry coreRegistry = new CompositeMeterRegistry();
+    private final MeterRegistryProvider meterRegistryProvider = mock(MeterRegistryProvider.class);
+
+    public AddonMetricsServiceTest() {
+        coreRegistry.add(new SimpleMeterRegistry());
+        when(meterRegistryProvider.getOHMeterRegistry()).thenReturn(coreRegistry);
+    }
+
+    @Test
+    public void metersAreInertWhileDisabled() {
+        AddonMetricsService service = new AddonMetricsService(meterRegistryProvider, DISABLED);
+        assertFalse(service.isEnabled());
+
+        Counter counter = service.eventCounter(BINDING, THING, "received");
+        counter.increment();
+        service.handleCommandTimer(BINDING, THING).record(() -> {
+        });
+
+        assertEquals(0, counter.count());
+        assertTrue(coreRegistry.getMeters().isEmpty());
+    }
+
+    @Test
+    public void metersAreRecordedWhileEnabled() {
+        AddonMetricsService service = new AddonMetricsService(meterRegistryProvider, ENABLED);
+        assertTrue(service.isEnabled());
+
+        service.eventCounter(BINDING, THING, "received").increment();
+
+        Counter counter = coreRegistry.find(AddonMetrics.METER_EVENTS).tag(AddonMetrics.TAG_THING, THING).counter();
+        assertNotNull(counter);
+        assertEquals(1, counter.count());
+    }
+
+    @Test
+    public void metersAreRemovedFromTheCoreRegistryWhenDisabled() {
+        AddonMetricsService service = new AddonMetricsService(meterRegistryProvider, ENABLED);
+        Counter counter = service.eventCounter(BINDING, THING, "received");
+        counter.increment();
+
+        service.modified(DISABLED);
+        counter.increment();
+
+        assertFalse(service.isEnabled());
+        assertNull(coreRegistry.find(AddonMetrics.METER_EVENTS).counter());
+        assertEquals(0, counter.count());
+    }
+
+    @Test
+    public void metersAreRemovedFromTheCoreRegistryOnDeactivate() {
+        AddonMetricsService service = new AddonMetricsService(meterRegistryProvider, ENABLED);
+        service.persistenceStoreTimer("jdbc").record(() -> {
+        });
+
+        service.deactivate();
+
+        assertTrue(coreRegistry.getMeters().isEmpty());
+    }
+}
@@ -22,8 +22,11 @@ import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jetty.client.HttpClient;
@@ -34,6 +37,7 @@ import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -60,6 +64,11 @@ import io.socket.thread.EventThread;
  * @author Kai Kreuzer - migrated code to new Jetty client and ESH APIs
  */
 public class CloudClient {
+    /*
+     * Content of proxied responses is only read while less than this is waiting to be written to the openHAB Cloud
+     */
+    private static final long MAX_PENDING_CONTENT_BYTES = 1024 * 1024;
+
     /*
      * Logger for this class
      */
@@ -95,6 +104,21 @@ public class CloudClient {
      */
     private final Map<Integer, Request> runningRequests = new ConcurrentHashMap<>();
 
+    /*
+     * The maximum size of the content chunks of proxied responses, 0 if every chunk is sent as it is received
+     */
+    private final int proxyChunkSize;
+
+    /*
+     * The number of bytes of proxied responses which have been emitted, but not been written to the openHAB Cloud yet
+     */
+    private final AtomicLong pendingContentBytes = new AtomicLong();
+
+    /*
+     * Callbacks of proxied responses whose content is not read until the pending content has been written
+     */
+    private final Queue<Callback> suspendedContent = new ConcurrentLinkedQueue<>();
+
     /*
      * This variable indicates if connection to the openHAB Cloud is currently in an established state
      */
@@ -136,9 +160,11 @@ public class CloudClient {
      * @param secret openHAB's Secret to connect to the openHAB Cloud
      * @param remoteAccessEnabled Allow the openHAB Cloud to be used as a remote proxy
      * @param exposedItems Items that are made available to apps connected to the openHAB Cloud
+     * @param proxyChunkSize The maximum size of content chunks of proxied responses, 0 to send chunks as they are
+     *            received
      */
     public CloudClient(HttpClient httpClient, String uuid, String secret, String baseURL, String localBaseUrl,
-            boolean remoteAccessEnabled, Set<String> exposedItems) {
+            boolean remoteAccessEnabled, Set<String> exposedItems, int proxyChunkSize) {
         this.uuid = uuid;
         this.secret = secret;
         this.baseURL = baseURL;
@@ -146,6 +172,7 @@ public class CloudClient {
         this.remoteAccessEnabled = remoteAccessEnabled;
         this.exposedItems = exposedItems;
         this.jettyClient = httpClient;
+        this.proxyChunkSize = proxyChunkSize;
         reconnectBackoff.setMin(1000);
         reconnectBackoff.setMax(30_000);
         reconnectBackoff.setJitter(0.5);
@@ -183,6 +210,12 @@ public class CloudClient {
                         headers.put("remoteaccess", List.of(((Boolean) remoteAccessEnabled).toString()));
                     }
                 });
+                transport.on(Transport.EVENT_DRAIN, new Emitter.Listener() {
+                    @Override
+                    public void call(Object... args) {
+                        onDrain();
+                    }
+                });
             }
         }).on(Manager.EVENT_CONNECT_ERROR, new Emitter.Listener() {
 
@@ -333,6 +366,66 @@ public class CloudClient {
         isConnected = false;
         // And clean up the list of running requests
         runningRequests.clear();
+        // Content waiting for the connection will never be sent
+        pendingContentBytes.set(0);
+        Callback callback;
+        while ((callback = suspendedContent.poll()) != null) {
+            callback.failed(new IOException("Disconnected from the openHAB Cloud"));
+        }
+    }
+
+    /**
+     * Callback method for socket.io client which is called when everything emitted has been written to the openHAB
+     * Cloud
+     */
+    private void onDrain() {
+        pendingContentBytes.set(0);
+        resumeContent();
+    }
+
+    /**
+     * Called when content of a proxied response has been processed. Reading more content of the response is
+     * suspended while too much content is waiting to be written to the openHAB Cloud.
+     *
+     * @param callback the callback to resume reading the response
+     */
+    void demandContent(Callback callback) {
+        if (pendingContentBytes.get() < MAX_PENDING_CONTENT_BYTES) {
+            callback.succeeded();
+            return;
+        }
+        suspendedContent.add(callback);
+        // the pending content may have been written in the meantime
+        if (pendingContentBytes.get() < MAX_PENDING_CONTENT_BYTES) {
+            resumeContent();
+        }
+    }
+
+    private void resumeContent() {
+        Callback callback;
+        while ((callback = suspendedContent.poll()) != null) {
+            // reading the response must not block the Socket.IO event thread
+            jettyClient.getExecutor().execute(callback::succeeded);
+        }
+    }
+
+    /**
+     * Sends content of a proxied response to the openHAB Cloud
+     *
+     * @param requestId the id of the request
+     * @param content the content, which must not be modified afterwards
+     */
+    void emitContent(int requestId, byte[] content) {
+        JSONObject responseJson = new JSONObject();
+        try {
+            responseJson.put("id", requestId);
+            responseJson.put("body", content);
+            pendingContentBytes.addAndGet(content.length);
+            socket.emit("responseContentBinary", responseJson);
+            logger.trace("Sent {} bytes of content to request {}", content.length, requestId);
+        } catch (JSONException e) {
+            logger.debug("{}", e.getMessage());
+        }
     }
 
     /**
@@ -418,11 +511,39 @@ public class CloudClient {
             }
             request.method(method);
             if (!requestBody.isEmpty()) {
-                request.content(new BytesContentProvider(requestBody.getBytes()));
+                request.content(new BytesContentProvider(requestBody.getBytes(StandardCharsets.UTF_8)));
+            }
+
+            ProxyResponseStream responseStream = proxyChunkSize > 0
+                    ? new ProxyResponseStream(this, jettyClient.getScheduler(), requestId,
+                            requestMethod + " " + requestPath, proxyChunkSize)
+                    : null;
+            if (responseStream != null) {
+                request.onResponseContentAsync(responseStream);
+            } else {
+                request.onResponseContent((theResponse, content) -> {
+                    logger.debug("onResponseContent: {}, content size {}", requestId,
+                            String.valueOf(content.remaining()));
+                    JSONObject responseJson = new JSONObject();
+                    try {
+                        responseJson.put("id", requestId);
+                        responseJson.put("body", BufferUtil.toArray(content));
+                        if (logger.isTraceEnabled()) {
+                            logger.trace("{}", StandardCharsets.UTF_8.decode(content).toString());
+                        }
+                        socket.emit("responseContentBinary", responseJson);
+                        logger.trace("Sent content to request {}", requestId);
+                    } catch (JSONException e) {
+                        logger.debug("{}", e.getMessage());
+                    }
+                });
             }
 
             request.onResponseHeaders(response -> {
                 logger.debug("onHeaders {}", requestId);
+                if (responseStream != null) {
+                    responseStream.onHeaders(response);
+                }
                 JSONObject responseJson = new JSONObject();
                 try {
                     responseJson.put("id", requestId);
@@ -435,20 +556,6 @@ public class CloudClient {
                 } catch (JSONException e) {
                     logger.debug("{}", e.getMessage());
                 }
-            }).onResponseContent((theResponse, content) -> {
-                logger.debug("onResponseContent: {}, content size {}", requestId, String.valueOf(content.remaining()));
-                JSONObject responseJson = new JSONObject();
-                try {
-                    responseJson.put("id", requestId);
-                    responseJson.put("body", BufferUtil.toArray(content));
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("{}", StandardCharsets.UTF_8.decode(content).toString());
-                    }
-                    socket.emit("responseContentBinary", responseJson);
-                    logger.trace("Sent content to request {}", requestId);
-                } catch (JSONException e) {
-                    logger.debug("{}", e.getMessage());
-                }
             }).onRequestFailure((origRequest, failure) -> {
                 logger.debug("onRequestFailure: {},  {}", requestId, failure.getMessage());
                 JSONObject responseJson = new JSONObject();
@@ -475,6 +582,10 @@ public class CloudClient {
                         logger.debug("Response Failure: {}", result.getResponseFailure().getMessage());
                     }
                 }
+                if (responseStream != null) {
+                    // the remaining content has to be sent before the response is finished
+                    responseStream.complete(result);
+                }
                 JSONObject responseJson = new JSONObject();
                 try {
                     responseJson.put("id", requestId);
@@ -75,10 +75,12 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     private static final String CFG_EXPOSE = "expose";
     private static final String CFG_BASE_URL = "baseURL";
     private static final String CFG_MODE = "mode";
+    private static final String CFG_PROXY_CHUNK_SIZE = "proxyChunkSize";
     private static final String SECRET_FILE_NAME = "openhabcloud" + File.separator + "secret";
     private static final String DEFAULT_URL = "https://myopenhab.org/";
     private static final int DEFAULT_LOCAL_OPENHAB_MAX_CONCURRENT_REQUESTS = 200;
     private static final int DEFAULT_LOCAL_OPENHAB_REQUEST_TIMEOUT = 30000;
+    private static final int DEFAULT_PROXY_CHUNK_SIZE = 65536;
     private static final String HTTPCLIENT_NAME = "openhabcloud";
     private static final String CHARS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
     private static final SecureRandom SR = new SecureRandom();
@@ -94,6 +96,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
 
     private boolean remoteAccessEnabled = true;
     private Set<String> exposedItems = null;
+    private int proxyChunkSize = DEFAULT_PROXY_CHUNK_SIZE;
     private int localPort;
 
     @Activate
@@ -209,6 +212,18 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
             cloudBaseUrl = DEFAULT_URL;
         }
 
+        Object proxyChunkSizeCfg = config.get(CFG_PROXY_CHUNK_SIZE);
+        if (proxyChunkSizeCfg != null) {
+            try {
+                proxyChunkSize = Math.max(0, Integer.parseInt(proxyChunkSizeCfg.toString()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid proxy chunk size '{}', using {}", proxyChunkSizeCfg, DEFAULT_PROXY_CHUNK_SIZE);
+                proxyChunkSize = DEFAULT_PROXY_CHUNK_SIZE;
+            }
+        } else {
+            proxyChunkSize = DEFAULT_PROXY_CHUNK_SIZE;
+        }
+
         exposedItems = new HashSet<>();
         Object expCfg = config.get(CFG_EXPOSE);
         if (expCfg instanceof String) {
@@ -244,7 +259,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
 
         String localBaseUrl = "http://localhost:" + localPort;
         cloudClient = new CloudClient(httpClient, InstanceUUID.get(), getSecret(), cloudBaseUrl, localBaseUrl,
-                remoteAccessEnabled, exposedItems);
+                remoteAccessEnabled, exposedItems, proxyChunkSize);
         cloudClient.setOpenHABVersion(OpenHAB.getVersion());
         cloudClient.connect();
         cloudClient.setListener(this);
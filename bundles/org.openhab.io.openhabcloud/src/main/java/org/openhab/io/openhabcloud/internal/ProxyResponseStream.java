@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams the content of a response of the local openHAB to the openHAB Cloud. Content is coalesced into chunks of up
+ * to the chunk size, so large responses like images and charts are sent in few Socket.IO messages. Full chunks are sent
+ * as they are, so every byte is only copied once. Content which does not fill a chunk is sent after a short delay if no
+ * more content arrives, and event streams are not coalesced at all.
+ *
+ * Content is only read from the local openHAB as fast as it can be written to the openHAB Cloud, see
+ * {@link CloudClient#demandContent(Callback)}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+class ProxyResponseStream implements Response.AsyncContentListener {
+
+    private static final long LINGER_MILLIS = 10;
+    private static final String EVENT_STREAM = "text/event-stream";
+
+    private final Logger logger = LoggerFactory.getLogger(ProxyResponseStream.class);
+    private final CloudClient client;
+    private final Scheduler scheduler;
+    private final int requestId;
+    private final String description;
+    private final int chunkSize;
+    private final long startNanos = System.nanoTime();
+
+    private long headersNanos;
+    private long completeNanos;
+    private long bytes;
+    private int chunks;
+    private boolean coalesce = true;
+    private byte @Nullable [] buffer;
+    private int position;
+    private Scheduler.@Nullable Task flushTask;
+
+    ProxyResponseStream(CloudClient client, Scheduler scheduler, int requestId, String description, int chunkSize) {
+        this.client = client;
+        this.scheduler = scheduler;
+        this.requestId = requestId;
+        this.description = description;
+        this.chunkSize = chunkSize;
+    }
+
+    synchronized void onHeaders(Response response) {
+        headersNanos = System.nanoTime() - startNanos;
+        String contentType = response.getHeaders().get(HttpHeader.CONTENT_TYPE);
+        // events have to be sent immediately
+        coalesce = contentType == null || !contentType.startsWith(EVENT_STREAM);
+    }
+
+    @Override
+    public void onContent(@Nullable Response response, @Nullable ByteBuffer content, @Nullable Callback callback) {
+        if (content == null || callback == null) {
+            return;
+        }
+        synchronized (this) {
+            bytes += content.remaining();
+            if (!coalesce) {
+                emit(BufferUtil.toArray(content));
+            } else {
+                append(content);
+            }
+        }
+        client.demandContent(callback);
+    }
+
+    private void append(ByteBuffer content) {
+        byte[] buffer = this.buffer;
+        while (content.hasRemaining()) {
+            if (buffer == null) {
+                buffer = new byte[chunkSize];
+                position = 0;
+            }
+            int length = Math.min(content.remaining(), chunkSize - position);
+            content.get(buffer, position, length);
+            position += length;
+            if (position == chunkSize) {
+                emit(buffer);
+                buffer = null;
+            }
+        }
+        this.buffer = buffer;
+        if (buffer != null && flushTask == null) {
+            flushTask = scheduler.schedule(this::flush, LINGER_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the content which has not been sent yet
+     */
+    synchronized void flush() {
+        Scheduler.Task flushTask = this.flushTask;
+        if (flushTask != null) {
+            flushTask.cancel();
+            this.flushTask = null;
+        }
+        byte[] buffer = this.buffer;
+        if (buffer != null && position > 0) {
+            emit(Arrays.copyOf(buffer, position));
+        }
+        this.buffer = null;
+    }
+
+    /**
+     * Sends the remaining content and logs the statistics of the request
+     *
+     * @param result the result of the request
+     */
+    void complete(Result result) {
+        flush();
+        synchronized (this) {
+            completeNanos = System.nanoTime() - startNanos;
+            if (logger.isDebugEnabled()) {
+                Response response = result.getResponse();
+                logger.debug("Request {} {} completed: status {}, {} ms, headers after {} ms, {} bytes in {} chunks",
+                        requestId, description, response != null ? response.getStatus() : "n/a",
+                        getDurationMillis(), getHeadersMillis(), bytes, chunks);
+            }
+        }
+    }
+
+    /**
+     * @return the time until the headers of the response have been received in milliseconds, 0 before they have
+     */
+    synchronized long getHeadersMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(headersNanos);
+    }
+
+    /**
+     * @return the time until the request has completed in milliseconds, or the time so far while it is running
+     */
+    synchronized long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(completeNanos > 0 ? completeNanos : System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return the number of bytes of content which have been received from the local openHAB
+     */
+    synchronized long getByteCount() {
+        return bytes;
+    }
+
+    /**
+     * @return the number of chunks of content which have been sent to the openHAB Cloud
+     */
+    synchronized int getChunkCount() {
+        return chunks;
+    }
+
+    private void emit(byte[] chunk) {
+        chunks++;
+        client.emitContent(requestId, chunk);
+    }
+}
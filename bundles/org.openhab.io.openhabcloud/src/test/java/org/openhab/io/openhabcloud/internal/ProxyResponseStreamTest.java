@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.util.Callback;
+import org.eclipse.jetty.util.thread.Scheduler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ProxyResponseStream} with a cloud client which records the emitted content.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ProxyResponseStreamTest {
+
+    private final CloudClient client = mock(CloudClient.class);
+    private final Scheduler scheduler = mock(Scheduler.class);
+    private final List<byte[]> chunks = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        doAnswer(invocation -> chunks.add(invocation.getArgument(1))).when(client).emitContent(anyInt(),
+                any(byte[].class));
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
+                .thenReturn(mock(Scheduler.Task.class));
+    }
+
+    private Response response(String contentType) {
+        HttpFields headers = new HttpFields();
+        headers.put(HttpHeader.CONTENT_TYPE, contentType);
+        Response response = mock(Response.class);
+        when(response.getHeaders()).thenReturn(headers);
+        return response;
+    }
+
+    private void content(ProxyResponseStream stream, int length) {
+        stream.onContent(null, ByteBuffer.wrap(new byte[length]), mock(Callback.class));
+    }
+
+    private List<Integer> chunkSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        chunks.forEach(chunk -> sizes.add(chunk.length));
+        return sizes;
+    }
+
+    @Test
+    public void contentIsSentInChunksAndCounted() throws InterruptedException {
+        ProxyResponseStream stream = new ProxyResponseStream(client, scheduler, 1, "GET /chart", 4);
+        Thread.sleep(20);
+        stream.onHeaders(response("image/png"));
+
+        content(stream, 3);
+        content(stream, 3);
+        assertThat(chunkSizes(), is(List.of(4)));
+
+        stream.complete(mock(Result.class));
+
+        assertThat(chunkSizes(), is(List.of(4, 2)));
+        assertThat(stream.getByteCount(), is(6L));
+        assertThat(stream.getChunkCount(), is(2));
+        assertThat(stream.getHeadersMillis(), is(greaterThanOrEqualTo(20L)));
+        assertThat(stream.getDurationMillis(), is(greaterThanOrEqualTo(stream.getHeadersMillis())));
+        verify(client, times(2)).demandContent(any(Callback.class));
+    }
+
+    @Test
+    public void eventsAreSentImmediately() {
+        ProxyResponseStream stream = new ProxyResponseStream(client, scheduler, 1, "GET /rest/events", 4);
+        stream.onHeaders(response("text/event-stream;charset=UTF-8"));
+
+        content(stream, 1);
+        content(stream, 2);
+
+        assertThat(chunkSizes(), is(List.of(1, 2)));
+        assertThat(stream.getByteCount(), is(3L));
+        assertThat(stream.getChunkCount(), is(2));
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+}
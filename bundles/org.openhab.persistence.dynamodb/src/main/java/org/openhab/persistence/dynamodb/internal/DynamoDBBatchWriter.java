@@ -0,0 +1,427 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.openhab.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Buffers DynamoDB items and writes them using BatchWriteItem requests of up to 25 items, so storing an item does not
+ * issue a PutItem request of its own.
+ *
+ * The buffer is written as soon as 25 items are added, but at the latest after <code>flushInterval</code>
+ * milliseconds. Items which DynamoDB returns as unprocessed (usually because the provisioned write capacity is
+ * exceeded) or which could not be written because the request was throttled are written again after a jittered,
+ * exponentially increasing delay. At most <code>bufferSize</code> items are kept, including the items of the request
+ * which is being written; if the buffer is full, the oldest items are discarded.
+ *
+ * If the table does not exist yet, the items are written with {@link TableCreatingPutItem} which creates the table.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class DynamoDBBatchWriter {
+    /**
+     * Maximum number of items DynamoDB accepts with one BatchWriteItem request
+     */
+    public static final int MAX_BATCH_SIZE = 25;
+
+    private static final long BASE_RETRY_DELAY = 50;
+    private static final long MAX_RETRY_DELAY = TimeUnit.SECONDS.toMillis(20);
+    private static final int MAX_CLOSE_ATTEMPTS = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(DynamoDBBatchWriter.class);
+
+    private final DynamoDBPersistenceService service;
+    private final int bufferSize;
+
+    private final ScheduledExecutorService scheduler = ThreadPoolManager
+            .getScheduledPool(DynamoDBPersistenceService.DYNAMODB_THREADPOOL_NAME);
+    private final ScheduledFuture<?> flushJob;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // held while items are written, so they are written in the order they were added
+    private final Object writeLock = new Object();
+
+    // items waiting to be written, oldest first, guarded by this
+    private final Deque<BufferedItem> pending = new ArrayDeque<>();
+    // number of items taken from pending by the running write, guarded by this
+    private int inFlight = 0;
+    // items added since the last flush and items discarded since they were last logged, guarded by this
+    private int addedSinceFlush = 0;
+    private int discardedSinceLog = 0;
+    private volatile boolean closed = false;
+
+    // retry state, guarded by the writeLock
+    private int retryAttempt = 0;
+    // System.nanoTime() when the items which could not be written are retried, 0 if no retry is pending
+    private long retryAt = 0;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+
+    private final DynamoDBItemVisitor<BufferedItem> toBufferedItem = new DynamoDBItemVisitor<>() {
+        @Override
+        public BufferedItem visit(DynamoDBBigDecimalItem dynamoBigDecimalItem) {
+            return new BufferedItem(dynamoBigDecimalItem, service.getTable(DynamoDBBigDecimalItem.class));
+        }
+
+        @Override
+        public BufferedItem visit(DynamoDBStringItem dynamoStringItem) {
+            return new BufferedItem(dynamoStringItem, service.getTable(DynamoDBStringItem.class));
+        }
+    };
+
+    /**
+     * Create a new writer and schedule writing the buffer
+     *
+     * @param service the service providing the client and the tables
+     * @param flushInterval maximum time in milliseconds an item is buffered before it is written
+     * @param bufferSize maximum number of items which are buffered, being written or waiting to be written again
+     */
+    public DynamoDBBatchWriter(DynamoDBPersistenceService service, long flushInterval, int bufferSize) {
+        this.service = service;
+        this.bufferSize = Math.max(MAX_BATCH_SIZE, bufferSize);
+        long delay = Math.max(1, flushInterval);
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffer an item to be written. If the buffer is full, the oldest buffered item is discarded.
+     *
+     * @param dto the item to write
+     * @return <code>false</code> if the item was not buffered because the writer is closed
+     */
+    public boolean add(DynamoDBItem<?> dto) {
+        if (closed) {
+            return false;
+        }
+        BufferedItem item = dto.accept(toBufferedItem);
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            pending.add(item);
+            if (pending.size() + inFlight > bufferSize) {
+                pending.poll();
+                discardedSinceLog++;
+                droppedCount.incrementAndGet();
+            }
+            if (++addedSinceFlush < MAX_BATCH_SIZE) {
+                return true;
+            }
+        }
+        if (flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Write all buffered items and stop writing. Items which are still not written after a few attempts are
+     * discarded, as the client is closed afterwards.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flushJob.cancel(false);
+        try {
+            for (int attempt = 0; attempt < MAX_CLOSE_ATTEMPTS; attempt++) {
+                synchronized (writeLock) {
+                    retryAt = 0;
+                    flush();
+                    if (getQueueDepth() == 0) {
+                        return;
+                    }
+                }
+                Thread.sleep(BASE_RETRY_DELAY << attempt);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            logger.warn("{} items could not be written to DynamoDB and are discarded", pending.size());
+            droppedCount.addAndGet(pending.size());
+            pending.clear();
+        }
+    }
+
+    /**
+     * Returns the number of items which are buffered or being written
+     */
+    public synchronized int getQueueDepth() {
+        return pending.size() + inFlight;
+    }
+
+    /**
+     * Returns the number of items which have been written
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Returns the number of items which were discarded because the buffer was full, DynamoDB rejected them or they
+     * could not be written before the writer was closed
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the number of BatchWriteItem requests which were throttled or returned unprocessed items
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * Returns the number of times items which could not be written were scheduled to be written again
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    private void flush() {
+        synchronized (writeLock) {
+            flushRequested.set(false);
+            int discarded;
+            synchronized (this) {
+                addedSinceFlush = 0;
+                discarded = discardedSinceLog;
+                discardedSinceLog = 0;
+            }
+            if (discarded > 0) {
+                logger.warn("The DynamoDB write buffer is full, discarded the {} oldest items", discarded);
+            }
+            if (retryAt != 0 && System.nanoTime() - retryAt < 0) {
+                return;
+            }
+
+            long timerStart = System.currentTimeMillis();
+            long writtenBefore = writtenCount.get();
+            while (true) {
+                List<BufferedItem> batch = nextBatch();
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<BufferedItem> retry;
+                try {
+                    retry = write(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    requeue(batch);
+                    break;
+                }
+                if (!retry.isEmpty()) {
+                    requeue(retry);
+                    scheduleRetry(retry.size());
+                    break;
+                }
+                retryAttempt = 0;
+                retryAt = 0;
+            }
+            synchronized (this) {
+                inFlight = 0;
+            }
+            long written = writtenCount.get() - writtenBefore;
+            if (written > 0) {
+                logger.debug("Wrote {} items to DynamoDB in {} ms, {} items are buffered", written,
+                        System.currentTimeMillis() - timerStart, getQueueDepth());
+            }
+        }
+    }
+
+    private synchronized List<BufferedItem> nextBatch() {
+        List<BufferedItem> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        Set<String> keys = new HashSet<>();
+        Iterator<BufferedItem> items = pending.iterator();
+        while (items.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+            BufferedItem item = items.next();
+            // BatchWriteItem rejects requests containing the same key twice, later values are written with the next
+            // batch
+            if (keys.add(item.key)) {
+                batch.add(item);
+                items.remove();
+            }
+        }
+        inFlight = batch.size();
+        return batch;
+    }
+
+    private synchronized void requeue(List<BufferedItem> items) {
+        // the items were counted while they were in flight, so they fit into the buffer
+        for (int i = items.size() - 1; i >= 0; i--) {
+            pending.addFirst(items.get(i));
+        }
+        inFlight = 0;
+    }
+
+    private void scheduleRetry(int itemCount) {
+        retryAttempt++;
+        retryCount.incrementAndGet();
+        // "equal jitter": wait at least half of the exponential delay, so retries of several writers are spread out
+        long maxDelay = Math.min(MAX_RETRY_DELAY, BASE_RETRY_DELAY << Math.min(retryAttempt, 16));
+        long delay = maxDelay / 2 + ThreadLocalRandom.current().nextLong(maxDelay / 2 + 1);
+        retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        logger.debug("Retrying {} items in {} ms (attempt {})", itemCount, delay, retryAttempt);
+        if (!closed) {
+            scheduler.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write a batch of items
+     *
+     * @return the items which have to be written again
+     */
+    private List<BufferedItem> write(List<BufferedItem> batch) throws InterruptedException {
+        DynamoDbAsyncClient client = service.getLowLevelClient();
+        if (client == null) {
+            // the service is being reconfigured, the items are kept until the writer is closed
+            return batch;
+        }
+        Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+        for (BufferedItem item : batch) {
+            requestItems.computeIfAbsent(item.tableName, tableName -> new ArrayList<>())
+                    .add(WriteRequest.builder().putRequest(put -> put.item(item.attributes)).build());
+        }
+        try {
+            BatchWriteItemResponse response = client.batchWriteItem(
+                    req -> req.requestItems(requestItems).overrideConfiguration(service::overrideConfig)).get();
+            List<BufferedItem> unprocessed = new ArrayList<>();
+            response.unprocessedItems().forEach((tableName, requests) -> {
+                for (WriteRequest request : requests) {
+                    PutRequest put = request.putRequest();
+                    if (put != null) {
+                        batch.stream().filter(item -> item.isKeyOf(tableName, put.item())).findFirst()
+                                .ifPresent(unprocessed::add);
+                    }
+                }
+            });
+            writtenCount.addAndGet(batch.size() - unprocessed.size());
+            if (!unprocessed.isEmpty()) {
+                throttledCount.incrementAndGet();
+                logger.trace("BatchWriteItem: {} of {} items were not processed", unprocessed.size(), batch.size());
+            }
+            return unprocessed;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            if (cause instanceof ResourceNotFoundException) {
+                logger.trace("BatchWriteItem: Table was not present. Writing items one by one, creating the table");
+                int failed = putItemsCreatingTable(batch);
+                writtenCount.addAndGet(batch.size() - failed);
+                droppedCount.addAndGet(failed);
+                return List.of();
+            } else if (cause instanceof AwsServiceException && ((AwsServiceException) cause).isThrottlingException()) {
+                throttledCount.incrementAndGet();
+                logger.trace("BatchWriteItem: throttled, {} items are written again", batch.size());
+                return batch;
+            } else if (cause instanceof AwsServiceException && ((AwsServiceException) cause).statusCode() == 400) {
+                // the request is invalid, writing it again would fail again
+                logger.warn("BatchWriteItem: failed (final) with {} {}. Discarding {} items.",
+                        cause.getClass().getSimpleName(), cause.getMessage(), batch.size());
+                droppedCount.addAndGet(batch.size());
+                return List.of();
+            }
+            logger.warn("BatchWriteItem: failed with {} {}, {} items are buffered", cause.getClass().getSimpleName(),
+                    cause.getMessage(), getQueueDepth());
+            return batch;
+        }
+    }
+
+    /**
+     * Write the items one by one, creating the table
+     *
+     * @return the number of items which could not be written
+     */
+    private int putItemsCreatingTable(List<BufferedItem> batch) throws InterruptedException {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batch.size());
+        for (BufferedItem item : batch) {
+            futures.add(service.putItemAsync(item.dto));
+        }
+        int failed = 0;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // logged by TableCreatingPutItem
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    private static class BufferedItem {
+        private final DynamoDBItem<?> dto;
+        private final String tableName;
+        private final Map<String, AttributeValue> attributes;
+        private final String partitionKey;
+        private final Optional<String> sortKey;
+        private final String key;
+
+        <T extends DynamoDBItem<?>> BufferedItem(T dto, DynamoDbAsyncTable<T> table) {
+            TableSchema<T> schema = table.tableSchema();
+            TableMetadata metadata = schema.tableMetadata();
+            this.dto = dto;
+            this.tableName = table.tableName();
+            this.attributes = schema.itemToMap(dto, true);
+            this.partitionKey = metadata.primaryPartitionKey();
+            this.sortKey = metadata.primarySortKey();
+            this.key = keyOf(tableName, attributes);
+        }
+
+        boolean isKeyOf(String tableName, Map<String, AttributeValue> attributes) {
+            return key.equals(keyOf(tableName, attributes));
+        }
+
+        private String keyOf(String tableName, Map<String, AttributeValue> attributes) {
+            String sortValue = sortKey.map(attributes::get).map(AttributeValue::toString).orElse("");
+            return tableName + '/' + attributes.get(partitionKey) + '/' + sortValue;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Writes items with the {@link DynamoDBBatchWriter}. The table does not exist when the first batch is written, so it
+ * is created on the way.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class BatchWriterIntegrationTest extends BaseIntegrationTest {
+
+    public static final boolean LEGACY_MODE = false;
+    private static final String NUMBER_NAME = "batchNumber";
+    private static final String STRING_NAME = "batchString";
+    private static final int STATE_COUNT = 60;
+
+    private static @Nullable ZonedDateTime storeStart;
+    private static @Nullable DynamoDBBatchWriter writer;
+
+    @SuppressWarnings("null")
+    @BeforeAll
+    public static void populateData() {
+        NumberItem numberItem = new NumberItem(NUMBER_NAME);
+        StringItem stringItem = new StringItem(STRING_NAME);
+        ITEMS.put(NUMBER_NAME, numberItem);
+        ITEMS.put(STRING_NAME, stringItem);
+
+        storeStart = ZonedDateTime.now();
+        DynamoDBBatchWriter localWriter = writer = new DynamoDBBatchWriter(service, 100, 1000);
+        for (int i = 0; i < STATE_COUNT; i++) {
+            // distinct timestamps in ms accuracy
+            ZonedDateTime time = storeStart.plusNanos(i * 1_000_000L);
+            numberItem.setState(new DecimalType(i));
+            assertTrue(localWriter.add(AbstractDynamoDBItem.fromStateNew(numberItem, time, null)));
+            stringItem.setState(new StringType("value" + i));
+            assertTrue(localWriter.add(AbstractDynamoDBItem.fromStateNew(stringItem, time, null)));
+        }
+        // same key twice, the later value wins
+        ZonedDateTime time = storeStart.plusNanos(STATE_COUNT * 1_000_000L);
+        numberItem.setState(new DecimalType(-1));
+        assertTrue(localWriter.add(AbstractDynamoDBItem.fromStateNew(numberItem, time, null)));
+        numberItem.setState(new DecimalType(STATE_COUNT));
+        assertTrue(localWriter.add(AbstractDynamoDBItem.fromStateNew(numberItem, time, null)));
+        localWriter.close();
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testItemsAreNotAddedAfterClose() {
+        DynamoDBBatchWriter localWriter = writer;
+        assertNotNull(localWriter);
+        NumberItem numberItem = new NumberItem(NUMBER_NAME);
+        numberItem.setState(new DecimalType(-1));
+        assertFalse(localWriter.add(AbstractDynamoDBItem.fromStateNew(numberItem, ZonedDateTime.now(), null)));
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testAllItemsAreWritten() {
+        DynamoDBBatchWriter localWriter = writer;
+        assertNotNull(localWriter);
+        // both values with the same key are written, one after the other
+        assertEquals(2 * STATE_COUNT + 2, localWriter.getWrittenCount());
+        assertEquals(0, localWriter.getDroppedCount());
+        assertEquals(0, localWriter.getQueueDepth());
+    }
+
+    @Test
+    public void testNumberItemStates() {
+        waitForAssert(() -> {
+            List<HistoricItem> items = query(NUMBER_NAME);
+            assertEquals(STATE_COUNT + 1, items.size());
+            for (int i = 0; i <= STATE_COUNT; i++) {
+                assertEquals(new DecimalType(i), items.get(i).getState());
+            }
+        });
+    }
+
+    @Test
+    public void testStringItemStates() {
+        waitForAssert(() -> {
+            List<HistoricItem> items = query(STRING_NAME);
+            assertEquals(STATE_COUNT, items.size());
+            for (int i = 0; i < STATE_COUNT; i++) {
+                assertEquals(new StringType("value" + i), items.get(i).getState());
+            }
+        });
+    }
+
+    @SuppressWarnings("null")
+    private List<HistoricItem> query(String itemName) {
+        FilterCriteria criteria = new FilterCriteria();
+        criteria.setItemName(itemName);
+        criteria.setBeginDate(storeStart);
+        criteria.setOrdering(Ordering.ASCENDING);
+        List<HistoricItem> items = new ArrayList<>();
+        BaseIntegrationTest.service.query(criteria).forEach(items::add);
+        return items;
+    }
+}
@@ -0,0 +1,261 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.test.java.JavaTest;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Tests the {@link DynamoDBBatchWriter} with a client which records the BatchWriteItem requests instead of sending
+ * them to DynamoDB.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class DynamoDBBatchWriterTest extends JavaTest {
+
+    private static final long ONE_HOUR = 3600000;
+    private static final String TABLE_NAME = "openhab-numbers";
+    private static final ZonedDateTime START = ZonedDateTime.of(2022, 3, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+
+    private final DynamoDBPersistenceService service = mock(DynamoDBPersistenceService.class);
+    private final DynamoDbAsyncClient client = mock(DynamoDbAsyncClient.class);
+
+    // the values of every BatchWriteItem request
+    private final List<List<Integer>> requests = Collections.synchronizedList(new ArrayList<>());
+    // answers the requests, succeeds by default
+    private volatile Function<BatchWriteItemRequest, CompletableFuture<BatchWriteItemResponse>> responder =
+            request -> success();
+    private volatile boolean clientAvailable = true;
+
+    private @Nullable DynamoDBBatchWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        DynamoDbAsyncTable<DynamoDBBigDecimalItem> table = mock(DynamoDbAsyncTable.class);
+        when(table.tableName()).thenReturn(TABLE_NAME);
+        when(table.tableSchema()).thenReturn(DynamoDBBigDecimalItem.TABLE_SCHEMA_NEW);
+        when(service.getTable(DynamoDBBigDecimalItem.class)).thenReturn(table);
+        when(service.getLowLevelClient()).thenAnswer(invocation -> clientAvailable ? client : null);
+        when(client.batchWriteItem(any(Consumer.class))).thenAnswer(invocation -> {
+            BatchWriteItemRequest.Builder builder = BatchWriteItemRequest.builder();
+            invocation.<Consumer<BatchWriteItemRequest.Builder>> getArgument(0).accept(builder);
+            BatchWriteItemRequest request = builder.build();
+            requests.add(values(request.requestItems().get(TABLE_NAME)));
+            return responder.apply(request);
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        DynamoDBBatchWriter writer = this.writer;
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private DynamoDBBatchWriter createWriter(long flushInterval, int bufferSize) {
+        DynamoDBBatchWriter writer = new DynamoDBBatchWriter(service, flushInterval, bufferSize);
+        this.writer = writer;
+        return writer;
+    }
+
+    private static DynamoDBItem<?> item(int value) {
+        return new DynamoDBBigDecimalItem("item", BigDecimal.valueOf(value), START.plusSeconds(value), null);
+    }
+
+    private static List<Integer> values(List<WriteRequest> writeRequests) {
+        return writeRequests.stream()
+                .map(request -> Integer.valueOf(
+                        request.putRequest().item().get(DynamoDBItem.ATTRIBUTE_NAME_ITEMSTATE_NUMBER).n()))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> values(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int value = from; value <= to; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    private List<Integer> writtenValues() {
+        synchronized (requests) {
+            return requests.stream().flatMap(List::stream).collect(Collectors.toList());
+        }
+    }
+
+    private static CompletableFuture<BatchWriteItemResponse> success() {
+        return CompletableFuture.completedFuture(BatchWriteItemResponse.builder().build());
+    }
+
+    private static CompletableFuture<BatchWriteItemResponse> failure(int statusCode, String errorCode) {
+        return CompletableFuture.failedFuture(DynamoDbException.builder().statusCode(statusCode).message(errorCode)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(errorCode).build()).build());
+    }
+
+    @Test
+    public void itemsAreWrittenInBatchesOf25() {
+        DynamoDBBatchWriter writer = createWriter(ONE_HOUR, 1000);
+        for (int i = 0; i < 30; i++) {
+            assertTrue(writer.add(item(i)));
+        }
+        waitForAssert(() -> assertEquals(List.of(values(0, 24)), requests));
+
+        writer.close();
+
+        assertEquals(List.of(values(0, 24), values(25, 29)), requests);
+        assertEquals(30, writer.getWrittenCount());
+        assertEquals(0, writer.getQueueDepth());
+        assertFalse(writer.add(item(30)));
+    }
+
+    @Test
+    public void itemsAreWrittenAfterTheFlushInterval() {
+        DynamoDBBatchWriter writer = createWriter(50, 1000);
+        writer.add(item(1));
+
+        waitForAssert(() -> assertEquals(List.of(1), writtenValues()));
+        assertEquals(1, writer.getWrittenCount());
+    }
+
+    @Test
+    public void unprocessedItemsAreWrittenAgain() {
+        responder = request -> {
+            List<WriteRequest> writeRequests = request.requestItems().get(TABLE_NAME);
+            Map<String, List<WriteRequest>> unprocessed = requests.size() == 1
+                    ? Map.of(TABLE_NAME, writeRequests.subList(5, writeRequests.size()))
+                    : Map.of();
+            return CompletableFuture
+                    .completedFuture(BatchWriteItemResponse.builder().unprocessedItems(unprocessed).build());
+        };
+        DynamoDBBatchWriter writer = createWriter(ONE_HOUR, 1000);
+        for (int i = 0; i < 10; i++) {
+            writer.add(item(i));
+        }
+
+        writer.close();
+
+        assertEquals(List.of(values(0, 9), values(5, 9)), requests);
+        assertEquals(10, writer.getWrittenCount());
+        assertEquals(1, writer.getThrottledCount());
+        assertEquals(1, writer.getRetryCount());
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    public void throttledRequestIsWrittenAgain() {
+        responder = request -> requests.size() <= 2 ? failure(429, "ThrottlingException") : success();
+        DynamoDBBatchWriter writer = createWriter(ONE_HOUR, 1000);
+        for (int i = 0; i < 3; i++) {
+            writer.add(item(i));
+        }
+
+        writer.close();
+
+        assertEquals(List.of(values(0, 2), values(0, 2), values(0, 2)), requests);
+        assertEquals(3, writer.getWrittenCount());
+        assertEquals(2, writer.getThrottledCount());
+        assertEquals(2, writer.getRetryCount());
+    }
+
+    @Test
+    public void invalidRequestIsDiscarded() {
+        responder = request -> failure(400, "ValidationException");
+        DynamoDBBatchWriter writer = createWriter(ONE_HOUR, 1000);
+        writer.add(item(1));
+
+        writer.close();
+
+        assertEquals(1, requests.size());
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(1, writer.getDroppedCount());
+        assertEquals(0, writer.getRetryCount());
+    }
+
+    @Test
+    public void bufferSizeIncludesTheItemsBeingWritten() {
+        CompletableFuture<BatchWriteItemResponse> response = new CompletableFuture<>();
+        responder = request -> requests.size() == 1 ? response : success();
+        DynamoDBBatchWriter writer = createWriter(ONE_HOUR, DynamoDBBatchWriter.MAX_BATCH_SIZE);
+        for (int i = 0; i < DynamoDBBatchWriter.MAX_BATCH_SIZE; i++) {
+            writer.add(item(i));
+        }
+        // the full batch is being written
+        waitForAssert(() -> assertEquals(1, requests.size()));
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(writer.add(item(100 + i)));
+        }
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getQueueDepth());
+        assertEquals(10, writer.getDroppedCount());
+
+        response.complete(BatchWriteItemResponse.builder().build());
+        writer.close();
+
+        assertEquals(List.of(values(0, 24)), requests);
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getWrittenCount());
+    }
+
+    @Test
+    public void oldestItemsAreDiscardedWhenTheBufferIsFull() {
+        // the items can't be written while the client is not available, they are kept and written again later
+        clientAvailable = false;
+        DynamoDBBatchWriter writer = createWriter(ONE_HOUR, DynamoDBBatchWriter.MAX_BATCH_SIZE);
+        for (int i = 0; i < DynamoDBBatchWriter.MAX_BATCH_SIZE; i++) {
+            writer.add(item(i));
+        }
+        waitForAssert(() -> assertTrue(writer.getRetryCount() > 0));
+
+        for (int i = 0; i < 5; i++) {
+            writer.add(item(DynamoDBBatchWriter.MAX_BATCH_SIZE + i));
+        }
+        assertEquals(5, writer.getDroppedCount());
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getQueueDepth());
+
+        clientAvailable = true;
+        writer.close();
+
+        assertEquals(values(5, 29), writtenValues());
+        assertEquals(DynamoDBBatchWriter.MAX_BATCH_SIZE, writer.getWrittenCount());
+    }
+}
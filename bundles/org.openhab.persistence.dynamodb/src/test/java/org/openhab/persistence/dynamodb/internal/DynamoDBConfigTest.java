@@ -246,4 +246,31 @@ public class DynamoDBConfigTest {
         assertEquals(Optional.empty(), fromConfig.getRetryPolicy().map(RetryPolicy::retryMode));
         assertEquals(ExpectedTableSchema.MAYBE_LEGACY, fromConfig.getTableRevision());
     }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testBatchWriteDefaults() throws Exception {
+        DynamoDBConfig fromConfig = DynamoDBConfig
+                .fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1", "secretKey", "secret1"));
+        assertEquals(0, fromConfig.getFlushInterval());
+        assertEquals(1000, fromConfig.getBufferSize());
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testBatchWriteSettings() throws Exception {
+        DynamoDBConfig fromConfig = DynamoDBConfig.fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1",
+                "secretKey", "secret1", "table", "mytable", "flushInterval", "500", "bufferSize", "200"));
+        assertEquals(500, fromConfig.getFlushInterval());
+        assertEquals(200, fromConfig.getBufferSize());
+        assertEquals(ExpectedTableSchema.NEW, fromConfig.getTableRevision());
+    }
+
+    @Test
+    public void testInvalidBatchWriteSettings() throws Exception {
+        assertNull(DynamoDBConfig.fromConfig(
+                mapFrom("region", "eu-west-1", "accessKey", "access1", "secretKey", "secret1", "flushInterval", "-1")));
+        assertNull(DynamoDBConfig.fromConfig(
+                mapFrom("region", "eu-west-1", "accessKey", "access1", "secretKey", "secret1", "bufferSize", "0")));
+    }
 }
@@ -12,8 +12,11 @@
  */
 package org.openhab.persistence.influxdb;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -23,6 +26,7 @@ import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemRegistry;
@@ -34,12 +38,14 @@ import org.openhab.core.persistence.PersistenceService;
 import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
+import org.openhab.persistence.influxdb.internal.AggregationFunction;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItem;
 import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils;
+import org.openhab.persistence.influxdb.internal.InfluxDBWritePipeline;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.InfluxRow;
 import org.openhab.persistence.influxdb.internal.ItemToStorePointCreator;
@@ -94,6 +100,7 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     // Relax rules because can only be null if component is not active
     private @NonNullByDefault({}) ItemToStorePointCreator itemToStorePointCreator;
     private @NonNullByDefault({}) InfluxDBRepository influxDBRepository;
+    private @NonNullByDefault({}) InfluxDBWritePipeline writePipeline;
 
     @Activate
     public InfluxDBPersistenceService(final @Reference ItemRegistry itemRegistry,
@@ -111,8 +118,12 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 
         if (loadConfiguration(config)) {
             itemToStorePointCreator = new ItemToStorePointCreator(configuration, metadataRegistry);
+            itemRegistry.addRegistryChangeListener(itemToStorePointCreator.getItemRegistryChangeListener());
+            metadataRegistry.addRegistryChangeListener(itemToStorePointCreator.getMetadataRegistryChangeListener());
             influxDBRepository = createInfluxDBRepository();
             influxDBRepository.connect();
+            writePipeline = new InfluxDBWritePipeline(influxDBRepository, configuration.getWriteBatchSize(),
+                    configuration.getWriteInterval(), configuration.getWriteBufferSize(), getWriteBufferFile());
         } else {
             logger.error("Cannot load configuration, persistence service wont work");
         }
@@ -125,17 +136,28 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         return RepositoryFactory.createRepository(configuration);
     }
 
+    private @Nullable Path getWriteBufferFile() {
+        String writeBufferFile = configuration.getWriteBufferFile();
+        return writeBufferFile.isBlank() ? null : Path.of(OpenHAB.getUserDataFolder()).resolve(writeBufferFile.trim());
+    }
+
     /**
      * Disconnect from database when service is deactivated
      */
     @Deactivate
     public void deactivate() {
         logger.debug("InfluxDB persistence service deactivated");
+        if (writePipeline != null) {
+            writePipeline.close();
+            writePipeline = null;
+        }
         if (influxDBRepository != null) {
             influxDBRepository.disconnect();
             influxDBRepository = null;
         }
         if (itemToStorePointCreator != null) {
+            itemRegistry.removeRegistryChangeListener(itemToStorePointCreator.getItemRegistryChangeListener());
+            metadataRegistry.removeRegistryChangeListener(itemToStorePointCreator.getMetadataRegistryChangeListener());
             itemToStorePointCreator = null;
         }
     }
@@ -206,7 +228,9 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             InfluxPoint point = itemToStorePointCreator.convert(item, alias);
             if (point != null) {
                 logger.trace("Storing item {} in InfluxDB point {}", item, point);
-                influxDBRepository.write(point);
+                if (!writePipeline.add(point)) {
+                    logger.debug("Point {} of item {} has been discarded, the write queue is full", point, item);
+                }
             } else {
                 logger.trace("Ignoring item {} as is cannot be converted to a InfluxDB point", item);
             }
@@ -228,14 +252,101 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             String query = RepositoryFactory.createQueryCreator(configuration, metadataRegistry).createQuery(filter,
                     configuration.getRetentionPolicy());
             logger.trace("Query {}", query);
-            List<InfluxRow> results = influxDBRepository.query(query);
-            return results.stream().map(this::mapRow2HistoricItem).collect(Collectors.toList());
+            List<HistoricItem> results = new ArrayList<>();
+            influxDBRepository.query(query, row -> results.add(mapRow2HistoricItem(row)));
+            return results;
         } else {
             logger.debug("query ignored, InfluxDB is not yet connected");
             return Collections.emptyList();
         }
     }
 
+    /**
+     * Queries the {@link PersistenceService} for data with a given filter criteria, downsampled by the database.
+     *
+     * The time range of the filter is divided into windows of equal length, so that at most <code>maxPoints</code>
+     * windows contain values, and the values of each window are aggregated into one value. Paging settings of the
+     * filter are ignored.
+     *
+     * @param filter the filter to apply to the query, it must contain an item name
+     * @param maxPoints the maximum number of returned values
+     * @param function the aggregation function, values of non-numeric items are always aggregated by
+     *            {@link AggregationFunction#LAST}
+     * @return a time series of items
+     */
+    public Iterable<HistoricItem> query(FilterCriteria filter, int maxPoints, AggregationFunction function) {
+        String itemName = filter.getItemName();
+        if (itemName == null) {
+            logger.warn("Downsampled queries need an item name, query ignored");
+            return Collections.emptyList();
+        }
+        if (influxDBRepository == null || !influxDBRepository.isConnected()) {
+            logger.debug("query ignored, InfluxDB is not yet connected");
+            return Collections.emptyList();
+        }
+
+        FilterCriteriaQueryCreator queryCreator = RepositoryFactory.createQueryCreator(configuration,
+                metadataRegistry);
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (beginDate == null) {
+            beginDate = queryFirstTime(queryCreator, filter);
+            if (beginDate == null) {
+                return Collections.emptyList();
+            }
+        }
+        ZonedDateTime endDate = filter.getEndDate() != null ? filter.getEndDate() : ZonedDateTime.now();
+        long range = endDate.toInstant().toEpochMilli() - beginDate.toInstant().toEpochMilli();
+        if (range < 0) {
+            return Collections.emptyList();
+        }
+        // windows are aligned to the epoch, they have to be longer than range / maxPoints to overlap at most maxPoints
+        Duration window = Duration.ofMillis(range / Math.max(1, maxPoints) + 1);
+
+        FilterCriteria aggregationFilter = copyOf(filter);
+        aggregationFilter.setBeginDate(beginDate);
+        aggregationFilter.setEndDate(endDate);
+        Item item = itemRegistry.get(itemName);
+        AggregationFunction aggregation = item != null && InfluxDBStateConvertUtils.isAggregatable(item) ? function
+                : AggregationFunction.LAST;
+        String query = queryCreator.createAggregationQuery(aggregationFilter, configuration.getRetentionPolicy(),
+                aggregation, window);
+        logger.trace("Query {}", query);
+
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> results = new ArrayList<>();
+        influxDBRepository.query(query, row -> results.add(mapRow2HistoricItem(row)));
+        logger.debug("Downsampled query for item '{}' returned {} points in {} ms", itemName, results.size(),
+                System.currentTimeMillis() - timerStart);
+        return results;
+    }
+
+    private @Nullable ZonedDateTime queryFirstTime(FilterCriteriaQueryCreator queryCreator, FilterCriteria filter) {
+        FilterCriteria firstFilter = copyOf(filter);
+        firstFilter.setOrdering(FilterCriteria.Ordering.ASCENDING);
+        firstFilter.setPageNumber(0);
+        firstFilter.setPageSize(1);
+        String query = queryCreator.createQuery(firstFilter, configuration.getRetentionPolicy());
+        logger.trace("Query {}", query);
+        List<InfluxRow> rows = influxDBRepository.query(query);
+        return rows.isEmpty() ? null : ZonedDateTime.ofInstant(rows.get(0).getTime(), ZoneId.systemDefault());
+    }
+
+    private FilterCriteria copyOf(FilterCriteria filter) {
+        FilterCriteria copy = new FilterCriteria();
+        String itemName = filter.getItemName();
+        if (itemName != null) {
+            copy.setItemName(itemName);
+        }
+        copy.setBeginDate(filter.getBeginDate());
+        copy.setEndDate(filter.getEndDate());
+        copy.setOrdering(filter.getOrdering());
+        copy.setOperator(filter.getOperator());
+        copy.setState(filter.getState());
+        copy.setPageNumber(filter.getPageNumber());
+        copy.setPageSize(filter.getPageSize());
+        return copy;
+    }
+
     private HistoricItem mapRow2HistoricItem(InfluxRow row) {
         State state = InfluxDBStateConvertUtils.objectToState(row.getValue(), row.getItemName(), itemRegistry);
         return new InfluxDBHistoricItem(row.getItemName(), state,
@@ -0,0 +1,43 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The function a downsampled query applies to the value field of every window, with <code>GROUP BY time()</code> in
+ * InfluxQL and <code>aggregateWindow()</code> in Flux. Both languages use the same function names, which differ from
+ * the constant names for {@link #AVG}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public enum AggregationFunction {
+    AVG("mean"),
+    MIN("min"),
+    MAX("max"),
+    LAST("last");
+
+    private final String functionName;
+
+    AggregationFunction(String functionName) {
+        this.functionName = functionName;
+    }
+
+    /**
+     * Get the name of the function in InfluxQL and Flux
+     */
+    public String getFunctionName() {
+        return functionName;
+    }
+}
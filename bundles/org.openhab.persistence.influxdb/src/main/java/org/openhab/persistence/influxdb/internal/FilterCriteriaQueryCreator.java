@@ -12,6 +12,8 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.time.Duration;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.persistence.FilterCriteria;
 
@@ -31,6 +33,19 @@ public interface FilterCriteriaQueryCreator {
      */
     String createQuery(FilterCriteria criteria, String retentionPolicy);
 
+    /**
+     * Create query from {@link FilterCriteria} which aggregates the values of the item in windows of equal length.
+     * The criteria needs an item name, a begin and an end date. Paging settings of the criteria are ignored.
+     *
+     * @param criteria Criteria to create query from
+     * @param retentionPolicy Name of the retentionPolicy/bucket to use in query
+     * @param function Function used to aggregate the values of a window
+     * @param window Length of a window, windows are aligned to the epoch like the database does by default
+     * @return Created query as an String
+     */
+    String createAggregationQuery(FilterCriteria criteria, String retentionPolicy, AggregationFunction function,
+            Duration window);
+
     default String getOperationSymbol(FilterCriteria.Operator operator, InfluxDBVersion version) {
         switch (operator) {
             case EQ:
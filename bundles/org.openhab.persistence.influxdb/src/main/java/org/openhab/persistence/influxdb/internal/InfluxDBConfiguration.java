@@ -40,6 +40,10 @@ public class InfluxDBConfiguration {
     public static final String ADD_CATEGORY_TAG_PARAM = "addCategoryTag";
     public static final String ADD_LABEL_TAG_PARAM = "addLabelTag";
     public static final String ADD_TYPE_TAG_PARAM = "addTypeTag";
+    public static final String WRITE_BATCH_SIZE_PARAM = "writeBatchSize";
+    public static final String WRITE_INTERVAL_PARAM = "writeInterval";
+    public static final String WRITE_BUFFER_SIZE_PARAM = "writeBufferSize";
+    public static final String WRITE_BUFFER_FILE_PARAM = "writeBufferFile";
     public static InfluxDBConfiguration NO_CONFIGURATION = new InfluxDBConfiguration(Collections.emptyMap());
     private final Logger logger = LoggerFactory.getLogger(InfluxDBConfiguration.class);
     private final String url;
@@ -55,6 +59,11 @@ public class InfluxDBConfiguration {
     private final boolean addTypeTag;
     private final boolean addLabelTag;
 
+    private final int writeBatchSize;
+    private final int writeInterval;
+    private final int writeBufferSize;
+    private final String writeBufferFile;
+
     public InfluxDBConfiguration(Map<String, Object> config) {
         url = (String) config.getOrDefault(URL_PARAM, "http://127.0.0.1:8086");
         user = (String) config.getOrDefault(USER_PARAM, "openhab");
@@ -68,6 +77,11 @@ public class InfluxDBConfiguration {
         addCategoryTag = getConfigBooleanValue(config, ADD_CATEGORY_TAG_PARAM, false);
         addLabelTag = getConfigBooleanValue(config, ADD_LABEL_TAG_PARAM, false);
         addTypeTag = getConfigBooleanValue(config, ADD_TYPE_TAG_PARAM, false);
+
+        writeBatchSize = getConfigIntValue(config, WRITE_BATCH_SIZE_PARAM, 1000);
+        writeInterval = getConfigIntValue(config, WRITE_INTERVAL_PARAM, 1000);
+        writeBufferSize = getConfigIntValue(config, WRITE_BUFFER_SIZE_PARAM, 100000);
+        writeBufferFile = (String) config.getOrDefault(WRITE_BUFFER_FILE_PARAM, "");
     }
 
     private static boolean getConfigBooleanValue(Map<String, Object> config, String key, boolean defaultValue) {
@@ -81,6 +95,20 @@ public class InfluxDBConfiguration {
         }
     }
 
+    private int getConfigIntValue(Map<String, Object> config, String key, int defaultValue) {
+        Object object = config.get(key);
+        if (object instanceof Number) {
+            return ((Number) object).intValue();
+        } else if (object instanceof String && !((String) object).isBlank()) {
+            try {
+                return Integer.parseInt(((String) object).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value {} for {}, using {}", object, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     private InfluxDBVersion parseInfluxVersion(@Nullable String value) {
         try {
             return Optional.ofNullable(value).map(InfluxDBVersion::valueOf).orElse(InfluxDBVersion.UNKNOWN);
@@ -157,6 +185,22 @@ public class InfluxDBConfiguration {
         return addLabelTag;
     }
 
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public int getWriteInterval() {
+        return writeInterval;
+    }
+
+    public int getWriteBufferSize() {
+        return writeBufferSize;
+    }
+
+    public String getWriteBufferFile() {
+        return writeBufferFile;
+    }
+
     public String getUser() {
         return user;
     }
@@ -175,7 +219,9 @@ public class InfluxDBConfiguration {
                 + password.length() + " chars" + '\'' + ", token='" + token.length() + " chars" + '\''
                 + ", databaseName='" + databaseName + '\'' + ", retentionPolicy='" + retentionPolicy + '\''
                 + ", version=" + version + ", replaceUnderscore=" + replaceUnderscore + ", addCategoryTag="
-                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + '}';
+                + addCategoryTag + ", addTypeTag=" + addTypeTag + ", addLabelTag=" + addLabelTag + ", writeBatchSize="
+                + writeBatchSize + ", writeInterval=" + writeInterval + ", writeBufferSize=" + writeBufferSize
+                + ", writeBufferFile='" + writeBufferFile + '\'' + '}';
         return sb;
     }
 
@@ -12,8 +12,10 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 
@@ -63,12 +65,38 @@ public interface InfluxDBRepository {
      * @param query Query
      * @return Query results
      */
-    List<InfluxRow> query(String query);
+    default List<InfluxRow> query(String query) {
+        List<InfluxRow> rows = new ArrayList<>();
+        query(query, rows::add);
+        return rows;
+    }
 
     /**
-     * Write point to database
+     * Executes query and passes each row of the result to the consumer as soon as it is parsed, so the result
+     * doesn't need to be collected in a list first
      *
-     * @param influxPoint Point to write
+     * @param query Query
+     * @param consumer Consumer for the rows of the result, called in the order of the result
+     */
+    void query(String query, Consumer<InfluxRow> consumer);
+
+    /**
+     * Write points to database with one request
+     *
+     * @param lines Points to write in line protocol with millisecond precision, see {@link InfluxLineProtocol}
+     * @return The result of the request
+     */
+    WriteResult write(List<String> lines);
+
+    /**
+     * Result of writing points to the database
      */
-    void write(InfluxPoint influxPoint);
+    enum WriteResult {
+        /** The points have been written */
+        WRITTEN,
+        /** The points could not be written, e.g. because the server is not reachable, but can be written later */
+        FAILED,
+        /** The server rejected the points, e.g. because of a field type conflict, and will reject them again */
+        REJECTED
+    }
 }
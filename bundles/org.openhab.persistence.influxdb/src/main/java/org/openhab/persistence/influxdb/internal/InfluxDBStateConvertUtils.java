@@ -142,6 +142,21 @@ public class InfluxDBStateConvertUtils {
         }
     }
 
+    /**
+     * Checks whether the mean, minimum and maximum of the values of an item can be converted back into a state of the
+     * item. Switch and contact items are written as 0 and 1 by {@link #stateToObject}, but their mean is not a valid
+     * state, and color items are written as strings.
+     *
+     * @param item the item, or a group item whose base item is checked
+     * @return <code>true</code> for number, dimmer and rollershutter items
+     */
+    public static boolean isAggregatable(Item item) {
+        @Nullable
+        Item baseItem = item instanceof GroupItem ? ((GroupItem) item).getBaseItem() : item;
+        return !(baseItem instanceof ColorItem) && (baseItem instanceof NumberItem || baseItem instanceof DimmerItem
+                || baseItem instanceof RollershutterItem);
+    }
+
     private static boolean toBoolean(@Nullable Object object) {
         if (object instanceof Boolean) {
             return (Boolean) object;
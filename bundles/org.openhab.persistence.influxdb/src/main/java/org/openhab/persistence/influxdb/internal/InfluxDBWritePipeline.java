@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.persistence.influxdb.internal.InfluxDBRepository.WriteResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues points and writes them in the background as line protocol batches to the {@link InfluxDBRepository}, so
+ * storing an item never waits for the database.
+ *
+ * The queue is written as soon as <code>batchSize</code> points are queued, but at the latest after
+ * <code>flushInterval</code> milliseconds. Points which could not be written are kept in a buffer of at most
+ * <code>bufferSize</code> points and written again with an increasing delay. If the buffer is full, the oldest points
+ * are discarded. If a buffer file is configured, points which are still buffered when the pipeline is closed are saved
+ * to that file and written after the next start.
+ *
+ * If the server rejects a batch, e.g. because a point has a field type conflict, the batch is split to find the
+ * rejected points. These are discarded, so they don't block the points written after them.
+ *
+ * The pipeline counts written, rejected and dropped points and measures the duration of its flushes, so the state of
+ * the pipeline can be read while it is running.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWritePipeline {
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBWritePipeline.class);
+
+    private final InfluxDBRepository repository;
+    private final int batchSize;
+    private final int bufferSize;
+    private final long flushInterval;
+    private final @Nullable Path bufferFile;
+
+    private final BlockingQueue<String> queue;
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("influxdb");
+    private final ScheduledFuture<?> flushJob;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed = false;
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile int pendingCount = 0;
+    private volatile long lastFlushDuration = 0;
+    private volatile long maxFlushDuration = 0;
+
+    // only accessed by flush() and close()
+    private final Deque<String> pending = new ArrayDeque<>();
+    private long retryDelay = 0;
+    private long retryAt = 0;
+
+    /**
+     * Create a new pipeline and schedule its writer
+     *
+     * @param repository the repository the points are written to
+     * @param batchSize maximum number of points written at once
+     * @param flushInterval maximum time in milliseconds a point is queued before it is written
+     * @param bufferSize maximum number of points which are queued or waiting to be written again
+     * @param bufferFile file where buffered points are saved on close, or <code>null</code> to discard them
+     */
+    public InfluxDBWritePipeline(InfluxDBRepository repository, int batchSize, long flushInterval, int bufferSize,
+            @Nullable Path bufferFile) {
+        this.repository = repository;
+        this.batchSize = Math.max(1, batchSize);
+        this.bufferSize = Math.max(this.batchSize, bufferSize);
+        this.flushInterval = Math.max(1, flushInterval);
+        this.bufferFile = bufferFile;
+        this.queue = new ArrayBlockingQueue<>(this.bufferSize);
+        loadBufferFile();
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, this.flushInterval, this.flushInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a point to be written
+     *
+     * @param point the point to write
+     * @return <code>false</code> if the point was discarded because it has no value or the queue is full
+     */
+    public boolean add(InfluxPoint point) {
+        String line = InfluxLineProtocol.toLine(point);
+        if (line == null) {
+            logger.trace("Ignoring point {} as it has no value which can be written", point);
+            return false;
+        }
+        if (closed || !queue.offer(line)) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Write all queued points and save the points which could not be written to the buffer file
+     */
+    public synchronized void close() {
+        closed = true;
+        flushJob.cancel(false);
+        // don't wait for the retry delay, this is the last chance to write the points
+        retryAt = 0;
+        flush();
+        if (!pending.isEmpty()) {
+            saveBufferFile();
+            pending.clear();
+            pendingCount = 0;
+        }
+    }
+
+    /**
+     * Get the number of points which are queued or buffered to be written again
+     */
+    public int getQueueDepth() {
+        return queue.size() + pendingCount;
+    }
+
+    /**
+     * Get the number of points which were written
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Get the number of points which were discarded because InfluxDB rejected them
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Get the number of points which were discarded because the queue or the buffer was full, or because they could
+     * not be saved when the pipeline was closed
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Get the duration of the last flush which wrote points, in milliseconds
+     */
+    public long getLastFlushDuration() {
+        return lastFlushDuration;
+    }
+
+    /**
+     * Get the longest duration of a flush which wrote points, in milliseconds
+     */
+    public long getMaxFlushDuration() {
+        return maxFlushDuration;
+    }
+
+    private synchronized void flush() {
+        flushRequested.set(false);
+        long timerStart = System.currentTimeMillis();
+        List<String> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        for (String line : drained) {
+            if (pending.size() >= bufferSize) {
+                pending.poll();
+                droppedCount.incrementAndGet();
+            }
+            pending.add(line);
+        }
+        pendingCount = pending.size();
+        if (pending.isEmpty() || timerStart < retryAt) {
+            return;
+        }
+
+        long writtenBefore = writtenCount.get();
+        List<String> batch = new ArrayList<>(batchSize);
+        while (!pending.isEmpty()) {
+            Iterator<String> lines = pending.iterator();
+            while (lines.hasNext() && batch.size() < batchSize) {
+                batch.add(lines.next());
+            }
+            int done = write(batch);
+            for (int i = 0; i < done; i++) {
+                pending.poll();
+            }
+            pendingCount = pending.size();
+            if (done < batch.size()) {
+                retryDelay = Math.min(MAX_RETRY_DELAY, Math.max(flushInterval, retryDelay * 2));
+                retryAt = System.currentTimeMillis() + retryDelay;
+                logger.warn("Writing points to InfluxDB failed, {} points are buffered, retrying in {} ms",
+                        pending.size(), retryDelay);
+                break;
+            }
+            batch.clear();
+        }
+        if (pending.isEmpty()) {
+            retryDelay = 0;
+            retryAt = 0;
+        }
+        long written = writtenCount.get() - writtenBefore;
+        if (written > 0) {
+            long duration = System.currentTimeMillis() - timerStart;
+            lastFlushDuration = duration;
+            maxFlushDuration = Math.max(maxFlushDuration, duration);
+            logger.debug("Wrote {} points to InfluxDB in {} ms, buffered={}, written={}, rejected={}, dropped={}",
+                    written, duration, getQueueDepth(), writtenCount.get(), rejectedCount.get(), droppedCount.get());
+        }
+    }
+
+    /**
+     * Writes a batch. A rejected batch is split in halves until the rejected points are found, which are discarded.
+     *
+     * @return the number of points from the start of the batch which have been written or discarded, less than the
+     *         size of the batch if writing failed and has to be retried
+     */
+    private int write(List<String> batch) {
+        WriteResult result;
+        try {
+            result = repository.write(batch);
+        } catch (RuntimeException e) {
+            logger.debug("Writing points to InfluxDB failed: {}", e.getMessage());
+            result = WriteResult.FAILED;
+        }
+        switch (result) {
+            case WRITTEN:
+                writtenCount.addAndGet(batch.size());
+                return batch.size();
+            case REJECTED:
+                if (batch.size() == 1) {
+                    rejectedCount.incrementAndGet();
+                    logger.warn("InfluxDB rejected point '{}', discarding it", batch.get(0));
+                    return 1;
+                }
+                int half = batch.size() / 2;
+                int done = write(batch.subList(0, half));
+                return done < half ? done : half + write(batch.subList(half, batch.size()));
+            default:
+                return 0;
+        }
+    }
+
+    private void loadBufferFile() {
+        Path file = bufferFile;
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            int skipped = Math.max(0, lines.size() - bufferSize);
+            lines.stream().skip(skipped).filter(line -> !line.isBlank()).forEach(pending::add);
+            pendingCount = pending.size();
+            droppedCount.addAndGet(skipped);
+            Files.delete(file);
+            logger.info("Loaded {} buffered points from {}", pending.size(), file);
+        } catch (IOException e) {
+            logger.warn("Couldn't load buffered points from {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void saveBufferFile() {
+        Path file = bufferFile;
+        if (file == null) {
+            droppedCount.addAndGet(pending.size());
+            logger.warn("{} points could not be written to InfluxDB and are discarded", pending.size());
+            return;
+        }
+        try {
+            Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(file, pending, StandardCharsets.UTF_8);
+            logger.info("Saved {} points which could not be written to InfluxDB to {}", pending.size(), file);
+        } catch (IOException e) {
+            droppedCount.addAndGet(pending.size());
+            logger.warn("Couldn't save {} buffered points to {}: {}", pending.size(), file, e.getMessage());
+        }
+    }
+}
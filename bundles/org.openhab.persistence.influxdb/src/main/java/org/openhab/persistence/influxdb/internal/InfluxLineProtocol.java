@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.FIELD_VALUE_NAME;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Converts {@link InfluxPoint}s to the InfluxDB line protocol, which is understood by InfluxDB 1.X and 2.X. Values are
+ * written like the InfluxDB client libraries do: floating point numbers as floats, other numbers as integers.
+ *
+ * Times are written with millisecond precision.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxLineProtocol {
+
+    private InfluxLineProtocol() {
+    }
+
+    /**
+     * Converts a point to a line of the line protocol
+     *
+     * @param point the point to convert
+     * @return the line or <code>null</code> if the point has no value which can be written
+     */
+    public static @Nullable String toLine(InfluxPoint point) {
+        String value = formatValue(point.getValue());
+        if (value == null) {
+            return null;
+        }
+        String seriesKey = point.getSeriesKey();
+        StringBuilder line = new StringBuilder(64);
+        line.append(seriesKey != null ? seriesKey : toSeriesKey(point.getMeasurementName(), point.getTags()));
+        line.append(' ').append(FIELD_VALUE_NAME).append('=').append(value);
+        line.append(' ').append(point.getTime().toEpochMilli());
+        return line.toString();
+    }
+
+    /**
+     * Converts the measurement name and tags of a point to line protocol. The key can be computed once for points
+     * with the same measurement name and tags and passed to {@link InfluxPoint.Builder#withSeriesKey}.
+     *
+     * @param measurementName the measurement name
+     * @param tags the tags, empty tags are skipped
+     * @return the measurement name and tags in line protocol
+     */
+    public static String toSeriesKey(String measurementName, Map<String, String> tags) {
+        StringBuilder key = new StringBuilder(64);
+        escape(key, measurementName, false);
+        // sorted tags are recommended by InfluxDB for best write performance
+        for (Map.Entry<String, String> tag : new TreeMap<>(tags).entrySet()) {
+            if (!tag.getKey().isEmpty() && !tag.getValue().isEmpty()) {
+                key.append(',');
+                escape(key, tag.getKey(), true);
+                key.append('=');
+                escape(key, tag.getValue(), true);
+            }
+        }
+        return key.toString();
+    }
+
+    private static @Nullable String formatValue(@Nullable Object value) {
+        if (value instanceof String) {
+            return '"' + ((String) value).replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+        } else if (value instanceof Double || value instanceof Float) {
+            double doubleValue = ((Number) value).doubleValue();
+            return Double.isFinite(doubleValue) ? BigDecimal.valueOf(doubleValue).toPlainString() : null;
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        } else if (value instanceof Number) {
+            return value + "i";
+        } else if (value instanceof Boolean) {
+            return value.toString();
+        }
+        return null;
+    }
+
+    private static void escape(StringBuilder line, String value, boolean escapeEquals) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n') {
+                line.append("\\n");
+                continue;
+            }
+            if (c == ',' || c == ' ' || (escapeEquals && c == '=')) {
+                line.append('\\');
+            }
+            line.append(c);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.util.Map;
 
 import org.eclipse.jdt.annotation.DefaultLocation;
 import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
 
 /**
  * Point data to be stored in InfluxDB
@@ -31,12 +32,14 @@ public class InfluxPoint {
     private Instant time;
     private Object value;
     private Map<String, String> tags;
+    private @Nullable String seriesKey;
 
     private InfluxPoint(Builder builder) {
         measurementName = builder.measurementName;
         time = builder.time;
         value = builder.value;
         tags = builder.tags;
+        seriesKey = builder.seriesKey;
     }
 
     public static Builder newBuilder(String measurementName) {
@@ -59,11 +62,19 @@ public class InfluxPoint {
         return Collections.unmodifiableMap(tags);
     }
 
+    /**
+     * Returns the measurement name and tags in line protocol if they have been computed in advance
+     */
+    public @Nullable String getSeriesKey() {
+        return seriesKey;
+    }
+
     public static final class Builder {
         private String measurementName;
         private Instant time;
         private Object value;
         private Map<String, String> tags = new HashMap<>();
+        private @Nullable String seriesKey;
 
         private Builder(String measurementName) {
             this.measurementName = measurementName;
@@ -84,6 +95,20 @@ public class InfluxPoint {
             return this;
         }
 
+        public Builder withTags(Map<String, String> val) {
+            tags.putAll(val);
+            return this;
+        }
+
+        /**
+         * Sets the measurement name and tags in line protocol, see {@link InfluxLineProtocol#toSeriesKey}. It has to
+         * match the measurement name and tags of the point.
+         */
+        public Builder withSeriesKey(String val) {
+            seriesKey = val;
+            return this;
+        }
+
         public InfluxPoint build() {
             return new InfluxPoint(this);
         }
@@ -15,10 +15,14 @@ package org.openhab.persistence.influxdb.internal;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.registry.RegistryChangeListener;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.Metadata;
 import org.openhab.core.items.MetadataKey;
@@ -30,12 +34,59 @@ import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
 /**
  * Logic to create an InfluxDB {@link InfluxPoint} from an openHAB {@link Item}
  *
+ * The measurement name, tags and type conversion of an item only change with the item or its metadata, so they are
+ * computed once per item and alias into a {@link PointTemplate}. The templates are invalidated by the listeners
+ * returned by {@link #getItemRegistryChangeListener()} and {@link #getMetadataRegistryChangeListener()}.
+ *
  * @author Joan Pujol Espinar - Initial contribution
  */
 @NonNullByDefault
 public class ItemToStorePointCreator {
+    private static final char ALIAS_SEPARATOR = ':';
+
     private final InfluxDBConfiguration configuration;
     private final @Nullable MetadataRegistry metadataRegistry;
+    private final Map<String, PointTemplate> templates = new ConcurrentHashMap<>();
+
+    private final RegistryChangeListener<Item> itemRegistryChangeListener = new RegistryChangeListener<>() {
+        @Override
+        public void added(Item element) {
+            invalidate(element.getName());
+        }
+
+        @Override
+        public void removed(Item element) {
+            invalidate(element.getName());
+        }
+
+        @Override
+        public void updated(Item oldElement, Item element) {
+            invalidate(element.getName());
+        }
+    };
+
+    private final RegistryChangeListener<Metadata> metadataRegistryChangeListener = new RegistryChangeListener<>() {
+        @Override
+        public void added(Metadata element) {
+            invalidate(element);
+        }
+
+        @Override
+        public void removed(Metadata element) {
+            invalidate(element);
+        }
+
+        @Override
+        public void updated(Metadata oldElement, Metadata element) {
+            invalidate(element);
+        }
+
+        private void invalidate(Metadata metadata) {
+            if (InfluxDBPersistenceService.SERVICE_NAME.equals(metadata.getUID().getNamespace())) {
+                ItemToStorePointCreator.this.invalidate(metadata.getUID().getItemName());
+            }
+        }
+    };
 
     public ItemToStorePointCreator(InfluxDBConfiguration configuration, @Nullable MetadataRegistry metadataRegistry) {
         this.configuration = configuration;
@@ -47,22 +98,50 @@ public class ItemToStorePointCreator {
             return null;
         }
 
-        String measurementName = calculateMeasurementName(item, storeAlias);
-        String itemName = item.getName();
-        State state = getItemState(item);
+        String alias = storeAlias != null && !storeAlias.isBlank() ? storeAlias : null;
+        String key = alias == null ? item.getName() : item.getName() + ALIAS_SEPARATOR + alias;
+        PointTemplate template = templates.computeIfAbsent(key, k -> createTemplate(item, alias));
 
+        State state = getItemState(item, template.desiredConversion);
         Object value = InfluxDBStateConvertUtils.stateToObject(state);
 
-        InfluxPoint.Builder point = InfluxPoint.newBuilder(measurementName).withTime(Instant.now()).withValue(value)
-                .withTag(TAG_ITEM_NAME, itemName);
+        return InfluxPoint.newBuilder(template.measurementName).withTime(Instant.now()).withValue(value)
+                .withTags(template.tags).withSeriesKey(template.seriesKey).build();
+    }
+
+    /**
+     * Remove the cached templates of an item, so they are computed again on the next store
+     *
+     * @param itemName the name of the item
+     */
+    public void invalidate(String itemName) {
+        templates.values().removeIf(template -> template.itemName.equals(itemName));
+    }
+
+    /**
+     * Returns a listener which invalidates the templates of changed items
+     */
+    public RegistryChangeListener<Item> getItemRegistryChangeListener() {
+        return itemRegistryChangeListener;
+    }
 
-        addPointTags(item, point);
+    /**
+     * Returns a listener which invalidates the templates of items whose InfluxDB metadata changed
+     */
+    public RegistryChangeListener<Metadata> getMetadataRegistryChangeListener() {
+        return metadataRegistryChangeListener;
+    }
 
-        return point.build();
+    private PointTemplate createTemplate(Item item, @Nullable String storeAlias) {
+        String measurementName = calculateMeasurementName(item, storeAlias);
+        Map<String, String> tags = new HashMap<>();
+        tags.put(TAG_ITEM_NAME, item.getName());
+        addPointTags(item, tags);
+        return new PointTemplate(item.getName(), measurementName, tags, calculateDesiredTypeConversionToStore(item));
     }
 
     private String calculateMeasurementName(Item item, @Nullable String storeAlias) {
-        String name = storeAlias != null && !storeAlias.isBlank() ? storeAlias : item.getName();
+        String name = storeAlias != null ? storeAlias : item.getName();
 
         name = InfluxDBMetadataUtils.calculateMeasurementNameFromMetadataIfPresent(metadataRegistry, name,
                 item.getName());
@@ -74,20 +153,14 @@ public class ItemToStorePointCreator {
         return name;
     }
 
-    private State getItemState(Item item) {
-        final State state;
-        final Optional<Class<? extends State>> desiredConversion = calculateDesiredTypeConversionToStore(item);
+    private State getItemState(Item item, Optional<Class<? extends State>> desiredConversion) {
         if (desiredConversion.isPresent()) {
             State convertedState = item.getStateAs(desiredConversion.get());
             if (convertedState != null) {
-                state = convertedState;
-            } else {
-                state = item.getState();
+                return convertedState;
             }
-        } else {
-            state = item.getState();
         }
-        return state;
+        return item.getState();
     }
 
     private Optional<Class<? extends State>> calculateDesiredTypeConversionToStore(Item item) {
@@ -95,17 +168,17 @@ public class ItemToStorePointCreator {
                 .findFirst().map(commandType -> commandType.asSubclass(State.class));
     }
 
-    private void addPointTags(Item item, InfluxPoint.Builder point) {
+    private void addPointTags(Item item, Map<String, String> tags) {
         if (configuration.isAddCategoryTag()) {
             String categoryName = item.getCategory();
             if (categoryName == null) {
                 categoryName = "n/a";
             }
-            point.withTag(TAG_CATEGORY_NAME, categoryName);
+            tags.put(TAG_CATEGORY_NAME, categoryName);
         }
 
         if (configuration.isAddTypeTag()) {
-            point.withTag(TAG_TYPE_NAME, item.getType());
+            tags.put(TAG_TYPE_NAME, item.getType());
         }
 
         if (configuration.isAddLabelTag()) {
@@ -113,7 +186,7 @@ public class ItemToStorePointCreator {
             if (labelName == null) {
                 labelName = "n/a";
             }
-            point.withTag(TAG_LABEL_NAME, labelName);
+            tags.put(TAG_LABEL_NAME, labelName);
         }
 
         final MetadataRegistry currentMetadataRegistry = metadataRegistry;
@@ -122,9 +195,29 @@ public class ItemToStorePointCreator {
             Metadata metadata = currentMetadataRegistry.get(key);
             if (metadata != null) {
                 metadata.getConfiguration().forEach((tagName, tagValue) -> {
-                    point.withTag(tagName, tagValue.toString());
+                    tags.put(tagName, tagValue.toString());
                 });
             }
         }
     }
+
+    /**
+     * The parts of a point which only depend on the item, its metadata and the alias
+     */
+    private static class PointTemplate {
+        private final String itemName;
+        private final String measurementName;
+        private final Map<String, String> tags;
+        private final String seriesKey;
+        private final Optional<Class<? extends State>> desiredConversion;
+
+        private PointTemplate(String itemName, String measurementName, Map<String, String> tags,
+                Optional<Class<? extends State>> desiredConversion) {
+            this.itemName = itemName;
+            this.measurementName = measurementName;
+            this.tags = Map.copyOf(tags);
+            this.seriesKey = InfluxLineProtocol.toSeriesKey(measurementName, tags);
+            this.desiredConversion = desiredConversion;
+        }
+    }
 }
@@ -16,6 +16,10 @@ import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils.stateToObject;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.influxdb.dto.Query;
@@ -26,6 +30,7 @@ import org.influxdb.querybuilder.Where;
 import org.influxdb.querybuilder.clauses.SimpleClause;
 import org.openhab.core.items.MetadataRegistry;
 import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.persistence.influxdb.internal.AggregationFunction;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBMetadataUtils;
@@ -99,6 +104,60 @@ public class Influx1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
         return query.getCommand();
     }
 
+    @Override
+    public String createAggregationQuery(FilterCriteria criteria, String retentionPolicy, AggregationFunction function,
+            Duration window) {
+        final String itemName = criteria.getItemName();
+        if (itemName == null) {
+            throw new IllegalArgumentException("Aggregation queries need an item name");
+        }
+        final String tableName = calculateTableName(itemName);
+        final boolean needsToUseItemTagName = !tableName.equals(itemName);
+
+        // the query builder doesn't support GROUP BY time(), so the query is written by hand
+        StringBuilder query = new StringBuilder("SELECT ");
+        query.append(function.getFunctionName()).append("(\"").append(COLUMN_VALUE_NAME_V1).append("\") AS \"")
+                .append(COLUMN_VALUE_NAME_V1).append("\" FROM ")
+                .append(fullQualifiedTableName(retentionPolicy, tableName, true));
+
+        List<String> conditions = new ArrayList<>();
+        if (needsToUseItemTagName) {
+            conditions.add(TAG_ITEM_NAME + " = " + quote(itemName));
+        }
+        if (criteria.getBeginDate() != null) {
+            conditions.add(COLUMN_TIME_NAME_V1 + " >= " + quote(criteria.getBeginDate().toInstant().toString()));
+        }
+        if (criteria.getEndDate() != null) {
+            conditions.add(COLUMN_TIME_NAME_V1 + " <= " + quote(criteria.getEndDate().toInstant().toString()));
+        }
+        if (criteria.getState() != null && criteria.getOperator() != null) {
+            Object value = stateToObject(criteria.getState());
+            conditions.add(COLUMN_VALUE_NAME_V1 + " " + getOperationSymbol(criteria.getOperator(), InfluxDBVersion.V1)
+                    + " " + (value instanceof String ? quote((String) value) : value));
+        }
+        if (!conditions.isEmpty()) {
+            query.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+
+        // group by the item tag as well, so the item name is returned as tag of the series
+        query.append(" GROUP BY time(").append(window.toMillis()).append("ms)");
+        if (needsToUseItemTagName) {
+            query.append(",").append(TAG_ITEM_NAME);
+        }
+        query.append(" fill(none)");
+
+        if (criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING) {
+            query.append(" ORDER BY time DESC");
+        } else if (criteria.getOrdering() == FilterCriteria.Ordering.ASCENDING) {
+            query.append(" ORDER BY time ASC");
+        }
+        return query.append(";").toString();
+    }
+
+    private String quote(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
     private String calculateTableName(@Nullable String itemName) {
         if (itemName == null) {
             return "/.*/";
@@ -17,11 +17,13 @@ import static com.influxdb.query.dsl.functions.restriction.Restrictions.tag;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils.stateToObject;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.items.MetadataRegistry;
 import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.persistence.influxdb.internal.AggregationFunction;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBMetadataUtils;
@@ -50,18 +52,7 @@ public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
 
     @Override
     public String createQuery(FilterCriteria criteria, String retentionPolicy) {
-        Flux flux = Flux.from(retentionPolicy);
-
-        RangeFlux range = flux.range();
-        if (criteria.getBeginDate() != null) {
-            range = range.withStart(criteria.getBeginDate().toInstant());
-        } else {
-            range = flux.range(-100L, ChronoUnit.YEARS); // Flux needs a mandatory start range
-        }
-        if (criteria.getEndDate() != null) {
-            range = range.withStop(criteria.getEndDate().toInstant());
-        }
-        flux = range;
+        Flux flux = applyRange(criteria, Flux.from(retentionPolicy));
 
         String itemName = criteria.getItemName();
         if (itemName != null) {
@@ -80,16 +71,68 @@ public class Influx2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQuer
                 flux = flux.keep(new String[] { FIELD_MEASUREMENT_NAME, COLUMN_TIME_NAME_V2, COLUMN_VALUE_NAME_V2 });
         }
 
+        flux = applyValueFilter(criteria, flux);
+        flux = applyOrderingAndPageSize(criteria, flux);
+
+        return flux.toString();
+    }
+
+    @Override
+    public String createAggregationQuery(FilterCriteria criteria, String retentionPolicy, AggregationFunction function,
+            Duration window) {
+        String itemName = criteria.getItemName();
+        if (itemName == null) {
+            throw new IllegalArgumentException("Aggregation queries need an item name");
+        }
+        Flux flux = applyRange(criteria, Flux.from(retentionPolicy));
+
+        String measurementName = calculateMeasurementName(itemName);
+        boolean needsToUseItemTagName = !measurementName.equals(itemName);
+
+        flux = flux.filter(measurement().equal(measurementName));
+        if (needsToUseItemTagName) {
+            flux = flux.filter(tag(TAG_ITEM_NAME).equal(itemName));
+        }
+        flux = applyValueFilter(criteria, flux);
+
+        // the aggregate functions only keep the columns of the group key, the windows must not be split by other tags
+        if (needsToUseItemTagName) {
+            flux = flux.groupBy(new String[] { FIELD_MEASUREMENT_NAME, TAG_ITEM_NAME });
+        } else {
+            flux = flux.groupBy(new String[] { FIELD_MEASUREMENT_NAME });
+        }
+        flux = flux.expression("aggregateWindow(every: " + window.toMillis() + "ms, fn: " + function.getFunctionName()
+                + ", timeSrc: \"_start\", createEmpty: false)");
+
+        if (criteria.getOrdering() != null) {
+            boolean desc = criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING;
+            flux = flux.sort().withDesc(desc).withColumns(new String[] { COLUMN_TIME_NAME_V2 });
+        }
+
+        return flux.toString();
+    }
+
+    private Flux applyRange(FilterCriteria criteria, Flux flux) {
+        RangeFlux range = flux.range();
+        if (criteria.getBeginDate() != null) {
+            range = range.withStart(criteria.getBeginDate().toInstant());
+        } else {
+            range = flux.range(-100L, ChronoUnit.YEARS); // Flux needs a mandatory start range
+        }
+        if (criteria.getEndDate() != null) {
+            range = range.withStop(criteria.getEndDate().toInstant());
+        }
+        return range;
+    }
+
+    private Flux applyValueFilter(FilterCriteria criteria, Flux flux) {
         if (criteria.getState() != null && criteria.getOperator() != null) {
             Restrictions restrictions = Restrictions.and(Restrictions.field().equal(FIELD_VALUE_NAME),
                     Restrictions.value().custom(stateToObject(criteria.getState()),
                             getOperationSymbol(criteria.getOperator(), InfluxDBVersion.V2)));
             flux = flux.filter(restrictions);
         }
-
-        flux = applyOrderingAndPageSize(criteria, flux);
-
-        return flux.toString();
+        return flux;
     }
 
     private Flux applyOrderingAndPageSize(FilterCriteria criteria, Flux flux) {
@@ -12,7 +12,7 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 import java.util.Map;
@@ -28,6 +28,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.items.MetadataRegistry;
 import org.openhab.persistence.influxdb.InfluxDBPersistenceService;
+import org.openhab.persistence.influxdb.internal.InfluxDBRepository.WriteResult;
 
 /**
  * @author Joan Pujol Espinar - Initial contribution
@@ -57,6 +58,7 @@ public class InfluxDBPersistenceServiceTest {
 
     @AfterEach
     public void after() {
+        instance.deactivate();
         validConfig = null;
         invalidConfig = null;
         instance = null;
@@ -92,8 +94,11 @@ public class InfluxDBPersistenceServiceTest {
     public void storeItemWithConnectedRepository() {
         instance.activate(validConfig);
         when(influxDBRepository.isConnected()).thenReturn(true);
+        when(influxDBRepository.write(anyList())).thenReturn(WriteResult.WRITTEN);
         instance.store(ItemTestHelper.createNumberItem("number", 5));
-        verify(influxDBRepository).write(any());
+        // points are written by the write pipeline at the latest when it is closed
+        instance.deactivate();
+        verify(influxDBRepository, atLeastOnce()).write(anyList());
     }
 
     @Test
@@ -101,6 +106,7 @@ public class InfluxDBPersistenceServiceTest {
         instance.activate(validConfig);
         when(influxDBRepository.isConnected()).thenReturn(false);
         instance.store(ItemTestHelper.createNumberItem("number", 5));
-        verify(influxDBRepository, never()).write(any());
+        instance.deactivate();
+        verify(influxDBRepository, never()).write(anyList());
     }
 }
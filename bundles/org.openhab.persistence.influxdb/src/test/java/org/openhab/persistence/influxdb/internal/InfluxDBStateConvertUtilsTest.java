@@ -25,9 +25,13 @@ import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.openhab.core.items.GroupItem;
+import org.openhab.core.library.items.ColorItem;
 import org.openhab.core.library.items.ContactItem;
 import org.openhab.core.library.items.DateTimeItem;
+import org.openhab.core.library.items.DimmerItem;
 import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.RollershutterItem;
 import org.openhab.core.library.items.SwitchItem;
 import org.openhab.core.library.types.DateTimeType;
 import org.openhab.core.library.types.DecimalType;
@@ -98,4 +102,16 @@ public class InfluxDBStateConvertUtilsTest {
                 ZonedDateTime.ofInstant(Instant.ofEpochMilli(val), ZoneId.systemDefault()));
         assertThat(InfluxDBStateConvertUtils.objectToState(val, item), equalTo(expected));
     }
+
+    @Test
+    public void onlyItemsWithNumericStatesAreAggregatable() {
+        assertThat(InfluxDBStateConvertUtils.isAggregatable(new NumberItem("name")), is(true));
+        assertThat(InfluxDBStateConvertUtils.isAggregatable(new DimmerItem("name")), is(true));
+        assertThat(InfluxDBStateConvertUtils.isAggregatable(new RollershutterItem("name")), is(true));
+        assertThat(InfluxDBStateConvertUtils.isAggregatable(new GroupItem("name", new NumberItem("base"))), is(true));
+        assertThat(InfluxDBStateConvertUtils.isAggregatable(new ColorItem("name")), is(false));
+        assertThat(InfluxDBStateConvertUtils.isAggregatable(new SwitchItem("name")), is(false));
+        assertThat(InfluxDBStateConvertUtils.isAggregatable(new ContactItem("name")), is(false));
+        assertThat(InfluxDBStateConvertUtils.isAggregatable(new GroupItem("name")), is(false));
+    }
 }
@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.openhab.persistence.influxdb.internal.InfluxDBConfiguration.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.DefaultLocation;
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openhab.persistence.influxdb.internal.InfluxDBRepository.WriteResult;
+import org.openhab.persistence.influxdb.internal.influx1.InfluxDB1RepositoryImpl;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault(value = { DefaultLocation.PARAMETER, DefaultLocation.RETURN_TYPE })
+public class InfluxDBWritePipelineTest {
+    private static final long ONE_HOUR = 3600000;
+
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger attempts = new AtomicInteger();
+    private volatile boolean repositoryAvailable = true;
+    private volatile String rejectedLine = "";
+    private volatile long writeDuration = 0;
+
+    @TempDir
+    Path tempDir;
+    private HttpServer server;
+
+    @AfterEach
+    public void after() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void pointsAreWrittenInBatches() {
+        InfluxDBWritePipeline pipeline = new InfluxDBWritePipeline(new StubRepository(), 2, ONE_HOUR, 10, null);
+        for (int i = 1; i <= 5; i++) {
+            pipeline.add(point(i));
+        }
+        pipeline.close();
+
+        assertThat(writtenLines(), is(expectedLines(1, 5)));
+        batches.forEach(batch -> assertThat(batch.size(), is(lessThanOrEqualTo(2))));
+        assertThat(pipeline.getWrittenCount(), is(5L));
+        assertThat(pipeline.getQueueDepth(), is(0));
+    }
+
+    @Test
+    public void rejectedPointsAreDiscardedWithoutBlockingOtherPoints() {
+        rejectedLine = expectedLines(3, 3).get(0);
+        InfluxDBWritePipeline pipeline = new InfluxDBWritePipeline(new StubRepository(), 10, ONE_HOUR, 10, null);
+        for (int i = 1; i <= 5; i++) {
+            pipeline.add(point(i));
+        }
+        pipeline.close();
+
+        List<String> expected = new ArrayList<>(expectedLines(1, 5));
+        expected.remove(rejectedLine);
+        assertThat(writtenLines(), is(expected));
+        assertThat(pipeline.getWrittenCount(), is(4L));
+        assertThat(pipeline.getRejectedCount(), is(1L));
+        assertThat(pipeline.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void pointsWhichCouldNotBeWrittenAreSavedAndWrittenAfterRestart() throws IOException {
+        Path bufferFile = tempDir.resolve("buffer").resolve("influxdb.lp");
+        repositoryAvailable = false;
+        InfluxDBWritePipeline pipeline = new InfluxDBWritePipeline(new StubRepository(), 10, ONE_HOUR, 10,
+                bufferFile);
+        for (int i = 1; i <= 3; i++) {
+            pipeline.add(point(i));
+        }
+        pipeline.close();
+
+        assertThat(attempts.get(), is(greaterThan(0)));
+        assertThat(Files.readAllLines(bufferFile), is(expectedLines(1, 3)));
+        assertThat(pipeline.getDroppedCount(), is(0L));
+
+        repositoryAvailable = true;
+        pipeline = new InfluxDBWritePipeline(new StubRepository(), 10, ONE_HOUR, 10, bufferFile);
+        pipeline.close();
+
+        assertThat(writtenLines(), is(expectedLines(1, 3)));
+        assertThat(Files.exists(bufferFile), is(false));
+    }
+
+    @Test
+    public void oldestPointsAreDroppedWhenBufferIsFull() throws IOException {
+        Path bufferFile = tempDir.resolve("influxdb.lp");
+        Files.write(bufferFile, expectedLines(1, 5));
+
+        InfluxDBWritePipeline pipeline = new InfluxDBWritePipeline(new StubRepository(), 3, ONE_HOUR, 3, bufferFile);
+        assertThat(pipeline.getQueueDepth(), is(3));
+        pipeline.close();
+
+        assertThat(writtenLines(), is(expectedLines(3, 5)));
+        assertThat(pipeline.getDroppedCount(), is(2L));
+    }
+
+    @Test
+    public void queueDepthCountsQueuedAndBufferedPoints() {
+        repositoryAvailable = false;
+        InfluxDBWritePipeline pipeline = new InfluxDBWritePipeline(new StubRepository(), 2, ONE_HOUR, 10, null);
+        for (int i = 1; i <= 3; i++) {
+            pipeline.add(point(i));
+        }
+        // the first batch was written immediately, but it failed, so all points are buffered
+        waitForFailedWrite();
+        assertThat(pipeline.getQueueDepth(), is(3));
+
+        pipeline.close();
+
+        assertThat(pipeline.getQueueDepth(), is(0));
+        assertThat(pipeline.getWrittenCount(), is(0L));
+        assertThat(pipeline.getDroppedCount(), is(3L));
+        assertThat(pipeline.add(point(4)), is(false));
+        assertThat(pipeline.getDroppedCount(), is(4L));
+    }
+
+    @Test
+    public void flushDurationIsMeasured() {
+        writeDuration = 50;
+        InfluxDBWritePipeline pipeline = new InfluxDBWritePipeline(new StubRepository(), 10, ONE_HOUR, 10, null);
+        pipeline.add(point(1));
+        pipeline.close();
+
+        assertThat(pipeline.getLastFlushDuration(), is(greaterThanOrEqualTo(50L)));
+        assertThat(pipeline.getMaxFlushDuration(), is(greaterThanOrEqualTo(pipeline.getLastFlushDuration())));
+    }
+
+    @Test
+    public void pointsAreWrittenToInfluxDB1AfterOutage() throws IOException {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ping", exchange -> {
+            exchange.getResponseHeaders().add("X-Influxdb-Version", "1.8.10");
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.createContext("/write", exchange -> {
+            attempts.incrementAndGet();
+            try (InputStream body = exchange.getRequestBody()) {
+                String lines = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                if (repositoryAvailable) {
+                    received.addAll(List.of(lines.split("\n")));
+                }
+            }
+            exchange.sendResponseHeaders(repositoryAvailable ? 204 : 503, -1);
+            exchange.close();
+        });
+        server.start();
+
+        Map<String, Object> config = new HashMap<>();
+        config.put(URL_PARAM, "http://127.0.0.1:" + server.getAddress().getPort());
+        config.put(VERSION_PARAM, InfluxDBVersion.V1.name());
+        config.put(USER_PARAM, "openhab");
+        config.put(PASSWORD_PARAM, "secret");
+        InfluxDB1RepositoryImpl repository = new InfluxDB1RepositoryImpl(new InfluxDBConfiguration(config));
+        assertThat(repository.connect(), is(true));
+
+        repositoryAvailable = false;
+        InfluxDBWritePipeline pipeline = new InfluxDBWritePipeline(repository, 2, ONE_HOUR, 10, null);
+        pipeline.add(point(1));
+        pipeline.add(point(2));
+        waitForFailedWrite();
+        assertThat(received, is(empty()));
+
+        repositoryAvailable = true;
+        pipeline.close();
+
+        assertThat(received, is(expectedLines(1, 2)));
+    }
+
+    private void waitForFailedWrite() {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (attempts.get() == 0 && System.currentTimeMillis() < timeout) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private InfluxPoint point(int i) {
+        return InfluxPoint.newBuilder("sensor").withTime(Instant.ofEpochMilli(i)).withValue(i)
+                .withTag(InfluxDBConstants.TAG_ITEM_NAME, "sensor").build();
+    }
+
+    private List<String> expectedLines(int from, int to) {
+        List<String> lines = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            lines.add("sensor,item=sensor value=" + i + "i " + i);
+        }
+        return lines;
+    }
+
+    private List<String> writtenLines() {
+        return batches.stream().flatMap(List::stream).collect(Collectors.toList());
+    }
+
+    private class StubRepository implements InfluxDBRepository {
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public boolean connect() {
+            return true;
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean checkConnectionStatus() {
+            return true;
+        }
+
+        @Override
+        public Map<String, Integer> getStoredItemsCount() {
+            return Map.of();
+        }
+
+        @Override
+        public void query(String query, Consumer<InfluxRow> consumer) {
+        }
+
+        @Override
+        public WriteResult write(List<String> lines) {
+            try {
+                Thread.sleep(writeDuration);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            attempts.incrementAndGet();
+            if (!repositoryAvailable) {
+                return WriteResult.FAILED;
+            } else if (lines.contains(rejectedLine)) {
+                return WriteResult.REJECTED;
+            }
+            batches.add(new ArrayList<>(lines));
+            return WriteResult.WRITTEN;
+        }
+    }
+}
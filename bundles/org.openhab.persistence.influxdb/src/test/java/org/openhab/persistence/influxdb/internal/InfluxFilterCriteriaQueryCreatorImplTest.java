@@ -16,6 +16,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -180,6 +181,55 @@ public class InfluxFilterCriteriaQueryCreatorImplTest {
                         + "|> keep(columns:[\"_measurement\", \"_time\", \"_value\"])\n\t" + "|> last()"));
     }
 
+    @Test
+    public void testAggregationQuery() {
+        FilterCriteria criteria = createBaseCriteria();
+        ZonedDateTime begin = ZonedDateTime.parse("2022-03-01T00:00:00Z");
+        ZonedDateTime end = begin.plusDays(1);
+        criteria.setBeginDate(begin);
+        criteria.setEndDate(end);
+        criteria.setOrdering(FilterCriteria.Ordering.DESCENDING);
+
+        String queryV1 = instanceV1.createAggregationQuery(criteria, RETENTION_POLICY, AggregationFunction.AVG,
+                Duration.ofMinutes(15));
+        assertThat(queryV1, equalTo("SELECT mean(\"value\") AS \"value\" FROM origin.sampleItem "
+                + "WHERE time >= '2022-03-01T00:00:00Z' AND time <= '2022-03-02T00:00:00Z' "
+                + "GROUP BY time(900000ms) fill(none) ORDER BY time DESC;"));
+
+        String queryV2 = instanceV2.createAggregationQuery(criteria, RETENTION_POLICY, AggregationFunction.AVG,
+                Duration.ofMinutes(15));
+        assertThat(queryV2, equalTo("from(bucket:\"origin\")\n\t"
+                + "|> range(start:2022-03-01T00:00:00.000000000Z, stop:2022-03-02T00:00:00.000000000Z)\n\t"
+                + "|> filter(fn: (r) => r[\"_measurement\"] == \"sampleItem\")\n\t"
+                + "|> group(columns:[\"_measurement\"], mode:\"by\")\n\t"
+                + "|> aggregateWindow(every: 900000ms, fn: mean, timeSrc: \"_start\", createEmpty: false)\n\t"
+                + "|> sort(desc:true, columns:[\"_time\"])"));
+    }
+
+    @Test
+    public void testAggregationQueryWithMeasurementNameFromMetadata() {
+        FilterCriteria criteria = createBaseCriteria();
+        criteria.setBeginDate(ZonedDateTime.parse("2022-03-01T00:00:00Z"));
+        criteria.setEndDate(ZonedDateTime.parse("2022-03-02T00:00:00Z"));
+        MetadataKey metadataKey = new MetadataKey(InfluxDBPersistenceService.SERVICE_NAME, "sampleItem");
+        when(metadataRegistry.get(metadataKey)).thenReturn(new Metadata(metadataKey, "measurementName", Map.of()));
+
+        String queryV1 = instanceV1.createAggregationQuery(criteria, RETENTION_POLICY, AggregationFunction.LAST,
+                Duration.ofSeconds(1));
+        assertThat(queryV1, equalTo("SELECT last(\"value\") AS \"value\" FROM origin.measurementName "
+                + "WHERE item = 'sampleItem' AND time >= '2022-03-01T00:00:00Z' AND time <= '2022-03-02T00:00:00Z' "
+                + "GROUP BY time(1000ms),item fill(none);"));
+
+        String queryV2 = instanceV2.createAggregationQuery(criteria, RETENTION_POLICY, AggregationFunction.LAST,
+                Duration.ofSeconds(1));
+        assertThat(queryV2, equalTo("from(bucket:\"origin\")\n\t"
+                + "|> range(start:2022-03-01T00:00:00.000000000Z, stop:2022-03-02T00:00:00.000000000Z)\n\t"
+                + "|> filter(fn: (r) => r[\"_measurement\"] == \"measurementName\")\n\t"
+                + "|> filter(fn: (r) => r[\"item\"] == \"sampleItem\")\n\t"
+                + "|> group(columns:[\"_measurement\", \"item\"], mode:\"by\")\n\t"
+                + "|> aggregateWindow(every: 1000ms, fn: last, timeSrc: \"_start\", createEmpty: false)"));
+    }
+
     private FilterCriteria createBaseCriteria() {
         return createBaseCriteria(ITEM_NAME);
     }
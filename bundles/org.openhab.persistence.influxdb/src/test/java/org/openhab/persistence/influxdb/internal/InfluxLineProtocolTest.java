@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxLineProtocolTest {
+    private static final Instant TIME = Instant.ofEpochMilli(1646363167123L);
+
+    @Test
+    public void numbersAreWrittenLikeTheClientLibraries() {
+        assertThat(line(new BigDecimal("21.50")), is("sensor,item=sensor value=21.50 1646363167123"));
+        assertThat(line(1.5d), is("sensor,item=sensor value=1.5 1646363167123"));
+        assertThat(line(1), is("sensor,item=sensor value=1i 1646363167123"));
+        assertThat(line(1646363167123L), is("sensor,item=sensor value=1646363167123i 1646363167123"));
+    }
+
+    @Test
+    public void stringsAreQuotedAndEscaped() {
+        assertThat(line("say \"hi\" \\o/"), is("sensor,item=sensor value=\"say \\\"hi\\\" \\\\o/\" 1646363167123"));
+    }
+
+    @Test
+    public void tagsAreSortedAndEscaped() {
+        InfluxPoint point = InfluxPoint.newBuilder("living room,temp").withTime(TIME).withValue(1)
+                .withTag("item", "temp").withTag("label", "a=b c").withTag("category", "").build();
+
+        assertThat(InfluxLineProtocol.toLine(point),
+                is("living\\ room\\,temp,item=temp,label=a\\=b\\ c value=1i 1646363167123"));
+    }
+
+    @Test
+    public void pointsWithoutValueAreIgnored() {
+        InfluxPoint point = InfluxPoint.newBuilder("sensor").withTime(TIME).withValue(Double.NaN).build();
+
+        assertThat(InfluxLineProtocol.toLine(point), is(nullValue()));
+    }
+
+    private @Nullable String line(Object value) {
+        InfluxPoint point = InfluxPoint.newBuilder("sensor").withTime(TIME).withValue(value).withTag("item", "sensor")
+                .build();
+        return InfluxLineProtocol.toLine(point);
+    }
+}
@@ -14,6 +14,7 @@ package org.openhab.persistence.influxdb.internal;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
@@ -97,6 +98,7 @@ public class ItemToStorePointCreatorTest {
         assertThat(point.getTags(), hasEntry(InfluxDBConstants.TAG_CATEGORY_NAME, "categoryValue"));
 
         when(influxDBConfiguration.isAddCategoryTag()).thenReturn(false);
+        instance.invalidate(item.getName());
         point = instance.convert(item, null);
         assertThat(point.getTags(), not(hasKey(InfluxDBConstants.TAG_CATEGORY_NAME)));
     }
@@ -110,6 +112,7 @@ public class ItemToStorePointCreatorTest {
         assertThat(point.getTags(), hasEntry(InfluxDBConstants.TAG_TYPE_NAME, "Number"));
 
         when(influxDBConfiguration.isAddTypeTag()).thenReturn(false);
+        instance.invalidate(item.getName());
         point = instance.convert(item, null);
         assertThat(point.getTags(), not(hasKey(InfluxDBConstants.TAG_TYPE_NAME)));
     }
@@ -124,6 +127,7 @@ public class ItemToStorePointCreatorTest {
         assertThat(point.getTags(), hasEntry(InfluxDBConstants.TAG_LABEL_NAME, "ItemLabel"));
 
         when(influxDBConfiguration.isAddLabelTag()).thenReturn(false);
+        instance.invalidate(item.getName());
         point = instance.convert(item, null);
         assertThat(point.getTags(), not(hasKey(InfluxDBConstants.TAG_LABEL_NAME)));
     }
@@ -153,18 +157,57 @@ public class ItemToStorePointCreatorTest {
         assertThat(point.getMeasurementName(), equalTo(item.getName()));
         assertThat(point.getTags(), hasEntry("item", item.getName()));
 
-        when(metadataRegistry.get(metadataKey))
-                .thenReturn(new Metadata(metadataKey, "measurementName", Map.of("key1", "val1", "key2", "val2")));
+        Metadata metadata = new Metadata(metadataKey, "measurementName", Map.of("key1", "val1", "key2", "val2"));
+        when(metadataRegistry.get(metadataKey)).thenReturn(metadata);
+        instance.getMetadataRegistryChangeListener().added(metadata);
 
         point = instance.convert(item, null);
         assertThat(point.getMeasurementName(), equalTo("measurementName"));
         assertThat(point.getTags(), hasEntry("item", item.getName()));
 
-        when(metadataRegistry.get(metadataKey))
-                .thenReturn(new Metadata(metadataKey, "", Map.of("key1", "val1", "key2", "val2")));
+        Metadata updatedMetadata = new Metadata(metadataKey, "", Map.of("key1", "val1", "key2", "val2"));
+        when(metadataRegistry.get(metadataKey)).thenReturn(updatedMetadata);
+        instance.getMetadataRegistryChangeListener().updated(metadata, updatedMetadata);
 
         point = instance.convert(item, null);
         assertThat(point.getMeasurementName(), equalTo(item.getName()));
         assertThat(point.getTags(), hasEntry("item", item.getName()));
     }
+
+    @Test
+    public void shouldReuseTemplateUntilItemIsUpdated() {
+        NumberItem item = ItemTestHelper.createNumberItem("myitem", 5);
+        item.setLabel("ItemLabel");
+        when(influxDBConfiguration.isAddLabelTag()).thenReturn(true);
+
+        InfluxPoint point = instance.convert(item, null);
+        assertThat(point.getTags(), hasEntry(InfluxDBConstants.TAG_LABEL_NAME, "ItemLabel"));
+
+        item.setLabel("NewLabel");
+        point = instance.convert(item, null);
+        assertThat(point.getTags(), hasEntry(InfluxDBConstants.TAG_LABEL_NAME, "ItemLabel"));
+
+        instance.getItemRegistryChangeListener().updated(item, item);
+        point = instance.convert(item, null);
+        assertThat(point.getTags(), hasEntry(InfluxDBConstants.TAG_LABEL_NAME, "NewLabel"));
+        assertThat(point.getSeriesKey(), is("myitem,item=myitem,label=NewLabel"));
+    }
+
+    @Test
+    public void shouldIgnoreMetadataOfOtherNamespaces() {
+        NumberItem item = ItemTestHelper.createNumberItem("myitem", 5);
+        MetadataKey metadataKey = new MetadataKey(InfluxDBPersistenceService.SERVICE_NAME, item.getName());
+
+        InfluxPoint point = instance.convert(item, null);
+        assertThat(point.getMeasurementName(), equalTo(item.getName()));
+
+        // not queried again, as the cached template is still valid
+        lenient().when(metadataRegistry.get(metadataKey))
+                .thenReturn(new Metadata(metadataKey, "measurementName", Map.of()));
+        instance.getMetadataRegistryChangeListener()
+                .added(new Metadata(new MetadataKey("other", item.getName()), "otherName", Map.of()));
+
+        point = instance.convert(item, null);
+        assertThat(point.getMeasurementName(), equalTo(item.getName()));
+    }
 }
@@ -14,13 +14,17 @@ package org.openhab.persistence.jdbc.db;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import javax.measure.Quantity;
@@ -51,6 +55,7 @@ import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.types.State;
 import org.openhab.core.types.TypeParser;
+import org.openhab.persistence.jdbc.dto.AggregationFunction;
 import org.openhab.persistence.jdbc.dto.ItemVO;
 import org.openhab.persistence.jdbc.dto.ItemsVO;
 import org.openhab.persistence.jdbc.dto.JdbcHistoricItem;
@@ -71,6 +76,12 @@ public class JdbcBaseDAO {
     protected String urlSuffix = "";
     public final Map<String, String> sqlTypes = new HashMap<>();
 
+    // insert statements per item table
+    private final Map<String, String> insertItemValueSqls = new ConcurrentHashMap<>();
+
+    // maximum number of rows fetched at once by streaming queries, 0 if the database doesn't support them
+    protected int maxFetchSize = 10000;
+
     // Get Database Meta data
     protected DbMetaData dbMeta;
 
@@ -330,24 +341,37 @@ public class JdbcBaseDAO {
 
     public void doStoreItemValue(Item item, State itemState, ItemVO vo) {
         ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { storedVO.getValue(), storedVO.getValue() };
+        String sql = getInsertItemValueSql(storedVO, false);
+        Object[] params = insertItemValueParams(storedVO, null);
         logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
     public void doStoreItemValue(Item item, State itemState, ItemVO vo, ZonedDateTime date) {
         ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" }, new String[] { storedVO.getTableName(), "?" });
-        java.sql.Timestamp timestamp = new java.sql.Timestamp(date.toInstant().toEpochMilli());
-        Object[] params = new Object[] { storedVO.getValue(), timestamp, storedVO.getValue() };
+        storedVO.setTime(Date.from(date.toInstant()));
+        String sql = getInsertItemValueSql(storedVO, true);
+        Object timestamp = timestampAsObject(storedVO);
+        Object[] params = insertItemValueParams(storedVO, timestamp);
         logger.debug("JDBC::doStoreItemValue sql={} timestamp={} value='{}'", sql, timestamp, storedVO.getValue());
         Yank.execute(sql, params);
     }
 
+    /**
+     * Stores a batch of values which have been prepared by {@link #prepareItemValue}. All values have to belong to the
+     * same item table.
+     *
+     * @return <code>false</code> if the batch could not be executed
+     */
+    public boolean doStoreItemValues(List<ItemVO> vol) {
+        String sql = getInsertItemValueSql(vol.get(0), true);
+        Object[][] params = vol.stream().map(storedVO -> insertItemValueParams(storedVO, timestampAsObject(storedVO)))
+                .toArray(Object[][]::new);
+        logger.debug("JDBC::doStoreItemValues sql={} count={}", sql, params.length);
+        // Yank logs the SQLException and returns null
+        return Yank.executeBatch(sql, params) != null;
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) {
         String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
@@ -364,6 +388,90 @@ public class JdbcBaseDAO {
                 .collect(Collectors.<HistoricItem> toList());
     }
 
+    /**
+     * Runs a filter query and returns the rows of time and value, or <code>null</code> if the query failed
+     */
+    protected @Nullable List<Object[]> doGetHistItemFilterRows(FilterCriteria filter, int numberDecimalcount,
+            String table, String name, ZoneId timeZone) {
+        String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
+        logger.debug("JDBC::doGetHistItemFilterRows sql={}", sql);
+        return Yank.queryObjectArrays(sql, null);
+    }
+
+    /**
+     * Queries the values of the filter lazily. The rows are fetched in pages of <code>fetchSize</code> rows while the
+     * result is iterated. The paging settings of the filter are ignored.
+     */
+    public Iterable<HistoricItem> doGetHistItemFilterQueryIterable(Item item, FilterCriteria filter,
+            int numberDecimalcount, String table, String name, ZoneId timeZone, int fetchSize) {
+        return new JdbcHistoricItemIterable(this, item, filter, numberDecimalcount, table, name, timeZone, fetchSize);
+    }
+
+    /**
+     * Returns the number of rows fetched at once by streaming queries
+     *
+     * @param configured the configured fetch size, 0 or less if results are loaded at once
+     * @return the fetch size bounded by the limit of the database, 0 if results are loaded at once
+     */
+    public int getFetchSize(int configured) {
+        if (maxFetchSize <= 0 || configured <= 0) {
+            return 0;
+        }
+        return Math.min(configured, maxFetchSize);
+    }
+
+    /**
+     * Queries the values in the time range of the filter, downsampled by the database to at most
+     * <code>maxPoints</code> values. The paging settings of the filter are ignored.
+     */
+    public List<HistoricItem> doGetHistItemDownsampledQuery(Item item, FilterCriteria filter, int maxPoints,
+            AggregationFunction function, String table, ZoneId timeZone) {
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (beginDate == null) {
+            String sql = histItemFirstTimeQueryProvider(table);
+            logger.debug("JDBC::doGetHistItemDownsampledQuery sql={}", sql);
+            Object firstTime = Yank.queryScalar(sql, Object.class, null);
+            if (firstTime == null) {
+                return List.of();
+            }
+            beginDate = objectAsDate(firstTime);
+        }
+        ZonedDateTime endDate = filter.getEndDate() != null ? filter.getEndDate() : ZonedDateTime.now();
+        // the database compares the local times of the time zone, so the buckets are computed for these as well
+        LocalDateTime bucketStart = beginDate.withZoneSameInstant(timeZone).toLocalDateTime()
+                .truncatedTo(ChronoUnit.SECONDS);
+        long bucketSeconds = bucketSeconds(bucketStart, endDate.withZoneSameInstant(timeZone).toLocalDateTime(),
+                maxPoints);
+
+        AggregationFunction aggregation = hasNumericValueColumn(item) ? function : AggregationFunction.LAST;
+        String sql = histItemDownsampledQueryProvider(filter, aggregation, bucketStart, bucketSeconds, table,
+                timeZone);
+        logger.debug("JDBC::doGetHistItemDownsampledQuery sql={}", sql);
+        List<Object[]> m = Yank.queryObjectArrays(sql, null);
+        if (m == null) {
+            logger.debug("JDBC::doGetHistItemDownsampledQuery Query failed. Returning an empty list.");
+            return List.of();
+        }
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem ? ((NumberItem) item).getUnit() : null;
+        return m.stream().filter(o -> o[1] != null)
+                .map(o -> new JdbcHistoricItem(itemName, objectAsState(item, unit, aggregatedValueAsObject(item, o[1])),
+                        objectAsDate(o[0])))
+                .collect(Collectors.<HistoricItem> toList());
+    }
+
+    /**
+     * Returns the length of the time buckets for a downsampled query. The buckets start at <code>begin</code>, and
+     * the bucket of a time before <code>end</code> is the number of whole bucket lengths since <code>begin</code>,
+     * so there are at most <code>maxPoints</code> buckets.
+     */
+    static long bucketSeconds(LocalDateTime begin, LocalDateTime end, int maxPoints) {
+        long range = Math.max(0, ChronoUnit.SECONDS.between(begin, end));
+        // a time up to the end of the range has to fall into the last bucket, so the range must be shorter than the
+        // buckets together
+        return range / Math.max(1, maxPoints) + 1;
+    }
+
     public void doDeleteItemValues(FilterCriteria filter, String table, ZoneId timeZone) {
         String sql = histItemFilterDeleteProvider(filter, table, timeZone);
         logger.debug("JDBC::doDeleteItemValues sql={}", sql);
@@ -375,6 +483,33 @@ public class JdbcBaseDAO {
      *************/
     static final DateTimeFormatter JDBC_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * Returns the insert statement for the table of the given value. The statements are built once per table, so
+     * storing a value only requires binding the parameters.
+     */
+    protected String getInsertItemValueSql(ItemVO vo, boolean withTime) {
+        String key = vo.getTableName() + (withTime ? "#time#" : "#") + vo.getDbType();
+        return insertItemValueSqls.computeIfAbsent(key,
+                k -> insertItemValueSqlProvider(vo.getTableName(), vo.getDbType(), withTime));
+    }
+
+    protected String insertItemValueSqlProvider(String tableName, String dbType, boolean withTime) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                new String[] { "#tableName#", "#tablePrimaryValue#" },
+                new String[] { tableName, withTime ? "?" : sqlTypes.get("tablePrimaryValue") });
+    }
+
+    /**
+     * Returns the parameters of the insert statement
+     *
+     * @param vo the value to store
+     * @param timestamp the time of the value or <code>null</code> if the database time is used
+     */
+    protected Object[] insertItemValueParams(ItemVO vo, @Nullable Object timestamp) {
+        return timestamp == null ? new Object[] { vo.getValue(), vo.getValue() }
+                : new Object[] { timestamp, vo.getValue(), vo.getValue() };
+    }
+
     protected String histItemFilterQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
             String simpleName, ZoneId timeZone) {
         logger.debug(
@@ -398,6 +533,41 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    protected String histItemDownsampledQueryProvider(FilterCriteria filter, AggregationFunction function,
+            LocalDateTime bucketStart, long bucketSeconds, String table, ZoneId timeZone) {
+        logger.debug("JDBC::histItemDownsampledQueryProvider function = {}, start = {}, bucketSeconds = {}, table = {}",
+                function, bucketStart, bucketSeconds, table);
+
+        String bucket = timeBucketProvider(JDBC_DATE_FORMAT.format(bucketStart), bucketSeconds);
+        String filterString = resolveTimeFilter(filter, timeZone);
+        String ordering = filter.getOrdering() == Ordering.ASCENDING ? " ORDER BY 1 ASC" : " ORDER BY 1 DESC";
+        String queryString;
+        if (function == AggregationFunction.LAST) {
+            // the last value of a bucket is the one with the latest time
+            queryString = "SELECT t.time, t.value FROM " + table + " t INNER JOIN (SELECT MAX(time) AS lasttime FROM "
+                    + table + filterString + " GROUP BY " + bucket + ") b ON t.time = b.lasttime" + ordering;
+        } else {
+            queryString = "SELECT MIN(time), " + function.name() + "(value) FROM " + table + filterString
+                    + " GROUP BY " + bucket + ordering;
+        }
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    protected String histItemFirstTimeQueryProvider(String table) {
+        return "SELECT MIN(time) FROM " + table;
+    }
+
+    /**
+     * Returns an SQL expression which maps the time column to the number of its time bucket
+     *
+     * @param bucketStart the start of the first time bucket, formatted by {@link #JDBC_DATE_FORMAT}
+     * @param bucketSeconds the length of a time bucket in seconds
+     */
+    protected String timeBucketProvider(String bucketStart, long bucketSeconds) {
+        return "FLOOR((UNIX_TIMESTAMP(time) - UNIX_TIMESTAMP('" + bucketStart + "')) / " + bucketSeconds + ")";
+    }
+
     protected String histItemFilterDeleteProvider(FilterCriteria filter, String table, ZoneId timeZone) {
         logger.debug("JDBC::histItemFilterDeleteProvider filter = {}, table = {}", filter, table);
 
@@ -527,6 +697,16 @@ public class JdbcBaseDAO {
         return vo;
     }
 
+    /**
+     * Converts the state into the value to be stored and sets the time of the value, so it can be stored later on by
+     * {@link #doStoreItemValues}.
+     */
+    public ItemVO prepareItemValue(Item item, State itemState, ItemVO vo, ZonedDateTime date) {
+        ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
+        storedVO.setTime(Date.from(date.toInstant()));
+        return storedVO;
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
@@ -563,6 +743,48 @@ public class JdbcBaseDAO {
         }
     }
 
+    /**
+     * AVG, MIN and MAX can only be applied to numeric value columns. Of the item tables, only the ones of number,
+     * dimmer and rollershutter items have a numeric value column, see {@link #storeItemValueProvider}.
+     */
+    protected boolean hasNumericValueColumn(Item item) {
+        switch (getItemType(item)) {
+            case "NUMBERITEM":
+            case "DIMMERITEM":
+            case "ROLLERSHUTTERITEM":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Converts the result of AVG, MIN or MAX into the type {@link #objectAsState} expects for the item, as the
+     * databases may return a different type than the one of the value column.
+     */
+    protected Object aggregatedValueAsObject(Item item, Object v) {
+        if (!(v instanceof Number) || !hasNumericValueColumn(item)) {
+            return v;
+        }
+        Number number = (Number) v;
+        if (item instanceof NumberItem) {
+            String it = getSqlTypes().get("NUMBERITEM").toUpperCase();
+            if (it.contains("DOUBLE")) {
+                return number.doubleValue();
+            } else if (it.contains("DECIMAL") || it.contains("NUMERIC")) {
+                return v instanceof BigDecimal ? v : new BigDecimal(number.toString());
+            } else if (it.contains("INT")) {
+                return (int) Math.round(number.doubleValue());
+            }
+            return number.toString();
+        }
+        return (int) Math.round(number.doubleValue());
+    }
+
+    protected Object timestampAsObject(ItemVO vo) {
+        return new java.sql.Timestamp(vo.getTime().getTime());
+    }
+
     protected ZonedDateTime objectAsDate(Object v) {
         if (v instanceof java.lang.String) {
             return ZonedDateTime.ofInstant(java.sql.Timestamp.valueOf(v.toString()).toInstant(),
@@ -12,6 +12,7 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,13 +20,14 @@ import java.util.stream.Collectors;
 import javax.measure.Quantity;
 import javax.measure.Unit;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.knowm.yank.Yank;
 import org.openhab.core.items.Item;
 import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
-import org.openhab.core.types.State;
+import org.openhab.persistence.jdbc.dto.AggregationFunction;
 import org.openhab.persistence.jdbc.dto.ItemVO;
 import org.openhab.persistence.jdbc.dto.ItemsVO;
 import org.openhab.persistence.jdbc.dto.JdbcHistoricItem;
@@ -79,6 +81,9 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
      * INFO: https://github.com/brettwooldridge/HikariCP
      */
     private void initDbProps() {
+        // the paging clause of Derby isn't supported, so queries are always fully loaded
+        maxFetchSize = 0;
+
         // Properties for HikariCP
         // Use driverClassName
         databaseProps.setProperty("driverClassName", "org.apache.derby.jdbc.EmbeddedDriver");
@@ -149,15 +154,15 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
     }
 
     @Override
-    public void doStoreItemValue(Item item, State itemState, ItemVO vo) {
-        ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+    protected String insertItemValueSqlProvider(String tableName, String dbType, boolean withTime) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
                 new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName().toUpperCase(), storedVO.getDbType(),
-                        sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { storedVO.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
-        Yank.execute(sql, params);
+                new String[] { tableName.toUpperCase(), dbType, withTime ? "?" : sqlTypes.get("tablePrimaryValue") });
+    }
+
+    @Override
+    protected Object[] insertItemValueParams(ItemVO vo, @Nullable Object timestamp) {
+        return timestamp == null ? new Object[] { vo.getValue() } : new Object[] { timestamp, vo.getValue() };
     }
 
     @Override
@@ -235,6 +240,23 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         return queryString;
     }
 
+    @Override
+    protected String histItemDownsampledQueryProvider(FilterCriteria filter, AggregationFunction function,
+            LocalDateTime bucketStart, long bucketSeconds, String table, ZoneId timeZone) {
+        return super.histItemDownsampledQueryProvider(filter, function, bucketStart, bucketSeconds,
+                table.toUpperCase(), timeZone);
+    }
+
+    @Override
+    protected String histItemFirstTimeQueryProvider(String table) {
+        return super.histItemFirstTimeQueryProvider(table.toUpperCase());
+    }
+
+    @Override
+    protected String timeBucketProvider(String bucketStart, long bucketSeconds) {
+        return "({fn TIMESTAMPDIFF(SQL_TSI_SECOND, TIMESTAMP('" + bucketStart + "'), time)} / " + bucketSeconds + ")";
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
@@ -12,9 +12,7 @@
  */
 package org.openhab.persistence.jdbc.db;
 
-import org.knowm.yank.Yank;
-import org.openhab.core.items.Item;
-import org.openhab.core.types.State;
+import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.persistence.jdbc.dto.ItemVO;
 import org.openhab.persistence.jdbc.utils.StringUtilsExt;
 import org.slf4j.Logger;
@@ -72,20 +70,26 @@ public class JdbcH2DAO extends JdbcBaseDAO {
      * ITEM DAOs *
      *************/
     @Override
-    public void doStoreItemValue(Item item, State itemState, ItemVO vo) {
-        ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+    protected String insertItemValueSqlProvider(String tableName, String dbType, boolean withTime) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
                 new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
-                new String[] { storedVO.getTableName(), storedVO.getDbType(), sqlTypes.get("tablePrimaryValue") });
-        Object[] params = new Object[] { storedVO.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} value='{}'", sql, storedVO.getValue());
-        Yank.execute(sql, params);
+                new String[] { tableName, dbType, withTime ? "?" : sqlTypes.get("tablePrimaryValue") });
+    }
+
+    @Override
+    protected Object[] insertItemValueParams(ItemVO vo, @Nullable Object timestamp) {
+        return timestamp == null ? new Object[] { vo.getValue() } : new Object[] { timestamp, vo.getValue() };
     }
 
     /****************************
      * SQL generation Providers *
      ****************************/
 
+    @Override
+    protected String timeBucketProvider(String bucketStart, long bucketSeconds) {
+        return "FLOOR(DATEDIFF('SECOND', TIMESTAMP '" + bucketStart + "', time) / " + bucketSeconds + ")";
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
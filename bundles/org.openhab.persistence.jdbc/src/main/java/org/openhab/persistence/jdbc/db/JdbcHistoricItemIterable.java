@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.measure.Quantity;
+import javax.measure.Unit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.items.Item;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jdbc.dto.JdbcHistoricItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link JdbcHistoricItemIterable} streams the result of a filter query. The rows are fetched in pages of
+ * <code>fetchSize</code> rows and converted while iterating, so only one page is held in memory at a time.
+ *
+ * The pages are selected by the time of the last returned row instead of an offset, so each page is a short query of
+ * its own and no database connection is held while the caller iterates. Each call of {@link #iterator()} runs the
+ * query again.
+ *
+ * The time is the primary key of an item table, so a row is identified by its time. The time filter of the queries
+ * only has a resolution of seconds, so every page starts up to one second before the last returned row and the rows
+ * which have already been returned are skipped.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcHistoricItemIterable implements Iterable<HistoricItem> {
+
+    private final Logger logger = LoggerFactory.getLogger(JdbcHistoricItemIterable.class);
+
+    private final JdbcBaseDAO dao;
+    private final Item item;
+    private final FilterCriteria filter;
+    private final int numberDecimalcount;
+    private final String table;
+    private final String name;
+    private final ZoneId timeZone;
+    private final int fetchSize;
+
+    JdbcHistoricItemIterable(JdbcBaseDAO dao, Item item, FilterCriteria filter, int numberDecimalcount, String table,
+            String name, ZoneId timeZone, int fetchSize) {
+        this.dao = dao;
+        this.item = item;
+        this.filter = filter;
+        this.numberDecimalcount = numberDecimalcount;
+        this.table = table;
+        this.name = name;
+        this.timeZone = timeZone;
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new PageIterator();
+    }
+
+    private class PageIterator implements Iterator<HistoricItem> {
+        private final boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+        private final String itemName = item.getName();
+        // we already retrieve the unit here once as it is a very costly operation
+        private final @Nullable Unit<? extends Quantity<?>> unit = item instanceof NumberItem
+                ? ((NumberItem) item).getUnit()
+                : null;
+
+        private Iterator<HistoricItem> page = Collections.emptyIterator();
+        private @Nullable ZonedDateTime lastTime;
+        private int pageSize = fetchSize;
+        private boolean exhausted = false;
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !exhausted) {
+                fetchPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public HistoricItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        private void fetchPage() {
+            List<Object[]> m = dao.doGetHistItemFilterRows(pageFilter(), numberDecimalcount, table, name, timeZone);
+            if (m == null) {
+                logger.warn("JDBC::JdbcHistoricItemIterable: query for item '{}' failed, result is incomplete",
+                        itemName);
+                exhausted = true;
+                return;
+            }
+            exhausted = m.size() < pageSize;
+
+            // skip the rows of the widened time filter which have already been returned
+            ZonedDateTime last = lastTime;
+            List<HistoricItem> items = new ArrayList<>(m.size());
+            for (Object[] o : m) {
+                ZonedDateTime time = dao.objectAsDate(o[0]);
+                if (last != null && (ascending ? !time.isAfter(last) : !time.isBefore(last))) {
+                    continue;
+                }
+                items.add(new JdbcHistoricItem(itemName, dao.objectAsState(item, unit, o[1]), time));
+                last = time;
+            }
+            if (items.isEmpty() && !exhausted) {
+                // a whole page within one second, so the next page has to be larger to make progress
+                pageSize *= 2;
+            } else {
+                pageSize = fetchSize;
+            }
+            lastTime = last;
+            page = items.iterator();
+        }
+
+        private FilterCriteria pageFilter() {
+            FilterCriteria pageFilter = new FilterCriteria();
+            String filterItemName = filter.getItemName();
+            if (filterItemName != null) {
+                pageFilter.setItemName(filterItemName);
+            }
+            pageFilter.setOrdering(filter.getOrdering());
+            pageFilter.setBeginDate(filter.getBeginDate());
+            pageFilter.setEndDate(filter.getEndDate());
+            pageFilter.setPageNumber(0);
+            pageFilter.setPageSize(pageSize);
+
+            ZonedDateTime last = lastTime;
+            if (last != null) {
+                // continue after the last returned row, widened to whole seconds of the time filter
+                if (ascending) {
+                    ZonedDateTime begin = last.minusSeconds(1);
+                    ZonedDateTime beginDate = filter.getBeginDate();
+                    if (beginDate == null || begin.isAfter(beginDate)) {
+                        pageFilter.setBeginDate(begin);
+                    }
+                } else {
+                    ZonedDateTime end = last.plusSeconds(1);
+                    ZonedDateTime endDate = filter.getEndDate();
+                    if (endDate == null || end.isBefore(endDate)) {
+                        pageFilter.setEndDate(end);
+                    }
+                }
+            }
+            return pageFilter;
+        }
+    }
+}
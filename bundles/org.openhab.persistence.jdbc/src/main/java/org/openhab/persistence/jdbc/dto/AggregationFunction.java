@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.dto;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The SQL aggregate applied to the value column of every time bucket of a downsampled query. The names of
+ * {@link #AVG}, {@link #MIN} and {@link #MAX} are used as SQL functions. SQL has no portable aggregate for the last
+ * value, so {@link #LAST} selects the row with the latest time of each bucket instead.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public enum AggregationFunction {
+    AVG,
+    MIN,
+    MAX,
+    LAST
+}
@@ -60,6 +60,13 @@ public class JdbcConfiguration {
 
     private int errReconnectThreshold = 0;
 
+    private boolean writeBehind = false;
+    private int writeQueueSize = 10000;
+    private int writeBatchSize = 100;
+    private int writeMaxLatency = 1000;
+    private JdbcWriteBehindQueue.OverflowPolicy writeOverflowPolicy = JdbcWriteBehindQueue.OverflowPolicy.BLOCK;
+    private int queryFetchSize = 0;
+
     public int timerCount = 0;
     public int time1000Statements = 0;
     public long timer1000 = 0;
@@ -173,6 +180,48 @@ public class JdbcConfiguration {
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
 
+        String wb = (String) configuration.get("writeBehind");
+        if (wb != null && !wb.isBlank()) {
+            writeBehind = Boolean.parseBoolean(wb);
+            logger.debug("JDBC::updateConfig: writeBehind={}", writeBehind);
+        }
+
+        String wq = (String) configuration.get("writeQueueSize");
+        if (wq != null && !wq.isBlank() && isNumericPattern.matcher(wq).matches()) {
+            writeQueueSize = Integer.parseInt(wq);
+            logger.debug("JDBC::updateConfig: writeQueueSize={}", writeQueueSize);
+        }
+
+        String ws = (String) configuration.get("writeBatchSize");
+        if (ws != null && !ws.isBlank() && isNumericPattern.matcher(ws).matches()) {
+            writeBatchSize = Integer.parseInt(ws);
+            logger.debug("JDBC::updateConfig: writeBatchSize={}", writeBatchSize);
+        }
+
+        String wl = (String) configuration.get("writeMaxLatency");
+        if (wl != null && !wl.isBlank() && isNumericPattern.matcher(wl).matches()) {
+            writeMaxLatency = Integer.parseInt(wl);
+            logger.debug("JDBC::updateConfig: writeMaxLatency={}", writeMaxLatency);
+        }
+
+        String wo = (String) configuration.get("writeOverflowPolicy");
+        if (wo != null && !wo.isBlank()) {
+            JdbcWriteBehindQueue.OverflowPolicy policy = JdbcWriteBehindQueue.OverflowPolicy.fromConfig(wo.trim());
+            if (policy != null) {
+                writeOverflowPolicy = policy;
+            } else {
+                logger.warn("JDBC::updateConfig: unknown writeOverflowPolicy '{}', using '{}'", wo,
+                        writeOverflowPolicy);
+            }
+            logger.debug("JDBC::updateConfig: writeOverflowPolicy={}", writeOverflowPolicy);
+        }
+
+        String qf = (String) configuration.get("queryFetchSize");
+        if (qf != null && !qf.isBlank() && isNumericPattern.matcher(qf).matches()) {
+            queryFetchSize = Integer.parseInt(qf);
+            logger.debug("JDBC::updateConfig: queryFetchSize={}", queryFetchSize);
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (ac != null && !ac.isBlank()) {
@@ -358,6 +407,33 @@ public class JdbcConfiguration {
         return tableIdDigitCount;
     }
 
+    public boolean getWriteBehind() {
+        return writeBehind;
+    }
+
+    public int getWriteQueueSize() {
+        return writeQueueSize;
+    }
+
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public int getWriteMaxLatency() {
+        return writeMaxLatency;
+    }
+
+    public JdbcWriteBehindQueue.OverflowPolicy getWriteOverflowPolicy() {
+        return writeOverflowPolicy;
+    }
+
+    /**
+     * Get the configured fetch size of streaming queries or -1 if the default of the database is used
+     */
+    public int getQueryFetchSize() {
+        return queryFetchSize;
+    }
+
     public JdbcBaseDAO getDBDAO() {
         return dBDAO;
     }
@@ -28,6 +28,8 @@ import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
 import org.openhab.core.types.State;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.dto.AggregationFunction;
 import org.openhab.persistence.jdbc.dto.ItemVO;
 import org.openhab.persistence.jdbc.dto.ItemsVO;
 import org.openhab.persistence.jdbc.dto.JdbcPersistenceItemInfo;
@@ -48,7 +50,9 @@ public class JdbcMapper {
     protected int errCnt;
     protected boolean initialized = false;
     protected JdbcConfiguration conf = null;
-    protected final Map<String, String> sqlTables = new HashMap<>();
+    // immutable index of item names to table names, it is replaced as a whole so it can be read without locking
+    protected volatile Map<String, String> sqlTables = Map.of();
+    protected volatile @Nullable JdbcWriteBehindQueue writeBehindQueue;
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
     private static final String ITEM_NAME_PATTERN = "[^a-zA-Z_0-9\\-]";
@@ -156,7 +160,16 @@ public class JdbcMapper {
             return item;
         }
         long timerStart = System.currentTimeMillis();
-        if (date == null) {
+        JdbcWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            // the time is taken now, as the value may be written considerably later
+            ItemVO vo = conf.getDBDAO().prepareItemValue(item, itemState, new ItemVO(tableName, null),
+                    date == null ? ZonedDateTime.now() : date);
+            if (!queue.offer(vo)) {
+                logger.debug("JDBC::storeItemValue: write queue is full, discarded state '{}' of item '{}'",
+                        itemState, item.getName());
+            }
+        } else if (date == null) {
             conf.getDBDAO().doStoreItemValue(item, itemState, new ItemVO(tableName, null));
         } else {
             conf.getDBDAO().doStoreItemValue(item, itemState, new ItemVO(tableName, null), date);
@@ -184,6 +197,36 @@ public class JdbcMapper {
         return null;
     }
 
+    /**
+     * Returns the result of a filter query which is fetched while it is iterated, or <code>null</code> if streaming
+     * queries are disabled or the database doesn't support them.
+     */
+    public @Nullable Iterable<HistoricItem> getHistItemFilterQueryIterable(FilterCriteria filter,
+            int numberDecimalcount, String table, Item item) {
+        JdbcBaseDAO dao = conf.getDBDAO();
+        int fetchSize = dao.getFetchSize(conf.getQueryFetchSize());
+        if (fetchSize <= 0) {
+            return null;
+        }
+        logger.debug("JDBC::getHistItemFilterQueryIterable fetchSize='{}' table='{}' itemName='{}'", fetchSize, table,
+                item.getName());
+        errCnt = 0;
+        return dao.doGetHistItemFilterQueryIterable(item, filter, numberDecimalcount, table, item.getName(),
+                timeZoneProvider.getTimeZone(), fetchSize);
+    }
+
+    public List<HistoricItem> getHistItemDownsampledQuery(FilterCriteria filter, int maxPoints,
+            AggregationFunction function, String table, Item item) {
+        logger.debug("JDBC::getHistItemDownsampledQuery maxPoints='{}' function='{}' table='{}' itemName='{}'",
+                maxPoints, function, table, item.getName());
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> result = conf.getDBDAO().doGetHistItemDownsampledQuery(item, filter, maxPoints, function,
+                table, timeZoneProvider.getTimeZone());
+        logTime("getHistItemDownsampledQuery", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
     @SuppressWarnings("null")
     public boolean deleteItemValues(FilterCriteria filter, String table) {
         logger.debug("JDBC::deleteItemValues filter='{}' table='{}' itemName='{}'", (filter != null), table,
@@ -225,6 +268,27 @@ public class JdbcMapper {
         conf.setDbConnected(false);
     }
 
+    protected void startWriteBehind() {
+        if (conf.getWriteBehind()) {
+            logger.debug("JDBC::startWriteBehind: queueSize={} batchSize={} maxLatency={} overflowPolicy={}",
+                    conf.getWriteQueueSize(), conf.getWriteBatchSize(), conf.getWriteMaxLatency(),
+                    conf.getWriteOverflowPolicy());
+            writeBehindQueue = new JdbcWriteBehindQueue(conf.getDBDAO(), conf.getWriteQueueSize(),
+                    conf.getWriteBatchSize(), conf.getWriteMaxLatency(), conf.getWriteOverflowPolicy());
+        }
+    }
+
+    protected void stopWriteBehind() {
+        JdbcWriteBehindQueue queue = writeBehindQueue;
+        if (queue != null) {
+            writeBehindQueue = null;
+            logger.debug("JDBC::stopWriteBehind: storing {} pending values", queue.getQueueDepth());
+            queue.close();
+            logger.debug("JDBC::stopWriteBehind: written={} retries={} dropped={}", queue.getWrittenCount(),
+                    queue.getRetryCount(), queue.getDroppedCount());
+        }
+    }
+
     protected boolean checkDBAccessability() {
         // Check if connection is valid
         if (initialized) {
@@ -256,13 +320,25 @@ public class JdbcMapper {
         } else {
             // Reset the error counter
             errCnt = 0;
+            Map<String, String> tables = new HashMap<>();
             for (ItemsVO vo : getItemIDTableNames()) {
-                sqlTables.put(vo.getItemname(), getTableName(vo.getItemid(), vo.getItemname()));
+                tables.put(vo.getItemname(), getTableName(vo.getItemid(), vo.getItemname()));
             }
+            sqlTables = Map.copyOf(tables);
         }
     }
 
     protected String getTable(Item item) {
+        String tableName = sqlTables.get(item.getName());
+
+        // Table already exists - return the name
+        if (tableName != null) {
+            return tableName;
+        }
+        return createTable(item);
+    }
+
+    private synchronized String createTable(Item item) {
         int rowId = 0;
         ItemsVO isvo;
         ItemVO ivo;
@@ -270,7 +346,7 @@ public class JdbcMapper {
         String itemName = item.getName();
         String tableName = sqlTables.get(itemName);
 
-        // Table already exists - return the name
+        // Table has been created by another thread in the meantime
         if (tableName != null) {
             return tableName;
         }
@@ -302,7 +378,7 @@ public class JdbcMapper {
         ivo = createItemTable(ivo);
         logger.debug("JDBC::getTable: Table created for item '{}' with dataType {} in SQL database.", itemName,
                 dataType);
-        sqlTables.put(itemName, tableName);
+        putTableName(itemName, tableName);
 
         // Check if the new entry is in the table list
         // If it's not in the list, then there was an error and we need to do
@@ -325,13 +401,15 @@ public class JdbcMapper {
         }
 
         Map<Integer, String> tableIds = new HashMap<>();
+        Map<String, String> tables = new HashMap<>(sqlTables);
 
         //
         for (ItemsVO vo : getItemIDTableNames()) {
             String t = getTableName(vo.getItemid(), vo.getItemname());
-            sqlTables.put(vo.getItemname(), t);
+            tables.put(vo.getItemname(), t);
             tableIds.put(vo.getItemid(), t);
         }
+        sqlTables = Map.copyOf(tables);
 
         //
         List<ItemsVO> al = getItemTables();
@@ -377,6 +455,12 @@ public class JdbcMapper {
         initialized = tmpinit;
     }
 
+    private synchronized void putTableName(String itemName, String tableName) {
+        Map<String, String> tables = new HashMap<>(sqlTables);
+        tables.put(itemName, tableName);
+        sqlTables = Map.copyOf(tables);
+    }
+
     private String getTableName(int rowId, String itemName) {
         return getTableNamePrefix(itemName) + formatRight(rowId, conf.getTableIdDigitCount());
     }
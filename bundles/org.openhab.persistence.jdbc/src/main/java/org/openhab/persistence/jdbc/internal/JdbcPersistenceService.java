@@ -36,6 +36,7 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.openhab.persistence.jdbc.dto.AggregationFunction;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
@@ -110,6 +111,7 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
         // closeConnection();
+        stopWriteBehind();
         initialized = false;
     }
 
@@ -180,38 +182,27 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
             return List.of();
         }
 
-        // Get the item name from the filter
-        // Also get the Item object so we can determine the type
-        Item item = null;
         String itemName = filter.getItemName();
-        logger.debug("JDBC::query: item is {}", itemName);
-        try {
-            item = itemRegistry.getItem(itemName);
-        } catch (ItemNotFoundException e1) {
-            logger.error("JDBC::query: unable to get item for itemName: '{}'. Ignore and give up!", itemName);
+        Item item = getQueryItem(itemName);
+        if (item == null) {
             return List.of();
         }
 
-        if (item instanceof GroupItem) {
-            // For Group Item is BaseItem needed to get correct Type of Value.
-            item = GroupItem.class.cast(item).getBaseItem();
-            logger.debug("JDBC::query: item is instanceof GroupItem '{}'", itemName);
-            if (item == null) {
-                logger.debug("JDBC::query: BaseItem of GroupItem is null. Ignore and give up!");
-                return List.of();
-            }
-            if (item instanceof GroupItem) {
-                logger.debug("JDBC::query: BaseItem of GroupItem is a GroupItem too. Ignore and give up!");
-                return List.of();
-            }
-        }
-
         String table = sqlTables.get(itemName);
         if (table == null) {
             logger.debug("JDBC::query: unable to find table for item with name: '{}', no data in database.", itemName);
             return List.of();
         }
 
+        if (filter.getPageSize() == Integer.MAX_VALUE) {
+            // unpaged queries may return the whole history of an item, so the rows are fetched while iterating
+            Iterable<HistoricItem> result = getHistItemFilterQueryIterable(filter, conf.getNumberDecimalcount(),
+                    table, item);
+            if (result != null) {
+                return result;
+            }
+        }
+
         long timerStart = System.currentTimeMillis();
         List<HistoricItem> items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
         if (logger.isDebugEnabled()) {
@@ -224,12 +215,86 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
         return items;
     }
 
+    /**
+     * Queries the {@link PersistenceService} for data with a given filter criteria, downsampled by the database.
+     *
+     * The time range of the filter is divided into at most <code>maxPoints</code> buckets of equal length and the
+     * values of each bucket are aggregated into one value. Paging settings of the filter are ignored.
+     *
+     * @param filter
+     *            the filter to apply to the query
+     * @param maxPoints
+     *            the maximum number of returned values
+     * @param function
+     *            the aggregation function, values of non-numeric items are always aggregated by
+     *            {@link AggregationFunction#LAST}
+     * @return a time series of items
+     */
+    public Iterable<HistoricItem> query(FilterCriteria filter, int maxPoints, AggregationFunction function) {
+        if (!checkDBAccessability()) {
+            logger.warn("JDBC::query: database not connected, query aborted for item '{}'", filter.getItemName());
+            return List.of();
+        }
+
+        String itemName = filter.getItemName();
+        Item item = getQueryItem(itemName);
+        if (item == null) {
+            return List.of();
+        }
+
+        String table = sqlTables.get(itemName);
+        if (table == null) {
+            logger.debug("JDBC::query: unable to find table for item with name: '{}', no data in database.", itemName);
+            return List.of();
+        }
+
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> items = getHistItemDownsampledQuery(filter, maxPoints, function, table, item);
+        if (logger.isDebugEnabled()) {
+            logger.debug("JDBC: Downsampled query for item '{}' returned {} rows in {} ms", itemName, items.size(),
+                    System.currentTimeMillis() - timerStart);
+        }
+        return items;
+    }
+
+    /**
+     * Get the item object for a query, so the type of the values can be determined. For group items the base item is
+     * returned.
+     */
+    private @Nullable Item getQueryItem(@Nullable String itemName) {
+        Item item = null;
+        logger.debug("JDBC::query: item is {}", itemName);
+        try {
+            item = itemRegistry.getItem(itemName);
+        } catch (ItemNotFoundException e1) {
+            logger.error("JDBC::query: unable to get item for itemName: '{}'. Ignore and give up!", itemName);
+            return null;
+        }
+
+        if (item instanceof GroupItem) {
+            // For Group Item is BaseItem needed to get correct Type of Value.
+            item = GroupItem.class.cast(item).getBaseItem();
+            logger.debug("JDBC::query: item is instanceof GroupItem '{}'", itemName);
+            if (item == null) {
+                logger.debug("JDBC::query: BaseItem of GroupItem is null. Ignore and give up!");
+                return null;
+            }
+            if (item instanceof GroupItem) {
+                logger.debug("JDBC::query: BaseItem of GroupItem is a GroupItem too. Ignore and give up!");
+                return null;
+            }
+        }
+        return item;
+    }
+
     public void updateConfig(Map<Object, Object> configuration) {
         logger.debug("JDBC::updateConfig");
 
+        stopWriteBehind();
         conf = new JdbcConfiguration(configuration);
         if (conf.valid && checkDBAccessability()) {
             checkDBSchema();
+            startWriteBehind();
             // connection has been established ... initialization completed!
             initialized = true;
         } else {
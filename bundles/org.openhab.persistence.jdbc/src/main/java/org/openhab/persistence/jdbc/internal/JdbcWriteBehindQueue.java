@@ -0,0 +1,315 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.dto.ItemVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link JdbcWriteBehindQueue} buffers prepared item values in a bounded queue. A writer thread drains the queue
+ * at least every <code>maxLatency</code> milliseconds, or as soon as <code>batchSize</code> values are pending, and
+ * stores the values with one JDBC batch per item table.
+ *
+ * A batch which cannot be stored, e.g. because the connection was lost, is retried by the following flushes. The
+ * queue is not drained while a batch is waiting for its retry, so the overflow policy applies during longer outages.
+ * When the last attempt fails, the values of the batch are stored one by one, so a single value the database rejects
+ * does not discard the whole batch.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcWriteBehindQueue {
+
+    /**
+     * Defines what happens to a value that is stored while the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** wait until the writer has made room in the queue */
+        BLOCK,
+        /** discard the value that is stored */
+        DROP_NEWEST,
+        /** discard the oldest pending value to make room */
+        DROP_OLDEST;
+
+        public static @Nullable OverflowPolicy fromConfig(String value) {
+            switch (value.toLowerCase()) {
+                case "block":
+                    return BLOCK;
+                case "dropnewest":
+                    return DROP_NEWEST;
+                case "dropoldest":
+                    return DROP_OLDEST;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Number of times storing a batch is tried before its values are discarded
+     */
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final Logger logger = LoggerFactory.getLogger(JdbcWriteBehindQueue.class);
+
+    private final JdbcBaseDAO dao;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<ItemVO> queue;
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("jdbc");
+    private final ScheduledFuture<?> flushJob;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    // batches which could not be stored yet, only accessed by flush()
+    private final List<FailedBatch> failedBatches = new ArrayList<>();
+
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private long lastOverflowCount = 0;
+
+    /**
+     * Create a new queue and schedule its writer
+     *
+     * @param dao the DAO used for storing the values
+     * @param capacity maximum number of pending values
+     * @param batchSize maximum number of values that are written at once
+     * @param maxLatency maximum time in milliseconds a value is pending before the queue is drained
+     * @param overflowPolicy what to do if the queue is full
+     */
+    public JdbcWriteBehindQueue(JdbcBaseDAO dao, int capacity, int batchSize, long maxLatency,
+            OverflowPolicy overflowPolicy) {
+        this.dao = dao;
+        this.batchSize = Math.max(1, batchSize);
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        long delay = Math.max(1, maxLatency);
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Add a value to the queue. The value has to be prepared by {@link JdbcBaseDAO#prepareItemValue}, i.e. it must
+     * contain the table name, the value and the time.
+     *
+     * @param vo the value to store
+     * @return <code>false</code> if the value was discarded
+     */
+    public boolean offer(ItemVO vo) {
+        if (closed) {
+            return false;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(vo);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    overflowCount.incrementAndGet();
+                    return false;
+                }
+                break;
+            case DROP_NEWEST:
+                if (!queue.offer(vo)) {
+                    overflowCount.incrementAndGet();
+                    return false;
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(vo)) {
+                    if (queue.poll() != null) {
+                        overflowCount.incrementAndGet();
+                    }
+                }
+                break;
+        }
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Stop the writer and store all pending values
+     */
+    public void close() {
+        closed = true;
+        flushJob.cancel(false);
+        // waits for a running flush
+        flush();
+        synchronized (this) {
+            int lost = queue.size();
+            for (FailedBatch batch : failedBatches) {
+                lost += batch.rows.size();
+            }
+            if (lost > 0) {
+                discardedCount.addAndGet(lost);
+                logger.warn("JDBC::close: database is not available, {} values could not be stored", lost);
+            }
+            failedBatches.clear();
+            queue.clear();
+        }
+    }
+
+    /**
+     * Get the number of values which are waiting to be stored
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Get the number of values which were discarded, either because the queue was full or because they could not be
+     * stored
+     */
+    public long getDroppedCount() {
+        return overflowCount.get() + discardedCount.get();
+    }
+
+    /**
+     * Get the number of times a failed batch was tried again
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Get the number of values which were stored
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    private synchronized void flush() {
+        flushRequested.set(false);
+        long timerStart = System.currentTimeMillis();
+        int written = retryFailedBatches();
+        List<ItemVO> pending = new ArrayList<>(batchSize);
+        while (failedBatches.isEmpty() && queue.drainTo(pending, batchSize) > 0) {
+            written += write(pending);
+            pending.clear();
+        }
+
+        long overflows = overflowCount.get();
+        if (overflows != lastOverflowCount) {
+            logger.warn("JDBC::flush: write queue was full, discarded {} values since last flush",
+                    overflows - lastOverflowCount);
+            lastOverflowCount = overflows;
+        }
+        if (written > 0 && logger.isDebugEnabled()) {
+            logger.debug("JDBC::flush: stored {} values in {} ms, depth={}, written={}, retries={}, dropped={}",
+                    written, System.currentTimeMillis() - timerStart, queue.size(), writtenCount.get(),
+                    retryCount.get(), getDroppedCount());
+        }
+    }
+
+    private int retryFailedBatches() {
+        int written = 0;
+        Iterator<FailedBatch> iterator = failedBatches.iterator();
+        while (iterator.hasNext()) {
+            FailedBatch batch = iterator.next();
+            retryCount.incrementAndGet();
+            if (store(batch.rows)) {
+                iterator.remove();
+                written += batch.rows.size();
+            } else if (++batch.attempts >= MAX_ATTEMPTS) {
+                iterator.remove();
+                int stored = storeOneByOne(batch.rows);
+                written += stored;
+                int lost = batch.rows.size() - stored;
+                if (lost > 0) {
+                    discardedCount.addAndGet(lost);
+                    logger.warn("JDBC::flush: failed to store {} of {} values in table '{}', discarding them", lost,
+                            batch.rows.size(), batch.tableName);
+                }
+            } else {
+                // the database is still not available, later batches are retried with the next flush
+                break;
+            }
+        }
+        return written;
+    }
+
+    private int write(List<ItemVO> pending) {
+        // group by table, a later value for the same time replaces an earlier one like the MySQL upsert does
+        Map<String, Map<Long, ItemVO>> tables = new LinkedHashMap<>();
+        for (ItemVO vo : pending) {
+            tables.computeIfAbsent(vo.getTableName(), t -> new LinkedHashMap<>()).put(vo.getTime().getTime(), vo);
+        }
+        int written = 0;
+        for (Map.Entry<String, Map<Long, ItemVO>> table : tables.entrySet()) {
+            List<ItemVO> rows = new ArrayList<>(table.getValue().values());
+            if (store(rows)) {
+                written += rows.size();
+            } else {
+                logger.debug("JDBC::flush: failed to store {} values in table '{}', retrying with the next flush",
+                        rows.size(), table.getKey());
+                failedBatches.add(new FailedBatch(table.getKey(), rows));
+            }
+        }
+        return written;
+    }
+
+    private int storeOneByOne(List<ItemVO> rows) {
+        int stored = 0;
+        for (ItemVO row : rows) {
+            if (store(List.of(row))) {
+                stored++;
+            }
+        }
+        return stored;
+    }
+
+    private boolean store(List<ItemVO> rows) {
+        try {
+            if (dao.doStoreItemValues(rows)) {
+                writtenCount.addAndGet(rows.size());
+                return true;
+            }
+        } catch (RuntimeException e) {
+            logger.debug("JDBC::flush: storing values failed: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private static class FailedBatch {
+        private final String tableName;
+        private final List<ItemVO> rows;
+        private int attempts = 1;
+
+        private FailedBatch(String tableName, List<ItemVO> rows) {
+            this.tableName = tableName;
+            this.rows = rows;
+        }
+    }
+}
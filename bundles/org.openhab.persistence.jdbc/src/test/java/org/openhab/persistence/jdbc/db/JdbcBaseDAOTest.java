@@ -13,9 +13,11 @@
 package org.openhab.persistence.jdbc.db;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -53,6 +55,8 @@ import org.openhab.core.library.unit.SIUnits;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.types.State;
+import org.openhab.persistence.jdbc.dto.AggregationFunction;
+import org.openhab.persistence.jdbc.dto.ItemVO;
 
 /**
  * Tests the {@link JdbcBaseDAO}.
@@ -216,6 +220,99 @@ public class JdbcBaseDAOTest {
                 + " AND TIME<'" + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getEndDate()) + "'"));
     }
 
+    @Test
+    public void testGetInsertItemValueSqlReturnsInsertQueryWithDatabaseTime() {
+        ItemVO vo = new ItemVO(DB_TABLE_NAME, null);
+
+        String sql = jdbcBaseDAO.getInsertItemValueSql(vo, false);
+        assertThat(sql, is("INSERT INTO " + DB_TABLE_NAME
+                + " (TIME, VALUE) VALUES( NOW(), ? ) ON DUPLICATE KEY UPDATE VALUE= ?"));
+    }
+
+    @Test
+    public void testGetInsertItemValueSqlReturnsInsertQueryWithTimeParameter() {
+        ItemVO vo = new ItemVO(DB_TABLE_NAME, null);
+
+        String sql = jdbcBaseDAO.getInsertItemValueSql(vo, true);
+        assertThat(sql, is(
+                "INSERT INTO " + DB_TABLE_NAME + " (TIME, VALUE) VALUES( ?, ? ) ON DUPLICATE KEY UPDATE VALUE= ?"));
+        assertThat(jdbcBaseDAO.getInsertItemValueSql(vo, true), is(sameInstance(sql)));
+    }
+
+    @Test
+    public void testGetInsertItemValueSqlReturnsDialectSpecificInsertQuery() {
+        ItemVO vo = new ItemVO(DB_TABLE_NAME, null);
+        vo.setDbType("DOUBLE");
+
+        String sql = new JdbcDerbyDAO().getInsertItemValueSql(vo, true);
+        assertThat(sql, is("INSERT INTO " + DB_TABLE_NAME.toUpperCase()
+                + " (TIME, VALUE) VALUES( ?, CAST( ? as DOUBLE) )"));
+    }
+
+    @Test
+    public void testInsertItemValueParamsStartWithTimestamp() {
+        ItemVO vo = new ItemVO(DB_TABLE_NAME, null);
+        vo.setValue(7.3);
+
+        assertThat(jdbcBaseDAO.insertItemValueParams(vo, null), is(new Object[] { 7.3, 7.3 }));
+        assertThat(jdbcBaseDAO.insertItemValueParams(vo, "time"), is(new Object[] { "time", 7.3, 7.3 }));
+    }
+
+    @Test
+    public void testHistItemDownsampledQueryProviderReturnsAggregatingQuery() {
+        filter.setBeginDate(parseDateTimeString("2022-01-10T15:01:44"));
+        filter.setOrdering(Ordering.ASCENDING);
+
+        String sql = jdbcBaseDAO.histItemDownsampledQueryProvider(filter, AggregationFunction.AVG,
+                LocalDateTime.parse("2022-01-10T15:01:44"), 60, DB_TABLE_NAME, UTC_ZONE_ID);
+        assertThat(sql, is("SELECT MIN(time), AVG(value) FROM " + DB_TABLE_NAME + " WHERE TIME>'"
+                + JdbcBaseDAO.JDBC_DATE_FORMAT.format(filter.getBeginDate())
+                + "' GROUP BY FLOOR((UNIX_TIMESTAMP(time) - UNIX_TIMESTAMP('2022-01-10 15:01:44')) / 60)"
+                + " ORDER BY 1 ASC"));
+    }
+
+    @Test
+    public void testHistItemDownsampledQueryProviderReturnsLastValuePerBucketQuery() {
+        String sql = jdbcBaseDAO.histItemDownsampledQueryProvider(filter, AggregationFunction.LAST,
+                LocalDateTime.parse("2022-01-10T15:01:44"), 3600, DB_TABLE_NAME, UTC_ZONE_ID);
+        assertThat(sql, is("SELECT t.time, t.value FROM " + DB_TABLE_NAME
+                + " t INNER JOIN (SELECT MAX(time) AS lasttime FROM " + DB_TABLE_NAME
+                + " GROUP BY FLOOR((UNIX_TIMESTAMP(time) - UNIX_TIMESTAMP('2022-01-10 15:01:44')) / 3600))"
+                + " b ON t.time = b.lasttime ORDER BY 1 DESC"));
+    }
+
+    @Test
+    public void testBucketSecondsResultInAtMostMaxPointsBuckets() {
+        LocalDateTime begin = LocalDateTime.parse("2022-01-10T15:01:44");
+        for (int maxPoints : new int[] { 1, 7, 10, 100 }) {
+            for (long range : new long[] { 0, 1, 9, 10, 99, 100, 101, 86399, 86400 }) {
+                long bucketSeconds = JdbcBaseDAO.bucketSeconds(begin, begin.plusSeconds(range), maxPoints);
+                // the bucket of a time at the very end of the range is the last one
+                long lastBucket = range / bucketSeconds;
+                assertThat("range " + range + " with " + maxPoints + " points", lastBucket < maxPoints, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void testAggregatedValueAsObjectReturnsTypeExpectedForItem() {
+        assertThat(jdbcBaseDAO.aggregatedValueAsObject(new NumberItem("testNumberItem"), new BigDecimal("7.25")),
+                is((Object) 7.25));
+        assertThat(jdbcBaseDAO.aggregatedValueAsObject(new DimmerItem("testDimmerItem"), new BigDecimal("52.5")),
+                is((Object) 53));
+        assertThat(jdbcBaseDAO.aggregatedValueAsObject(new ColorItem("testColorItem"), "0,0,0"),
+                is((Object) "0,0,0"));
+    }
+
+    @Test
+    public void testGetFetchSizeIsBoundedPerDatabase() {
+        assertThat(jdbcBaseDAO.getFetchSize(-1), is(0));
+        assertThat(jdbcBaseDAO.getFetchSize(0), is(0));
+        assertThat(jdbcBaseDAO.getFetchSize(500), is(500));
+        assertThat(jdbcBaseDAO.getFetchSize(50000), is(10000));
+        assertThat(new JdbcDerbyDAO().getFetchSize(500), is(0));
+    }
+
     private ZonedDateTime parseDateTimeString(String dts) {
         return ZonedDateTime.of(LocalDateTime.parse(dts, DATE_PARSER), UTC_ZONE_ID);
     }
@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.db;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
+
+/**
+ * Tests the {@link JdbcHistoricItemIterable} against an item table held in memory.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcHistoricItemIterableTest {
+
+    private static final Instant START = Instant.parse("2022-03-01T10:00:00Z");
+    private static final ZoneId TIME_ZONE = ZoneId.systemDefault();
+
+    private final InMemoryDAO dao = new InMemoryDAO();
+    private final NumberItem item = new NumberItem("item");
+
+    /**
+     * Answers the filter queries like the database does: the time filter is compared with whole seconds and excludes
+     * its bounds, and the time is the primary key of the table.
+     */
+    private static class InMemoryDAO extends JdbcBaseDAO {
+        private final TreeMap<Instant, Double> rows = new TreeMap<>();
+        private final List<FilterCriteria> queries = new ArrayList<>();
+        private @Nullable Runnable beforeQuery;
+
+        @Override
+        protected @Nullable List<Object[]> doGetHistItemFilterRows(FilterCriteria filter, int numberDecimalcount,
+                String table, String name, ZoneId timeZone) {
+            Runnable runnable = beforeQuery;
+            if (runnable != null) {
+                runnable.run();
+            }
+            queries.add(filter);
+            ZonedDateTime begin = filter.getBeginDate();
+            ZonedDateTime end = filter.getEndDate();
+            Stream<Instant> times = rows.keySet().stream()
+                    .filter(time -> begin == null || time.isAfter(begin.toInstant().truncatedTo(ChronoUnit.SECONDS)))
+                    .filter(time -> end == null || time.isBefore(end.toInstant().truncatedTo(ChronoUnit.SECONDS)));
+            if (filter.getOrdering() == Ordering.DESCENDING) {
+                times = times.sorted(Comparator.reverseOrder());
+            }
+            return times.skip((long) filter.getPageNumber() * filter.getPageSize()).limit(filter.getPageSize())
+                    .map(time -> new Object[] { Timestamp.from(time), rows.get(time) }).collect(Collectors.toList());
+        }
+    }
+
+    private void addRow(Instant time, double value) {
+        dao.rows.put(time, value);
+    }
+
+    private Iterable<HistoricItem> query(Ordering ordering, int fetchSize) {
+        FilterCriteria filter = new FilterCriteria();
+        filter.setItemName(item.getName());
+        filter.setOrdering(ordering);
+        return dao.doGetHistItemFilterQueryIterable(item, filter, -1, "item0001", "NUMBERITEM", TIME_ZONE, fetchSize);
+    }
+
+    private List<Instant> times(Iterable<HistoricItem> result) {
+        List<Instant> times = new ArrayList<>();
+        result.forEach(historicItem -> times.add(historicItem.getTimestamp().toInstant()));
+        return times;
+    }
+
+    private List<Instant> expected(Ordering ordering) {
+        List<Instant> times = new ArrayList<>(dao.rows.keySet());
+        if (ordering == Ordering.DESCENDING) {
+            times.sort(Comparator.reverseOrder());
+        }
+        return times;
+    }
+
+    @Test
+    public void emptyResultRunsOneQuery() {
+        Iterator<HistoricItem> iterator = query(Ordering.ASCENDING, 3).iterator();
+
+        assertThat(iterator.hasNext(), is(false));
+        assertThrows(NoSuchElementException.class, iterator::next);
+        assertThat(dao.queries.size(), is(1));
+    }
+
+    @Test
+    public void allRowsAreReturnedInAscendingOrder() {
+        for (int i = 0; i < 10; i++) {
+            addRow(START.plusSeconds(i), i);
+        }
+
+        assertThat(times(query(Ordering.ASCENDING, 3)), is(expected(Ordering.ASCENDING)));
+        // the pages are limited to the fetch size
+        assertThat(dao.queries.stream().allMatch(query -> query.getPageSize() == 3), is(true));
+    }
+
+    @Test
+    public void allRowsAreReturnedInDescendingOrder() {
+        for (int i = 0; i < 10; i++) {
+            addRow(START.plusSeconds(i), i);
+        }
+
+        assertThat(times(query(Ordering.DESCENDING, 3)), is(expected(Ordering.DESCENDING)));
+    }
+
+    @Test
+    public void valuesAreConvertedToStates() {
+        addRow(START, 1.5);
+
+        HistoricItem historicItem = query(Ordering.ASCENDING, 3).iterator().next();
+
+        assertThat(historicItem.getName(), is("item"));
+        assertThat(historicItem.getState().toString(), is("1.5"));
+    }
+
+    @Test
+    public void manyRowsWithinOneSecondAreReturnedOnce() {
+        // more rows within one second than fit in a page, surrounded by rows in other seconds
+        addRow(START.minusSeconds(1), -1);
+        for (int i = 0; i < 8; i++) {
+            addRow(START.plusMillis(100 * i), i);
+        }
+        addRow(START.plusSeconds(1), 10);
+
+        assertThat(times(query(Ordering.ASCENDING, 3)), is(expected(Ordering.ASCENDING)));
+        assertThat(times(query(Ordering.DESCENDING, 3)), is(expected(Ordering.DESCENDING)));
+        // the pages grow while they only contain rows which have already been returned
+        assertThat(dao.queries.stream().anyMatch(query -> query.getPageSize() > 3), is(true));
+    }
+
+    @Test
+    public void rowWrittenWhileIteratingIsReturnedInAscendingOrder() {
+        for (int i = 0; i < 6; i++) {
+            addRow(START.plusSeconds(i), i);
+        }
+        Iterator<HistoricItem> iterator = query(Ordering.ASCENDING, 3).iterator();
+        List<Instant> times = new ArrayList<>();
+        times.add(iterator.next().getTimestamp().toInstant());
+
+        addRow(START.plusSeconds(10), 10);
+        iterator.forEachRemaining(historicItem -> times.add(historicItem.getTimestamp().toInstant()));
+
+        assertThat(times, is(expected(Ordering.ASCENDING)));
+    }
+
+    @Test
+    public void rowWrittenWhileIteratingIsNotReturnedTwice() {
+        for (int i = 0; i < 6; i++) {
+            addRow(START.plusSeconds(i), i);
+        }
+        // a new value is stored during every page query, after the first rows were returned
+        dao.beforeQuery = () -> {
+            if (!dao.queries.isEmpty()) {
+                addRow(dao.rows.lastKey().plusMillis(10), 0);
+            }
+        };
+
+        List<Instant> times = times(query(Ordering.DESCENDING, 3));
+
+        assertThat(times.stream().distinct().count(), is((long) times.size()));
+        List<Instant> sorted = new ArrayList<>(times);
+        sorted.sort(Comparator.reverseOrder());
+        assertThat(times, is(sorted));
+        // the newer values are not returned, as they are before the cursor in descending order
+        assertThat(times.get(0), is(START.plusSeconds(5)));
+        assertThat(times.size(), is(6));
+    }
+
+    @Test
+    public void iteratingAgainRunsTheQueryAgain() {
+        addRow(START, 1);
+        Iterable<HistoricItem> result = query(Ordering.ASCENDING, 3);
+        times(result);
+        addRow(START.plusSeconds(1), 2);
+
+        assertThat(times(result), is(expected(Ordering.ASCENDING)));
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.test.java.JavaTest;
+import org.openhab.persistence.jdbc.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.dto.ItemVO;
+
+/**
+ * Tests the {@link JdbcWriteBehindQueue}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcWriteBehindQueueTest extends JavaTest {
+
+    private static final long ONE_HOUR = 3600000;
+    private static final String BAD_VALUE = "bad";
+
+    private final List<List<ItemVO>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final JdbcBaseDAO dao = mock(JdbcBaseDAO.class);
+    private final AtomicInteger attempts = new AtomicInteger();
+    private volatile boolean databaseAvailable = true;
+
+    public JdbcWriteBehindQueueTest() {
+        doAnswer(invocation -> {
+            boolean available = databaseAvailable;
+            attempts.incrementAndGet();
+            List<ItemVO> batch = invocation.getArgument(0);
+            // like most databases, one rejected row fails the whole batch
+            if (!available || batch.stream().anyMatch(vo -> BAD_VALUE.equals(vo.getValue()))) {
+                return false;
+            }
+            batches.add(new ArrayList<>(batch));
+            return true;
+        }).when(dao).doStoreItemValues(anyList());
+    }
+
+    @Test
+    public void pendingValuesAreStoredPerTableOnClose() {
+        JdbcWriteBehindQueue queue = new JdbcWriteBehindQueue(dao, 10, 10, ONE_HOUR,
+                JdbcWriteBehindQueue.OverflowPolicy.BLOCK);
+        queue.offer(itemValue("item0001", 1, "1"));
+        queue.offer(itemValue("item0002", 1, "a"));
+        queue.offer(itemValue("item0001", 2, "2"));
+        assertThat(queue.getQueueDepth(), is(3));
+
+        queue.close();
+
+        assertThat(batches.size(), is(2));
+        assertThat(values(batches.get(0)), is(List.of("1", "2")));
+        assertThat(values(batches.get(1)), is(List.of("a")));
+        assertThat(queue.getQueueDepth(), is(0));
+    }
+
+    @Test
+    public void laterValueReplacesValueWithSameTime() {
+        JdbcWriteBehindQueue queue = new JdbcWriteBehindQueue(dao, 10, 10, ONE_HOUR,
+                JdbcWriteBehindQueue.OverflowPolicy.BLOCK);
+        queue.offer(itemValue("item0001", 1, "1"));
+        queue.offer(itemValue("item0001", 1, "2"));
+
+        queue.close();
+
+        assertThat(batches.size(), is(1));
+        assertThat(values(batches.get(0)), is(List.of("2")));
+    }
+
+    @Test
+    public void dropNewestDiscardsNewValuesWhenFull() {
+        JdbcWriteBehindQueue queue = new JdbcWriteBehindQueue(dao, 2, 10, ONE_HOUR,
+                JdbcWriteBehindQueue.OverflowPolicy.DROP_NEWEST);
+        assertThat(queue.offer(itemValue("item0001", 1, "1")), is(true));
+        assertThat(queue.offer(itemValue("item0001", 2, "2")), is(true));
+        assertThat(queue.offer(itemValue("item0001", 3, "3")), is(false));
+
+        queue.close();
+
+        assertThat(values(batches.get(0)), is(List.of("1", "2")));
+        assertThat(queue.getDroppedCount(), is(1L));
+    }
+
+    @Test
+    public void dropOldestDiscardsOldValuesWhenFull() {
+        JdbcWriteBehindQueue queue = new JdbcWriteBehindQueue(dao, 2, 10, ONE_HOUR,
+                JdbcWriteBehindQueue.OverflowPolicy.DROP_OLDEST);
+        assertThat(queue.offer(itemValue("item0001", 1, "1")), is(true));
+        assertThat(queue.offer(itemValue("item0001", 2, "2")), is(true));
+        assertThat(queue.offer(itemValue("item0001", 3, "3")), is(true));
+        assertThat(queue.getQueueDepth(), is(2));
+
+        queue.close();
+
+        assertThat(values(batches.get(0)), is(List.of("2", "3")));
+        assertThat(queue.getDroppedCount(), is(1L));
+    }
+
+    @Test
+    public void failedBatchIsRetriedUntilTheDatabaseIsAvailable() {
+        databaseAvailable = false;
+        JdbcWriteBehindQueue queue = new JdbcWriteBehindQueue(dao, 10, 10, 10,
+                JdbcWriteBehindQueue.OverflowPolicy.BLOCK);
+        queue.offer(itemValue("item0001", 1, "1"));
+        queue.offer(itemValue("item0001", 2, "2"));
+        waitForAssert(() -> assertThat(attempts.get() >= 2, is(true)));
+        assertThat(batches.isEmpty(), is(true));
+
+        databaseAvailable = true;
+        waitForAssert(() -> assertThat(batches.size(), is(1)));
+        queue.close();
+
+        assertThat(values(batches.get(0)), is(List.of("1", "2")));
+        assertThat(batches.size(), is(1));
+        assertThat(queue.getRetryCount() >= 1, is(true));
+        assertThat(queue.getWrittenCount(), is(2L));
+        assertThat(queue.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void failedBatchIsDiscardedAfterTooManyAttempts() {
+        databaseAvailable = false;
+        JdbcWriteBehindQueue queue = new JdbcWriteBehindQueue(dao, 10, 10, 10,
+                JdbcWriteBehindQueue.OverflowPolicy.BLOCK);
+        queue.offer(itemValue("item0001", 1, "1"));
+        // five attempts for the batch and a last one for its single value
+        waitForAssert(() -> assertThat(attempts.get() >= 6, is(true)));
+
+        databaseAvailable = true;
+        queue.offer(itemValue("item0001", 2, "2"));
+        queue.close();
+
+        assertThat(batches.size(), is(1));
+        assertThat(values(batches.get(0)), is(List.of("2")));
+        assertThat(queue.getRetryCount(), is(4L));
+        assertThat(queue.getDroppedCount(), is(1L));
+    }
+
+    @Test
+    public void rejectedValueDoesNotDiscardTheOtherValuesOfItsBatch() {
+        JdbcWriteBehindQueue queue = new JdbcWriteBehindQueue(dao, 10, 10, 10,
+                JdbcWriteBehindQueue.OverflowPolicy.BLOCK);
+        queue.offer(itemValue("item0001", 1, "1"));
+        queue.offer(itemValue("item0001", 2, BAD_VALUE));
+        queue.offer(itemValue("item0001", 3, "3"));
+        waitForAssert(() -> assertThat(queue.getDroppedCount(), is(1L)));
+        queue.close();
+
+        assertThat(batches.stream().map(this::values).collect(Collectors.toList()),
+                is(List.of(List.of("1"), List.of("3"))));
+        assertThat(queue.getWrittenCount(), is(2L));
+        assertThat(queue.getRetryCount(), is(4L));
+    }
+
+    @Test
+    public void valuesAreNotAcceptedAfterClose() {
+        JdbcWriteBehindQueue queue = new JdbcWriteBehindQueue(dao, 10, 10, ONE_HOUR,
+                JdbcWriteBehindQueue.OverflowPolicy.BLOCK);
+        queue.close();
+
+        assertThat(queue.offer(itemValue("item0001", 1, "1")), is(false));
+        verify(dao, never()).doStoreItemValues(anyList());
+    }
+
+    private ItemVO itemValue(String tableName, long time, String value) {
+        ItemVO vo = new ItemVO(tableName, null);
+        vo.setTime(new Date(time));
+        vo.setValue(value);
+        return vo;
+    }
+
+    private List<String> values(List<ItemVO> batch) {
+        return batch.stream().map(vo -> String.valueOf(vo.getValue())).collect(Collectors.toList());
+    }
+}
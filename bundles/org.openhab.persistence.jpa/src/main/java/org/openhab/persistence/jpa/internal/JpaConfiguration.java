@@ -32,6 +32,12 @@ public class JpaConfiguration {
     private static final String CFG_USERNAME = "user";
     private static final String CFG_PASSWORD = "password";
     private static final String CFG_SYNCMAPPING = "syncmappings";
+    private static final String CFG_FLUSH_INTERVAL = "flushInterval";
+    private static final String CFG_WRITE_BATCH_SIZE = "writeBatchSize";
+    private static final String CFG_QUERY_FETCH_SIZE = "queryFetchSize";
+
+    private static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+    private static final int DEFAULT_QUERY_FETCH_SIZE = 1000;
 
     public static boolean isInitialized = false;
 
@@ -40,6 +46,9 @@ public class JpaConfiguration {
     public final String dbUserName;
     public final String dbPassword;
     public final String dbSyncMapping;
+    public final long flushInterval;
+    public final int writeBatchSize;
+    public final int queryFetchSize;
 
     public JpaConfiguration(final Map<String, Object> properties) {
         logger.debug("Update config...");
@@ -77,7 +86,28 @@ public class JpaConfiguration {
         }
         dbSyncMapping = (String) properties.get(CFG_SYNCMAPPING);
 
+        flushInterval = getLong(properties, CFG_FLUSH_INTERVAL, 0);
+        logger.debug("flushInterval: {}", flushInterval);
+        writeBatchSize = (int) getLong(properties, CFG_WRITE_BATCH_SIZE, DEFAULT_WRITE_BATCH_SIZE);
+        logger.debug("writeBatchSize: {}", writeBatchSize);
+        queryFetchSize = (int) getLong(properties, CFG_QUERY_FETCH_SIZE, DEFAULT_QUERY_FETCH_SIZE);
+        logger.debug("queryFetchSize: {}", queryFetchSize);
+
         isInitialized = true;
         logger.debug("Update config... done");
     }
+
+    private long getLong(Map<String, Object> properties, String key, long defaultValue) {
+        Object param = properties.get(key);
+        if (param instanceof Number) {
+            return ((Number) param).longValue();
+        } else if (param instanceof String && !((String) param).isBlank()) {
+            try {
+                return Long.parseLong(((String) param).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' of {} in jpa.cfg, using {}", param, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
 }
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.items.Item;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link JpaHistoricItemIterable} streams the result of a named query. The items are fetched in pages of
+ * <code>fetchSize</code> items and converted while iterating, so only one page is held in memory at a time. Each page
+ * is fetched with its own {@link EntityManager}, so no database connection is held while the caller iterates.
+ *
+ * A page continues after the timestamp and id of the last item of the previous page instead of skipping the items of
+ * the previous pages, so items which are persisted while iterating, e.g. by the write queue, don't shift the pages.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaHistoricItemIterable implements Iterable<HistoricItem> {
+
+    private final Logger logger = LoggerFactory.getLogger(JpaHistoricItemIterable.class);
+
+    private final Supplier<@Nullable EntityManagerFactory> entityManagerFactory;
+    private final String queryName;
+    private final String nextPageQueryName;
+    private final Map<String, Object> parameters;
+    private final Item item;
+    private final int fetchSize;
+
+    /**
+     * @param entityManagerFactory supplies the factory of the entity managers used for querying, or
+     *            <code>null</code> if the service has been deactivated
+     * @param queryName the name of the query of the first page, see {@link JpaPersistentItem#getQueryName}
+     * @param nextPageQueryName the name of the query of the next pages, see
+     *            {@link JpaPersistentItem#getNextPageQueryName}
+     * @param parameters the parameters of the query
+     * @param item the item the values are converted for
+     * @param fetchSize the number of items fetched at once
+     */
+    public JpaHistoricItemIterable(Supplier<@Nullable EntityManagerFactory> entityManagerFactory, String queryName,
+            String nextPageQueryName, Map<String, Object> parameters, Item item, int fetchSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.queryName = queryName;
+        this.nextPageQueryName = nextPageQueryName;
+        this.parameters = Map.copyOf(parameters);
+        this.item = item;
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new PageIterator();
+    }
+
+    private class PageIterator implements Iterator<HistoricItem> {
+        private Iterator<JpaPersistentItem> page = Collections.emptyIterator();
+        private @Nullable JpaPersistentItem last;
+        private boolean exhausted = false;
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !exhausted) {
+                fetchPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public HistoricItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return JpaHistoricItem.fromPersistedItem(page.next(), item);
+        }
+
+        private void fetchPage() {
+            List<JpaPersistentItem> result = Collections.emptyList();
+            EntityManagerFactory emf = entityManagerFactory.get();
+            if (emf != null) {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    JpaPersistentItem last = this.last;
+                    TypedQuery<JpaPersistentItem> query = em
+                            .createNamedQuery(last == null ? queryName : nextPageQueryName, JpaPersistentItem.class);
+                    parameters.forEach(query::setParameter);
+                    if (last != null) {
+                        query.setParameter("lastTimestamp", last.getTimestampDate());
+                        query.setParameter("lastId", last.getId());
+                    }
+                    query.setMaxResults(fetchSize);
+                    result = query.getResultList();
+                } catch (RuntimeException e) {
+                    logger.error("Error on querying database, result is incomplete!", e);
+                } finally {
+                    em.close();
+                }
+            } else {
+                logger.warn("The service has been deactivated, result is incomplete!");
+            }
+            exhausted = result.size() < fetchSize;
+            if (!result.isEmpty()) {
+                last = result.get(result.size() - 1);
+            }
+            logger.debug("Fetched {} items of {}", result.size(), item.getName());
+            page = result.iterator();
+        }
+    }
+}
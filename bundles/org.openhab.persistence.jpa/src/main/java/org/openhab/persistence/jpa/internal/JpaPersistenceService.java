@@ -23,10 +23,11 @@ import java.util.Set;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
-import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
@@ -40,6 +41,7 @@ import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.UnDefType;
 import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
@@ -55,8 +57,13 @@ import org.slf4j.LoggerFactory;
  */
 @NonNullByDefault
 @Component(service = { PersistenceService.class,
-        QueryablePersistenceService.class }, configurationPid = "org.openhab.jpa", configurationPolicy = ConfigurationPolicy.REQUIRE)
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.jpa", configurationPolicy = ConfigurationPolicy.REQUIRE, //
+        property = Constants.SERVICE_PID + "=org.openhab.jpa")
+@ConfigurableService(category = "persistence", label = "JPA Persistence Service", description_uri = JpaPersistenceService.CONFIG_URI)
 public class JpaPersistenceService implements QueryablePersistenceService {
+
+    protected static final String CONFIG_URI = "persistence:jpa";
+
     private final Logger logger = LoggerFactory.getLogger(JpaPersistenceService.class);
 
     private final ItemRegistry itemRegistry;
@@ -65,27 +72,49 @@ public class JpaPersistenceService implements QueryablePersistenceService {
 
     private @NonNullByDefault({}) JpaConfiguration config;
 
+    private @Nullable JpaWriteQueue writeQueue;
+
+    private boolean active = false;
+
     @Activate
     public JpaPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
     }
 
     /**
-     * lazy loading because update() is called after activate()
+     * lazy loading because update() is called after activate(), synchronized as the write queue may create it
+     * concurrently
      *
      * @return EntityManagerFactory
      */
-    protected @Nullable EntityManagerFactory getEntityManagerFactory() {
+    protected synchronized @Nullable EntityManagerFactory getEntityManagerFactory() {
         if (emf == null) {
             emf = newEntityManagerFactory();
         }
         return emf;
     }
 
+    /**
+     * Returns the EntityManagerFactory for the write queue and the results of queries, which may be used after the
+     * service has been deactivated.
+     *
+     * @return EntityManagerFactory, or <code>null</code> if the service has been deactivated
+     */
+    private synchronized @Nullable EntityManagerFactory getActiveEntityManagerFactory() {
+        return active ? getEntityManagerFactory() : null;
+    }
+
     @Activate
     public void activate(BundleContext context, Map<String, Object> properties) {
         logger.debug("Activating jpa persistence service");
         config = new JpaConfiguration(properties);
+        synchronized (this) {
+            active = true;
+        }
+        if (config.flushInterval > 0) {
+            writeQueue = new JpaWriteQueue(this::getActiveEntityManagerFactory, config.flushInterval,
+                    config.writeBatchSize);
+        }
     }
 
     /**
@@ -94,7 +123,15 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate() {
         logger.debug("Deactivating jpa persistence service");
-        closeEntityManagerFactory();
+        JpaWriteQueue queue = writeQueue;
+        if (queue != null) {
+            queue.close();
+            writeQueue = null;
+        }
+        synchronized (this) {
+            active = false;
+            closeEntityManagerFactory();
+        }
     }
 
     @Override
@@ -142,6 +179,12 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         pItem.setRealName(item.getName());
         pItem.setTimestamp(new Date());
 
+        JpaWriteQueue queue = writeQueue;
+        if (queue != null && queue.add(pItem)) {
+            logger.debug("Storing item...queued");
+            return;
+        }
+
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
             logger.debug("Persisting item...");
@@ -177,28 +220,35 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         String itemName = filter.getItemName();
         Item item = getItemFromRegistry(itemName);
 
-        String sortOrder;
-        if (filter.getOrdering() == Ordering.ASCENDING) {
-            sortOrder = "ASC";
-        } else {
-            sortOrder = "DESC";
+        if (item == null) {
+            return Collections.emptyList();
         }
 
-        boolean hasBeginDate = false;
-        boolean hasEndDate = false;
-        String queryString = "SELECT n FROM " + JpaPersistentItem.class.getSimpleName()
-                + " n WHERE n.realName = :itemName";
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("itemName", item.getName());
         if (filter.getBeginDate() != null) {
-            queryString += " AND n.timestamp >= :beginDate";
-            hasBeginDate = true;
+            parameters.put("beginDate", Date.from(filter.getBeginDate().toInstant()));
+        }
+        Date endDate = filter.getEndDate() != null ? Date.from(filter.getEndDate().toInstant()) : null;
+        boolean unpaged = filter.getPageSize() == Integer.MAX_VALUE && config.queryFetchSize > 0;
+        if (unpaged && endDate == null) {
+            // the pages are fetched one after the other, values stored in the meantime are not part of the result
+            endDate = new Date();
         }
-        if (filter.getEndDate() != null) {
-            queryString += " AND n.timestamp <= :endDate";
-            hasEndDate = true;
+        if (endDate != null) {
+            parameters.put("endDate", endDate);
         }
-        queryString += " ORDER BY n.timestamp " + sortOrder;
+        boolean hasBeginDate = parameters.containsKey("beginDate");
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+        String queryName = JpaPersistentItem.getQueryName(hasBeginDate, endDate != null, ascending);
 
-        logger.debug("The query: {}", queryString);
+        logger.debug("The query: {} {}", queryName, parameters);
+
+        if (unpaged) {
+            return new JpaHistoricItemIterable(this::getActiveEntityManagerFactory, queryName,
+                    JpaPersistentItem.getNextPageQueryName(hasBeginDate, ascending), parameters, item,
+                    config.queryFetchSize);
+        }
 
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
@@ -206,21 +256,14 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             em.getTransaction().begin();
 
             logger.debug("Creating query...");
-            Query query = em.createQuery(queryString);
-            query.setParameter("itemName", item.getName());
-            if (hasBeginDate) {
-                query.setParameter("beginDate", Date.from(filter.getBeginDate().toInstant()));
-            }
-            if (hasEndDate) {
-                query.setParameter("endDate", Date.from(filter.getEndDate().toInstant()));
-            }
+            TypedQuery<JpaPersistentItem> query = em.createNamedQuery(queryName, JpaPersistentItem.class);
+            parameters.forEach(query::setParameter);
 
             query.setFirstResult(filter.getPageNumber() * filter.getPageSize());
             query.setMaxResults(filter.getPageSize());
             logger.debug("Creating query...done");
 
             logger.debug("Retrieving result list...");
-            @SuppressWarnings("unchecked")
             List<JpaPersistentItem> result = query.getResultList();
             logger.debug("Retrieving result list...done");
 
@@ -260,6 +303,10 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         if (config.dbUserName != null && config.dbPassword == null) {
             logger.warn("JPA persistence - it is recommended to use a password to protect data store");
         }
+        if (config.flushInterval > 0) {
+            // persist the items of a transaction with JDBC batches
+            properties.put("openjpa.jdbc.DBDictionary", "batchLimit=" + Math.max(1, config.writeBatchSize));
+        }
         if (config.dbSyncMapping != null && !config.dbSyncMapping.isBlank()) {
             logger.warn("You are settings openjpa.jdbc.SynchronizeMappings, I hope you know what you're doing!");
             properties.put("openjpa.jdbc.SynchronizeMappings", config.dbSyncMapping);
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link JpaWriteQueue} queues items and persists them with one {@link EntityManager}, using one transaction for
+ * up to <code>batchSize</code> items. The queue is persisted at least every <code>flushInterval</code> milliseconds,
+ * or as soon as <code>batchSize</code> items are pending.
+ *
+ * If a transaction fails, its items are persisted again one by one, each in its own transaction, so an item which
+ * can't be persisted, e.g. because its value is too long for the database, does not prevent the other items of the
+ * batch from being persisted.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaWriteQueue {
+
+    private final Logger logger = LoggerFactory.getLogger(JpaWriteQueue.class);
+
+    private final Supplier<@Nullable EntityManagerFactory> entityManagerFactory;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("jpa");
+    private final ScheduledFuture<?> flushJob;
+    // held while items are persisted, so they are persisted in the order they were queued
+    private final Object flushLock = new Object();
+    private final AtomicLong discardedCount = new AtomicLong();
+
+    // guarded by itself, replaced by an empty list when the items are persisted
+    private List<JpaPersistentItem> pending = new ArrayList<>();
+    private boolean closed = false;
+
+    /**
+     * Create a new queue and schedule persisting its items
+     *
+     * @param entityManagerFactory supplies the factory of the entity managers used for writing
+     * @param flushInterval maximum time in milliseconds an item is queued before it is persisted
+     * @param batchSize maximum number of items persisted in one transaction
+     */
+    public JpaWriteQueue(Supplier<@Nullable EntityManagerFactory> entityManagerFactory, long flushInterval,
+            int batchSize) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.batchSize = Math.max(1, batchSize);
+        long delay = Math.max(1, flushInterval);
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue an item to be persisted
+     *
+     * @param pItem the item to persist
+     * @return <code>false</code> if the queue has been closed and the item is not queued
+     */
+    public boolean add(JpaPersistentItem pItem) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            pending.add(pItem);
+            if (pending.size() != batchSize) {
+                return true;
+            }
+        }
+        scheduler.execute(this::flush);
+        return true;
+    }
+
+    /**
+     * Persist the queued items and stop queueing
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flushJob.cancel(false);
+        flush();
+    }
+
+    /**
+     * Returns the number of items which could not be persisted and were discarded
+     */
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+
+    private void flush() {
+        synchronized (flushLock) {
+            List<JpaPersistentItem> items;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                items = pending;
+                pending = new ArrayList<>();
+            }
+            persist(items);
+        }
+    }
+
+    private void persist(List<JpaPersistentItem> items) {
+        EntityManager em;
+        try {
+            EntityManagerFactory emf = entityManagerFactory.get();
+            if (emf == null) {
+                logger.warn("No EntityManagerFactory, discarding {} items", items.size());
+                discardedCount.addAndGet(items.size());
+                return;
+            }
+            em = emf.createEntityManager();
+        } catch (RuntimeException e) {
+            logger.error("Error on creating EntityManager, discarding {} items: {}", items.size(), e.getMessage());
+            discardedCount.addAndGet(items.size());
+            return;
+        }
+        try {
+            for (int from = 0; from < items.size(); from += batchSize) {
+                persist(em, items.subList(from, Math.min(items.size(), from + batchSize)));
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    private void persist(EntityManager em, List<JpaPersistentItem> batch) {
+        logger.debug("Persisting {} items...", batch.size());
+        if (persistInTransaction(em, batch)) {
+            logger.debug("Persisting {} items...done", batch.size());
+            return;
+        }
+        if (batch.size() == 1) {
+            logger.error("Error on persisting item {}, discarding it!", batch.get(0).getRealName());
+            discardedCount.incrementAndGet();
+            return;
+        }
+        logger.warn("Error on persisting {} items, persisting them one by one", batch.size());
+        int failed = 0;
+        for (JpaPersistentItem pItem : batch) {
+            // the id may have been assigned by the failed transaction
+            pItem.setId(null);
+            if (!persistInTransaction(em, List.of(pItem))) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            logger.error("Error on persisting {} of {} items, discarding them!", failed, batch.size());
+            discardedCount.addAndGet(failed);
+        }
+    }
+
+    private boolean persistInTransaction(EntityManager em, List<JpaPersistentItem> items) {
+        try {
+            // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
+            em.getTransaction().begin();
+            items.forEach(em::persist);
+            em.getTransaction().commit();
+            return true;
+        } catch (RuntimeException e) {
+            logger.debug("Error on persisting {} items! Rolling back!", items.size(), e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            return false;
+        } finally {
+            // the items are not needed anymore, the next transaction starts with an empty persistence context
+            em.clear();
+        }
+    }
+}
@@ -22,6 +22,8 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -39,8 +41,80 @@ import org.openhab.core.types.UnDefType;
 
 @Entity
 @Table(name = "HISTORIC_ITEM")
+@NamedQueries({ //
+        @NamedQuery(name = "JpaPersistentItem.findAsc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.ASC),
+        @NamedQuery(name = "JpaPersistentItem.findDesc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.DESC),
+        @NamedQuery(name = "JpaPersistentItem.findFromAsc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.FROM + JpaPersistentItem.ASC),
+        @NamedQuery(name = "JpaPersistentItem.findFromDesc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.FROM + JpaPersistentItem.DESC),
+        @NamedQuery(name = "JpaPersistentItem.findUntilAsc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.UNTIL + JpaPersistentItem.ASC),
+        @NamedQuery(name = "JpaPersistentItem.findUntilDesc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.UNTIL + JpaPersistentItem.DESC),
+        @NamedQuery(name = "JpaPersistentItem.findBetweenAsc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.FROM + JpaPersistentItem.UNTIL
+                + JpaPersistentItem.ASC),
+        @NamedQuery(name = "JpaPersistentItem.findBetweenDesc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.FROM + JpaPersistentItem.UNTIL
+                + JpaPersistentItem.DESC),
+        @NamedQuery(name = "JpaPersistentItem.findUntilAfterAsc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.UNTIL + JpaPersistentItem.AFTER_ASC
+                + JpaPersistentItem.ASC),
+        @NamedQuery(name = "JpaPersistentItem.findUntilAfterDesc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.UNTIL + JpaPersistentItem.AFTER_DESC
+                + JpaPersistentItem.DESC),
+        @NamedQuery(name = "JpaPersistentItem.findBetweenAfterAsc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.FROM + JpaPersistentItem.UNTIL
+                + JpaPersistentItem.AFTER_ASC + JpaPersistentItem.ASC),
+        @NamedQuery(name = "JpaPersistentItem.findBetweenAfterDesc", //
+                query = JpaPersistentItem.SELECT + JpaPersistentItem.FROM + JpaPersistentItem.UNTIL
+                + JpaPersistentItem.AFTER_DESC + JpaPersistentItem.DESC) })
 public class JpaPersistentItem implements HistoricItem {
 
+    // the named queries cover all filters supported by the service, so they are only parsed once
+    static final String SELECT = "SELECT n FROM JpaPersistentItem n WHERE n.realName = :itemName";
+    static final String FROM = " AND n.timestamp >= :beginDate";
+    static final String UNTIL = " AND n.timestamp <= :endDate";
+    // items with the same timestamp are ordered by their id, so the order is the same for every page
+    static final String ASC = " ORDER BY n.timestamp ASC, n.id ASC";
+    static final String DESC = " ORDER BY n.timestamp DESC, n.id DESC";
+    // continues after the last item of the previous page
+    static final String AFTER_ASC = " AND (n.timestamp > :lastTimestamp"
+            + " OR (n.timestamp = :lastTimestamp AND n.id > :lastId))";
+    static final String AFTER_DESC = " AND (n.timestamp < :lastTimestamp"
+            + " OR (n.timestamp = :lastTimestamp AND n.id < :lastId))";
+
+    /**
+     * Returns the name of the named query for a filter. The query has the parameter <code>itemName</code> and,
+     * depending on the filter, <code>beginDate</code> and <code>endDate</code>.
+     *
+     * @param hasBeginDate whether the filter has a begin date
+     * @param hasEndDate whether the filter has an end date
+     * @param ascending whether the result is ordered by ascending timestamps
+     * @return the name of the query
+     */
+    public static String getQueryName(boolean hasBeginDate, boolean hasEndDate, boolean ascending) {
+        String range = hasBeginDate ? (hasEndDate ? "Between" : "From") : (hasEndDate ? "Until" : "");
+        return "JpaPersistentItem.find" + range + (ascending ? "Asc" : "Desc");
+    }
+
+    /**
+     * Returns the name of the named query for the next page of a filter with an end date. The query has the
+     * parameters of the query returned by {@link #getQueryName} and the parameters <code>lastTimestamp</code> and
+     * <code>lastId</code> of the last item of the previous page.
+     *
+     * @param hasBeginDate whether the filter has a begin date
+     * @param ascending whether the result is ordered by ascending timestamps
+     * @return the name of the query
+     */
+    public static String getNextPageQueryName(boolean hasBeginDate, boolean ascending) {
+        return "JpaPersistentItem.find" + (hasBeginDate ? "Between" : "Until") + "After"
+                + (ascending ? "Asc" : "Desc");
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -86,6 +160,13 @@ public class JpaPersistentItem implements HistoricItem {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Returns the timestamp as stored in the database, e.g. for the parameters of a query.
+     */
+    public Date getTimestampDate() {
+        return timestamp;
+    }
+
     public String getValue() {
         return value;
     }
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.openhab.persistence.jpa.internal.JpaWriteQueueTest.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+
+/**
+ * Tests the {@link JpaHistoricItemIterable} and the named queries of its pages with an embedded Derby database.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaHistoricItemIterableTest {
+
+    private static final long START = 1646128800000L;
+    private static final Date END = new Date(START + 3600000);
+
+    private final EntityManagerFactory emf = createEntityManagerFactory();
+    private final NumberItem item = new NumberItem("item");
+    private int nextValue = 0;
+
+    @AfterEach
+    public void tearDown() {
+        emf.close();
+    }
+
+    /**
+     * Persists an item with the next value, so the values are ordered like the ids.
+     */
+    private void persist(long secondsAfterStart) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.persist(item(String.valueOf(nextValue++), new Date(START + 1000 * secondsAfterStart)));
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    private Iterable<HistoricItem> query(boolean ascending, @Nullable Date beginDate, int fetchSize) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("itemName", item.getName());
+        parameters.put("endDate", END);
+        if (beginDate != null) {
+            parameters.put("beginDate", beginDate);
+        }
+        boolean hasBeginDate = beginDate != null;
+        return new JpaHistoricItemIterable(() -> emf, JpaPersistentItem.getQueryName(hasBeginDate, true, ascending),
+                JpaPersistentItem.getNextPageQueryName(hasBeginDate, ascending), parameters, item, fetchSize);
+    }
+
+    private List<Integer> values(Iterator<HistoricItem> iterator) {
+        List<Integer> values = new ArrayList<>();
+        iterator.forEachRemaining(historicItem -> values.add(((DecimalType) historicItem.getState()).intValue()));
+        return values;
+    }
+
+    private List<Integer> values(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int value = from; value <= to; value++) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    private List<Integer> reversed(List<Integer> values) {
+        List<Integer> reversed = new ArrayList<>(values);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    @Test
+    public void emptyResult() {
+        assertThat(query(true, null, 2).iterator().hasNext(), is(false));
+        assertThat(query(false, null, 2).iterator().hasNext(), is(false));
+    }
+
+    @Test
+    public void itemsWithEqualTimestampsAreOrderedByIdAcrossPages() {
+        persist(0);
+        // more items with the same timestamp than fit in a page
+        for (int i = 0; i < 5; i++) {
+            persist(1);
+        }
+        persist(2);
+        persist(2);
+
+        assertThat(values(query(true, null, 2).iterator()), is(values(0, 7)));
+        assertThat(values(query(false, null, 2).iterator()), is(reversed(values(0, 7))));
+        // the result ends exactly with a page
+        assertThat(values(query(true, null, 4).iterator()), is(values(0, 7)));
+    }
+
+    @Test
+    public void nextPagesKeepTheBeginDate() {
+        for (int i = 0; i < 6; i++) {
+            persist(i / 2);
+        }
+        Date beginDate = new Date(START + 1000);
+
+        assertThat(values(query(true, beginDate, 2).iterator()), is(values(2, 5)));
+        assertThat(values(query(false, beginDate, 3).iterator()), is(reversed(values(2, 5))));
+    }
+
+    @Test
+    public void itemPersistedWhileIteratingIsReturnedOnce() {
+        for (int i = 0; i < 4; i++) {
+            persist(1);
+        }
+        Iterator<HistoricItem> iterator = query(true, null, 2).iterator();
+        List<Integer> values = new ArrayList<>();
+        values.add(((DecimalType) iterator.next().getState()).intValue());
+
+        // an item with the timestamp of the current page and one before it
+        persist(1);
+        persist(0);
+        values.addAll(values(iterator));
+
+        // the item before the current page is not returned, the other one after the items persisted before it
+        assertThat(values, is(values(0, 4)));
+    }
+
+    @Test
+    public void resultEndsWhenTheServiceHasBeenDeactivated() {
+        persist(0);
+        persist(1);
+        persist(2);
+        AtomicReference<@Nullable EntityManagerFactory> factory = new AtomicReference<>(emf);
+        Iterator<HistoricItem> iterator = new JpaHistoricItemIterable(factory::get,
+                JpaPersistentItem.getQueryName(false, true, true), JpaPersistentItem.getNextPageQueryName(false, true),
+                Map.of("itemName", item.getName(), "endDate", END), item, 2).iterator();
+        iterator.next();
+        iterator.next();
+
+        factory.set(null);
+
+        assertThat(iterator.hasNext(), is(false));
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.test.java.JavaTest;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+
+/**
+ * Tests the {@link JpaWriteQueue} with an embedded Derby database.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaWriteQueueTest extends JavaTest {
+
+    private static final AtomicInteger DATABASE_NUMBER = new AtomicInteger();
+    private static final long ONE_HOUR = 3600000;
+
+    private final EntityManagerFactory emf = createEntityManagerFactory();
+    private @Nullable JpaWriteQueue queue;
+
+    static EntityManagerFactory createEntityManagerFactory() {
+        return Persistence.createEntityManagerFactory("default",
+                Map.of("javax.persistence.jdbc.url",
+                        "jdbc:derby:memory:jpa" + DATABASE_NUMBER.incrementAndGet() + ";create=true",
+                        "javax.persistence.jdbc.driver", "org.apache.derby.jdbc.EmbeddedDriver",
+                        "javax.persistence.jdbc.user", "APP", "javax.persistence.jdbc.password", "APP"));
+    }
+
+    static JpaPersistentItem item(String value, Date timestamp) {
+        JpaPersistentItem pItem = new JpaPersistentItem();
+        pItem.setName("item");
+        pItem.setRealName("item");
+        pItem.setValue(value);
+        pItem.setTimestamp(timestamp);
+        return pItem;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        JpaWriteQueue queue = this.queue;
+        if (queue != null) {
+            queue.close();
+        }
+        emf.close();
+    }
+
+    private JpaWriteQueue createQueue(long flushInterval, int batchSize) {
+        JpaWriteQueue queue = new JpaWriteQueue(() -> emf, flushInterval, batchSize);
+        this.queue = queue;
+        return queue;
+    }
+
+    private List<String> persistedValues() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT n FROM JpaPersistentItem n ORDER BY n.id", JpaPersistentItem.class)
+                    .getResultList().stream().map(JpaPersistentItem::getValue).collect(Collectors.toList());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void itemsArePersistedWhenTheBatchSizeIsReached() {
+        JpaWriteQueue queue = createQueue(ONE_HOUR, 3);
+        queue.add(item("1", new Date()));
+        queue.add(item("2", new Date()));
+        assertThat(persistedValues().isEmpty(), is(true));
+
+        queue.add(item("3", new Date()));
+
+        waitForAssert(() -> assertThat(persistedValues(), is(List.of("1", "2", "3"))));
+    }
+
+    @Test
+    public void itemsArePersistedAfterTheFlushInterval() {
+        JpaWriteQueue queue = createQueue(50, 100);
+        queue.add(item("1", new Date()));
+
+        waitForAssert(() -> assertThat(persistedValues(), is(List.of("1"))));
+    }
+
+    @Test
+    public void closePersistsTheQueuedItems() {
+        JpaWriteQueue queue = createQueue(ONE_HOUR, 100);
+        queue.add(item("1", new Date()));
+        queue.add(item("2", new Date()));
+
+        queue.close();
+
+        assertThat(persistedValues(), is(List.of("1", "2")));
+        assertThat(queue.add(item("3", new Date())), is(false));
+        assertThat(persistedValues(), is(List.of("1", "2")));
+    }
+
+    @Test
+    public void itemThatCannotBePersistedDoesNotDiscardItsBatch() {
+        JpaWriteQueue queue = createQueue(ONE_HOUR, 100);
+        queue.add(item("1", new Date()));
+        // longer than the value column
+        queue.add(item("x".repeat(40000), new Date()));
+        queue.add(item("3", new Date()));
+
+        queue.close();
+
+        assertThat(persistedValues(), is(List.of("1", "3")));
+        assertThat(queue.getDiscardedCount(), is(1L));
+    }
+
+    @Test
+    public void itemsAreDiscardedAfterTheServiceHasBeenDeactivated() {
+        JpaWriteQueue queue = new JpaWriteQueue(() -> null, ONE_HOUR, 100);
+        this.queue = queue;
+        queue.add(item("1", new Date()));
+
+        queue.close();
+
+        assertThat(persistedValues().isEmpty(), is(true));
+        assertThat(queue.getDiscardedCount(), is(1L));
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A compact binary codec for {@link MapDbItem}s.
+ *
+ * An encoded item consists of a format version, the name, the timestamp and the state. The state is written as a type
+ * tag followed by a type specific payload. States of types without a dedicated tag are written with their class name
+ * and full string representation, like the {@link StateTypeAdapter} does.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte TAG_GENERIC = 0;
+    private static final byte TAG_DECIMAL = 1;
+    private static final byte TAG_PERCENT = 2;
+    private static final byte TAG_QUANTITY = 3;
+    private static final byte TAG_ON_OFF = 4;
+    private static final byte TAG_OPEN_CLOSED = 5;
+    private static final byte TAG_UP_DOWN = 6;
+    private static final byte TAG_HSB = 7;
+    private static final byte TAG_STRING = 8;
+    private static final byte TAG_DATE_TIME = 9;
+
+    private final Logger logger = LoggerFactory.getLogger(MapDbItemCodec.class);
+
+    /**
+     * Encode an item
+     *
+     * @param item the item to encode
+     * @return the binary representation of the item
+     */
+    public byte[] encode(MapDbItem item) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, item.getName());
+            out.writeLong(item.getTimestamp().toInstant().toEpochMilli());
+            writeState(out, item.getState());
+        } catch (IOException e) {
+            // can't happen when writing to a byte array
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode an item
+     *
+     * @param data the binary representation of the item
+     * @return the decoded item or <code>null</code> if the data is invalid
+     */
+    public @Nullable MapDbItem decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                logger.warn("Couldn't decode item: unsupported format version {}", version);
+                return null;
+            }
+            MapDbItem item = new MapDbItem();
+            item.setName(readString(in));
+            item.setTimestamp(new Date(in.readLong()));
+            State state = readState(in);
+            if (state == null) {
+                return null;
+            }
+            item.setState(state);
+            return item;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Couldn't decode item: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeState(DataOutputStream out, State state) throws IOException {
+        // HSBType extends PercentType extends DecimalType, so the most specific type has to be checked first
+        if (state instanceof HSBType) {
+            HSBType hsb = (HSBType) state;
+            out.writeByte(TAG_HSB);
+            writeDecimal(out, hsb.getHue().toBigDecimal());
+            writeDecimal(out, hsb.getSaturation().toBigDecimal());
+            writeDecimal(out, hsb.getBrightness().toBigDecimal());
+        } else if (state instanceof PercentType) {
+            out.writeByte(TAG_PERCENT);
+            writeDecimal(out, ((PercentType) state).toBigDecimal());
+        } else if (state instanceof DecimalType) {
+            out.writeByte(TAG_DECIMAL);
+            writeDecimal(out, ((DecimalType) state).toBigDecimal());
+        } else if (state instanceof QuantityType) {
+            // use the unit symbol as it is written by toFullString(), which is empty for dimensionless values
+            QuantityType<?> quantity = (QuantityType<?>) state;
+            String fullString = quantity.toFullString();
+            int separator = fullString.indexOf(' ');
+            out.writeByte(TAG_QUANTITY);
+            writeDecimal(out, quantity.toBigDecimal());
+            writeString(out, separator == -1 ? "" : fullString.substring(separator + 1));
+        } else if (state instanceof OnOffType) {
+            out.writeByte(TAG_ON_OFF);
+            out.writeBoolean(state == OnOffType.ON);
+        } else if (state instanceof OpenClosedType) {
+            out.writeByte(TAG_OPEN_CLOSED);
+            out.writeBoolean(state == OpenClosedType.OPEN);
+        } else if (state instanceof UpDownType) {
+            out.writeByte(TAG_UP_DOWN);
+            out.writeBoolean(state == UpDownType.UP);
+        } else if (state instanceof StringType) {
+            out.writeByte(TAG_STRING);
+            writeString(out, state.toFullString());
+        } else if (state instanceof DateTimeType) {
+            ZonedDateTime dateTime = ((DateTimeType) state).getZonedDateTime();
+            out.writeByte(TAG_DATE_TIME);
+            out.writeLong(dateTime.toEpochSecond());
+            out.writeInt(dateTime.getNano());
+            writeString(out, dateTime.getZone().getId());
+        } else {
+            out.writeByte(TAG_GENERIC);
+            writeString(out, state.getClass().getName());
+            writeString(out, state.toFullString());
+        }
+    }
+
+    private @Nullable State readState(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_DECIMAL:
+                return new DecimalType(readDecimal(in));
+            case TAG_PERCENT:
+                return new PercentType(readDecimal(in));
+            case TAG_QUANTITY:
+                String value = readDecimal(in).toPlainString();
+                String symbol = readString(in);
+                return new QuantityType<>(symbol.isEmpty() ? value : value + " " + symbol);
+            case TAG_ON_OFF:
+                return in.readBoolean() ? OnOffType.ON : OnOffType.OFF;
+            case TAG_OPEN_CLOSED:
+                return in.readBoolean() ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            case TAG_UP_DOWN:
+                return in.readBoolean() ? UpDownType.UP : UpDownType.DOWN;
+            case TAG_HSB:
+                return new HSBType(new DecimalType(readDecimal(in)), new PercentType(readDecimal(in)),
+                        new PercentType(readDecimal(in)));
+            case TAG_STRING:
+                return new StringType(readString(in));
+            case TAG_DATE_TIME:
+                Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+                return new DateTimeType(ZonedDateTime.ofInstant(instant, ZoneId.of(readString(in))));
+            case TAG_GENERIC:
+                String typeName = readString(in);
+                String valueAsString = readString(in);
+                try {
+                    @SuppressWarnings("unchecked")
+                    Class<? extends State> valueType = (Class<? extends State>) Class.forName(typeName);
+                    return TypeParser.parseState(List.of(valueType), valueAsString);
+                } catch (ClassNotFoundException e) {
+                    logger.warn("Couldn't decode state '{}': unknown type '{}'", valueAsString, typeName);
+                    return null;
+                }
+            default:
+                logger.warn("Couldn't decode state: unknown type tag {}", tag);
+                return null;
+        }
+    }
+
+    private void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeShort(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readUnsignedShort()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    // DataOutput.writeUTF is limited to 64k, so strings are written as length-prefixed UTF-8
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
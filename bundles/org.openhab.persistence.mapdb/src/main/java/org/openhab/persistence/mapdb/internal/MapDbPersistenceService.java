@@ -18,15 +18,17 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -34,6 +36,7 @@ import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -43,8 +46,10 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,31 +65,63 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to 3.x
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class,
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb", configurationPolicy = ConfigurationPolicy.OPTIONAL, //
+        property = Constants.SERVICE_PID + "=org.openhab.mapdb")
+@ConfigurableService(category = "persistence", label = "MapDB Persistence Service", description_uri = MapDbPersistenceService.CONFIG_URI)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
+    protected static final String CONFIG_URI = "persistence:mapdb";
+
     private static final String SERVICE_ID = "mapdb";
     private static final String SERVICE_LABEL = "MapDB";
     private static final Path DB_DIR = new File(OpenHAB.getUserDataFolder(), "persistence").toPath().resolve("mapdb");
     private static final Path BACKUP_DIR = DB_DIR.resolve("backup");
     private static final String DB_FILE_NAME = "storage.mapdb";
 
+    private static final String CONFIG_COMMIT_INTERVAL = "commitInterval";
+    private static final long DEFAULT_COMMIT_INTERVAL = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
-    private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final ScheduledExecutorService scheduler = ThreadPoolManager
+            .getScheduledPool(getClass().getSimpleName() + "-commit");
 
     /** holds the local instance of the MapDB database */
 
     private @NonNullByDefault({}) DB db;
-    private @NonNullByDefault({}) Map<String, String> map;
+    // values are binary encoded items, older versions stored JSON strings
+    private @NonNullByDefault({}) Map<String, Object> map;
 
     private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
             .create();
+    private final MapDbItemCodec codec = new MapDbItemCodec();
+
+    /** decoded items, the database is only read on activation */
+    private final Map<String, MapDbItem> items = new ConcurrentHashMap<>();
+
+    /** commits are coalesced for this number of milliseconds */
+    private long commitInterval = DEFAULT_COMMIT_INTERVAL;
+
+    /** guards the commit job and closing the database */
+    private final Object commitLock = new Object();
+    private @Nullable ScheduledFuture<?> commitJob;
+    private boolean closed = false;
 
     @Activate
-    public void activate() {
+    public void activate(Map<String, Object> config) {
         logger.debug("MapDB persistence service is being activated");
 
+        Object interval = config.get(CONFIG_COMMIT_INTERVAL);
+        if (interval != null) {
+            try {
+                commitInterval = Math.max(0, Long.parseLong(interval.toString().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal commit interval '{}', using default {}", interval,
+                        DEFAULT_COMMIT_INTERVAL);
+            }
+        }
+
         try {
             Files.createDirectories(DB_DIR);
         } catch (IOException e) {
@@ -135,14 +172,59 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
                 logger.warn("MapDB persistence service activation has failed.");
             }
         }
+        if (map != null) {
+            migrateJsonItems();
+            loadItems();
+        }
         logger.debug("MapDB persistence service is now activated");
     }
 
     @Deactivate
     public void deactivate() {
         logger.debug("MapDB persistence service deactivated");
-        if (db != null) {
-            db.close();
+        synchronized (commitLock) {
+            closed = true;
+            ScheduledFuture<?> job = commitJob;
+            commitJob = null;
+            if (db != null) {
+                // a commit that already started has finished, as it holds the lock
+                if (job != null) {
+                    job.cancel(false);
+                    db.commit();
+                }
+                db.close();
+            }
+        }
+    }
+
+    private void loadItems() {
+        items.clear();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            deserialize(entry.getValue()).ifPresent(item -> items.put(entry.getKey(), item));
+        }
+        logger.debug("Loaded {} items from MapDB", items.size());
+    }
+
+    /**
+     * Converts items that were stored as JSON by previous versions to the binary format.
+     */
+    private void migrateJsonItems() {
+        int migrated = 0;
+        for (String key : new ArrayList<>(map.keySet())) {
+            Object value = map.get(key);
+            if (value instanceof String) {
+                Optional<MapDbItem> item = deserialize(value);
+                if (item.isPresent()) {
+                    map.put(key, codec.encode(item.get()));
+                } else {
+                    map.remove(key);
+                }
+                migrated++;
+            }
+        }
+        if (migrated > 0) {
+            db.commit();
+            logger.info("Migrated {} items in MapDB from JSON to binary format", migrated);
         }
     }
 
@@ -158,8 +240,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream().map(this::deserialize).flatMap(MapDbPersistenceService::streamOptional)
-                .collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
+        return Set.copyOf(items.values());
     }
 
     @Override
@@ -182,30 +263,39 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setName(localAlias);
         mItem.setState(state);
         mItem.setTimestamp(new Date());
-        String json = serialize(mItem);
-        map.put(localAlias, json);
+        items.put(localAlias, mItem);
+        map.put(localAlias, codec.encode(mItem));
         commit();
         if (logger.isDebugEnabled()) {
-            logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
+            logger.debug("Stored '{}' with state '{}' in MapDB database", localAlias, state);
         }
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
-            return List.of();
-        }
-        Optional<MapDbItem> item = deserialize(json);
-        return item.isPresent() ? List.of(item.get()) : List.of();
+        MapDbItem item = items.get(filter.getItemName());
+        return item != null ? List.of(item) : List.of();
     }
 
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+    private Optional<MapDbItem> deserialize(Object value) {
+        if (value instanceof byte[]) {
+            MapDbItem item = codec.decode((byte[]) value);
+            if (item == null || !item.isValid()) {
+                logger.warn("Decoded invalid item: {}", item);
+                return Optional.empty();
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Decoded '{}' with state '{}'", item.getName(), item.getState());
+            }
+            return Optional.of(item);
+        } else if (value instanceof String) {
+            return deserializeJson((String) value);
+        }
+        logger.warn("Unexpected value type {} in MapDB", value.getClass().getName());
+        return Optional.empty();
     }
 
     @SuppressWarnings("null")
-    private Optional<MapDbItem> deserialize(String json) {
+    private Optional<MapDbItem> deserializeJson(String json) {
         MapDbItem item = mapper.<MapDbItem> fromJson(json, MapDbItem.class);
         if (item == null || !item.isValid()) {
             logger.warn("Deserialized invalid item: {}", item);
@@ -217,12 +307,24 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         return Optional.of(item);
     }
 
+    /**
+     * Schedules a commit. All changes within the commit interval are committed together.
+     */
     private void commit() {
-        threadPool.submit(() -> db.commit());
+        synchronized (commitLock) {
+            if (commitJob == null && !closed) {
+                commitJob = scheduler.schedule(this::commitNow, commitInterval, TimeUnit.MILLISECONDS);
+            }
+        }
     }
 
-    private static <T> Stream<T> streamOptional(Optional<T> opt) {
-        return opt.isPresent() ? Stream.of(opt.get()) : Stream.empty();
+    private void commitNow() {
+        synchronized (commitLock) {
+            commitJob = null;
+            if (!closed) {
+                db.commit();
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.library.unit.ImperialUnits;
+import org.openhab.core.library.unit.SIUnits;
+import org.openhab.core.library.unit.Units;
+import org.openhab.core.types.State;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemCodec;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemCodecTest {
+    private MapDbItemCodec codec = new MapDbItemCodec();
+
+    private static final List<State> VALUES = List.of(DecimalType.ZERO, new DecimalType(1.123),
+            new DecimalType(-10000000), HSBType.BLACK, HSBType.fromRGB(11, 22, 33), OnOffType.ON, OnOffType.OFF,
+            OpenClosedType.OPEN, OpenClosedType.CLOSED, UpDownType.UP, UpDownType.DOWN, PercentType.ZERO,
+            PercentType.HUNDRED, PercentType.valueOf("99.999"), QuantityType.valueOf("0 W"),
+            QuantityType.valueOf("1 kW"), QuantityType.valueOf(20, Units.AMPERE),
+            new QuantityType<>(new BigDecimal("21.23"), SIUnits.CELSIUS),
+            new QuantityType<>(new BigDecimal("75"), ImperialUnits.MILES_PER_HOUR),
+            QuantityType.valueOf(100, Units.METRE_PER_SQUARE_SECOND), new QuantityType<>("42"),
+            StringType.valueOf("test"), StringType.valueOf(""), StringType.valueOf("@@@###   @@@ äöü"),
+            new DateTimeType("2022-03-04T05:06:07.123+02:00"), new PointType("52.5200066,13.4049540"));
+
+    @ParameterizedTest
+    @MethodSource
+    public void encodeDecodeRoundtripShouldRecreateTheItem(State state) {
+        MapDbItem item = new MapDbItem();
+        item.setName("item");
+        item.setState(state);
+        item.setTimestamp(new Date(1646363167123L));
+
+        MapDbItem actual = Objects.requireNonNull(codec.decode(codec.encode(item)));
+
+        assertThat(actual.getName(), is(equalTo(item.getName())));
+        assertThat(actual.getTimestamp(), is(equalTo(item.getTimestamp())));
+        // equals() of the number types only compares the value, so also make sure the type is restored
+        assertThat(actual.getState().getClass(), is(equalTo(state.getClass())));
+        assertThat(actual.getState(), is(equalTo(state)));
+    }
+
+    public static Stream<State> encodeDecodeRoundtripShouldRecreateTheItem() {
+        return VALUES.stream();
+    }
+
+    @Test
+    public void decodeShouldReturnNullForInvalidData() {
+        assertThat(codec.decode(new byte[0]), is(nullValue()));
+        assertThat(codec.decode(new byte[] { 99, 0, 0 }), is(nullValue()));
+    }
+}
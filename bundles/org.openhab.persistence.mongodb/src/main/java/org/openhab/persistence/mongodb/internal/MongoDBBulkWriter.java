@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+
+/**
+ * The {@link MongoDBBulkWriter} collects documents per collection and inserts them with one bulk write per
+ * collection. The documents are written at least every <code>flushInterval</code> milliseconds, or as soon as
+ * <code>batchSize</code> documents have been collected. The driver splits larger bulk writes as required by the
+ * server.
+ *
+ * If a bulk write fails, e.g. because the connection was lost, its documents are written again with the following
+ * flushes, up to {@link #MAX_ATTEMPTS} times. The same applies to the documents an ordered bulk write did not reach
+ * because an earlier document was rejected. Documents which are rejected by the server are not written again.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MongoDBBulkWriter {
+
+    /**
+     * Number of times writing a document is tried before it is discarded
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    private final Logger logger = LoggerFactory.getLogger(MongoDBBulkWriter.class);
+
+    private final Function<String, @Nullable DBCollection> collectionProvider;
+    private final int batchSize;
+    private final boolean ordered;
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("mongodb");
+    private final ScheduledFuture<?> flushJob;
+    // held while documents are written, so close() waits for a running write
+    private final Object writeLock = new Object();
+
+    // documents by collection name, replaced by an empty map when they are written
+    private Map<String, List<DBObject>> documents = new LinkedHashMap<>();
+    private int documentCount = 0;
+    private boolean closed = false;
+
+    // writes which failed and are tried again, only accessed while holding the writeLock
+    private List<FailedWrite> failedWrites = new ArrayList<>();
+
+    /**
+     * Create a new writer and schedule writing the collected documents
+     *
+     * @param collectionProvider returns the collection for a collection name, or <code>null</code> if the database
+     *            can't be reached
+     * @param flushInterval maximum time in milliseconds a document is collected before it is written
+     * @param batchSize number of collected documents which are written immediately
+     * @param ordered <code>true</code> to use ordered bulk writes, which stop at the first failed document
+     */
+    public MongoDBBulkWriter(Function<String, @Nullable DBCollection> collectionProvider, long flushInterval,
+            int batchSize, boolean ordered) {
+        this.collectionProvider = collectionProvider;
+        this.batchSize = Math.max(1, batchSize);
+        this.ordered = ordered;
+        long delay = Math.max(1, flushInterval);
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, delay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Collect a document to be inserted
+     *
+     * @param collectionName the name of the collection
+     * @param document the document to insert
+     * @return <code>false</code> if the writer has been closed and the document has not been collected
+     */
+    public boolean add(String collectionName, DBObject document) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            documents.computeIfAbsent(collectionName, name -> new ArrayList<>()).add(document);
+            if (++documentCount != batchSize) {
+                return true;
+            }
+        }
+        scheduler.execute(this::flush);
+        return true;
+    }
+
+    /**
+     * Write the collected documents and stop collecting
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flushJob.cancel(false);
+        flush();
+    }
+
+    private void flush() {
+        synchronized (writeLock) {
+            List<FailedWrite> retries = failedWrites;
+            failedWrites = new ArrayList<>();
+            retries.forEach(retry -> write(retry.collectionName, retry.documents, retry.attempts + 1));
+
+            Map<String, List<DBObject>> collected;
+            synchronized (this) {
+                collected = documents;
+                documents = new LinkedHashMap<>();
+                documentCount = 0;
+            }
+            collected.forEach((collectionName, values) -> write(collectionName, values, 1));
+
+            if (isClosed() && !failedWrites.isEmpty()) {
+                int lost = failedWrites.stream().mapToInt(failed -> failed.documents.size()).sum();
+                logger.warn("MongoDB: No connection to database. Discarding {} values on shutdown.", lost);
+                failedWrites.clear();
+            }
+        }
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void write(String collectionName, List<DBObject> documents, int attempt) {
+        DBCollection collection = collectionProvider.apply(collectionName);
+        if (collection == null) {
+            retryLater(collectionName, documents, attempt, "no connection to database");
+            return;
+        }
+
+        BulkWriteOperation bulk = ordered ? collection.initializeOrderedBulkOperation()
+                : collection.initializeUnorderedBulkOperation();
+        documents.forEach(bulk::insert);
+        try {
+            BulkWriteResult result = bulk.execute();
+            logger.debug("MongoDB bulk write of {} values to collection '{}'", result.getInsertedCount(),
+                    collectionName);
+        } catch (BulkWriteException e) {
+            List<BulkWriteError> errors = e.getWriteErrors();
+            logger.warn("MongoDB bulk write to collection '{}' failed for {} of {} values: {}", collectionName,
+                    errors.size(), documents.size(), e.getMessage());
+            if (ordered && !errors.isEmpty()) {
+                // an ordered write stops at the first rejected document, the following ones have not been written
+                int next = errors.get(0).getIndex() + 1;
+                if (next < documents.size()) {
+                    retryLater(collectionName, documents.subList(next, documents.size()), attempt,
+                            "stopped at a rejected value");
+                }
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the scheduled job
+            retryLater(collectionName, documents, attempt, e.getMessage());
+        }
+    }
+
+    private void retryLater(String collectionName, List<DBObject> documents, int attempt, @Nullable String reason) {
+        if (attempt >= MAX_ATTEMPTS) {
+            logger.warn("MongoDB bulk write of {} values to collection '{}' failed {} times, discarding them: {}",
+                    documents.size(), collectionName, attempt, reason);
+            return;
+        }
+        logger.debug("MongoDB bulk write of {} values to collection '{}' failed, retrying with the next flush: {}",
+                documents.size(), collectionName, reason);
+        failedWrites.add(new FailedWrite(collectionName, new ArrayList<>(documents), attempt));
+    }
+
+    private static class FailedWrite {
+        private final String collectionName;
+        private final List<DBObject> documents;
+        private final int attempts;
+
+        private FailedWrite(String collectionName, List<DBObject> documents, int attempts) {
+            this.collectionName = collectionName;
+            this.documents = documents;
+            this.attempts = attempts;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bson.types.ObjectId;
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -83,6 +84,9 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     private static final String FIELD_TIMESTAMP = "timestamp";
     private static final String FIELD_VALUE = "value";
 
+    private static final long DEFAULT_FLUSH_INTERVAL = 0;
+    private static final int DEFAULT_WRITE_BATCH_SIZE = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(MongoDBPersistenceService.class);
 
     private String url = "";
@@ -94,7 +98,11 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
 
     protected final ItemRegistry itemRegistry;
 
-    private @Nullable MongoClient cl;
+    // read without locking, only (re)connecting and disconnecting are synchronized
+    private volatile @Nullable MongoClient cl;
+    // collections whose index has already been created
+    private final Map<String, DBCollection> collections = new ConcurrentHashMap<>();
+    private @Nullable MongoDBBulkWriter bulkWriter;
 
     @Activate
     public MongoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
@@ -127,6 +135,15 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         collection = dbCollection == null ? "" : dbCollection;
         collectionPerItem = dbCollection == null || dbCollection.isBlank();
 
+        long flushInterval = getLongConfig(config, "flushInterval", DEFAULT_FLUSH_INTERVAL);
+        if (flushInterval > 0) {
+            int writeBatchSize = (int) getLongConfig(config, "writeBatchSize", DEFAULT_WRITE_BATCH_SIZE);
+            boolean orderedWrites = Boolean.parseBoolean(String.valueOf(config.get("orderedWrites")));
+            logger.debug("MongoDB bulk writes every {} ms, batch size {}, ordered {}", flushInterval, writeBatchSize,
+                    orderedWrites);
+            bulkWriter = new MongoDBBulkWriter(this::getCollection, flushInterval, writeBatchSize, orderedWrites);
+        }
+
         if (!tryConnectToDatabase()) {
             logger.warn("Failed to connect to MongoDB server. Trying to reconnect later.");
         }
@@ -137,6 +154,11 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("MongoDB persistence bundle stopping. Disconnecting from database.");
+        MongoDBBulkWriter writer = bulkWriter;
+        if (writer != null) {
+            writer.close();
+            bulkWriter = null;
+        }
         disconnectFromDatabase();
     }
 
@@ -163,6 +185,24 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
+        String realItemName = item.getName();
+        String collectionName = collectionPerItem ? realItemName : this.collection;
+        String name = (alias != null) ? alias : realItemName;
+        Object value = this.convertValue(item.getState());
+
+        DBObject obj = new BasicDBObject();
+        obj.put(FIELD_ID, new ObjectId());
+        obj.put(FIELD_ITEM, name);
+        obj.put(FIELD_REALNAME, realItemName);
+        obj.put(FIELD_TIMESTAMP, new Date());
+        obj.put(FIELD_VALUE, value);
+
+        MongoDBBulkWriter writer = bulkWriter;
+        if (writer != null && writer.add(collectionName, obj)) {
+            logger.debug("MongoDB queued {}={}", name, value);
+            return;
+        }
+
         // Connect to mongodb server if we're not already connected
         // If we can't connect, log.
         if (!tryConnectToDatabase()) {
@@ -172,9 +212,6 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
-        String realItemName = item.getName();
-        String collectionName = collectionPerItem ? realItemName : this.collection;
-
         @Nullable
         DBCollection collection = connectToCollection(collectionName);
 
@@ -183,16 +220,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             return;
         }
 
-        String name = (alias != null) ? alias : realItemName;
-        Object value = this.convertValue(item.getState());
-
-        DBObject obj = new BasicDBObject();
-        obj.put(FIELD_ID, new ObjectId());
-        obj.put(FIELD_ITEM, name);
-        obj.put(FIELD_REALNAME, realItemName);
-        obj.put(FIELD_TIMESTAMP, new Date());
-        obj.put(FIELD_VALUE, value);
-        collection.save(obj);
+        collection.insert(obj);
 
         logger.debug("MongoDB save {}={}", name, value);
     }
@@ -227,8 +255,9 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
      *
      * @return true if connection has been established, false otherwise
      */
-    private synchronized boolean isConnected() {
-        if (cl == null) {
+    private boolean isConnected() {
+        MongoClient client = cl;
+        if (client == null) {
             return false;
         }
 
@@ -236,7 +265,7 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         // Network problems may cause failure sometimes,
         // even if the connection object was successfully created before.
         try {
-            cl.getAddress();
+            client.getAddress();
             return true;
         } catch (Exception ex) {
             return false;
@@ -248,7 +277,15 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
      *
      * @return True, if the connection was successfully established.
      */
-    private synchronized boolean tryConnectToDatabase() {
+    private boolean tryConnectToDatabase() {
+        if (isConnected()) {
+            return true;
+        }
+        return reconnectToDatabase();
+    }
+
+    private synchronized boolean reconnectToDatabase() {
+        // another thread may have connected in the meantime
         if (isConnected()) {
             return true;
         }
@@ -257,11 +294,12 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
             logger.debug("Connect MongoDB");
             disconnectFromDatabase();
 
-            this.cl = new MongoClient(new MongoClientURI(this.url));
+            MongoClient client = new MongoClient(new MongoClientURI(this.url));
+            this.cl = client;
 
             // The mongo always succeeds in creating the connection.
             // We have to actually force it to test the connection to try to connect to the server.
-            cl.getAddress();
+            client.getAddress();
 
             logger.debug("Connect MongoDB ... done");
             return true;
@@ -277,16 +315,33 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
      *
      * @return The database object
      */
-    private synchronized @Nullable MongoClient getDatabase() {
+    private @Nullable MongoClient getDatabase() {
         return cl;
     }
 
     /**
-     * Connects to the Collection
+     * Connects to the database and the collection, used by the bulk writer
+     *
+     * @return The collection object when the connection was successful. Null otherwise.
+     */
+    private @Nullable DBCollection getCollection(String collectionName) {
+        if (!tryConnectToDatabase()) {
+            return null;
+        }
+        return connectToCollection(collectionName);
+    }
+
+    /**
+     * Connects to the Collection. The compound index on item and timestamp is created once per collection and
+     * connection.
      *
      * @return The collection object when collection creation was successful. Null otherwise.
      */
     private @Nullable DBCollection connectToCollection(String collectionName) {
+        DBCollection mongoCollection = collections.get(collectionName);
+        if (mongoCollection != null) {
+            return mongoCollection;
+        }
         try {
             @Nullable
             MongoClient db = getDatabase();
@@ -296,12 +351,13 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
                 return null;
             }
 
-            DBCollection mongoCollection = db.getDB(this.db).getCollection(collectionName);
+            mongoCollection = db.getDB(this.db).getCollection(collectionName);
 
             BasicDBObject idx = new BasicDBObject();
             idx.append(FIELD_ITEM, 1).append(FIELD_TIMESTAMP, 1);
             mongoCollection.createIndex(idx);
 
+            collections.put(collectionName, mongoCollection);
             return mongoCollection;
         } catch (Exception e) {
             logger.error("Failed to connect to collection {}: {}", collectionName, e.getMessage(), e);
@@ -313,11 +369,13 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
      * Disconnects from the database
      */
     private synchronized void disconnectFromDatabase() {
-        if (this.cl != null) {
-            this.cl.close();
-        }
-
+        MongoClient client = this.cl;
         cl = null;
+        collections.clear();
+
+        if (client != null) {
+            client.close();
+        }
     }
 
     @Override
@@ -431,6 +489,20 @@ public class MongoDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private long getLongConfig(Map<String, Object> config, String key, long defaultValue) {
+        Object value = config.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof String && !((String) value).isBlank()) {
+            try {
+                return Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value '{}' of mongodb:{}, using {}", value, key, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     private @Nullable Item getItem(String itemName) {
         try {
             return itemRegistry.getItem(itemName);
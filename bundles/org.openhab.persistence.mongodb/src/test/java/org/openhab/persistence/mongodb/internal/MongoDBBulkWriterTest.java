@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.test.java.JavaTest;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.BulkWriteResult;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+
+/**
+ * Tests the {@link MongoDBBulkWriter} with collections which record the bulk writes instead of sending them to a
+ * server.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MongoDBBulkWriterTest extends JavaTest {
+
+    private static final long ONE_HOUR = 3600000;
+
+    // the values of every successful bulk write, by collection name
+    private final List<Map.Entry<String, List<Object>>> writes = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, DBCollection> collections = new HashMap<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private volatile boolean connected = true;
+    private volatile boolean available = true;
+
+    private @Nullable MongoDBBulkWriter writer;
+
+    @AfterEach
+    public void tearDown() {
+        MongoDBBulkWriter writer = this.writer;
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private MongoDBBulkWriter createWriter(long flushInterval, int batchSize) {
+        MongoDBBulkWriter writer = new MongoDBBulkWriter(this::getCollection, flushInterval, batchSize, false);
+        this.writer = writer;
+        return writer;
+    }
+
+    private synchronized @Nullable DBCollection getCollection(String name) {
+        if (!connected) {
+            return null;
+        }
+        return collections.computeIfAbsent(name, this::createCollection);
+    }
+
+    private DBCollection createCollection(String name) {
+        DBCollection collection = mock(DBCollection.class);
+        when(collection.initializeUnorderedBulkOperation()).thenAnswer(invocation -> createBulk(name));
+        return collection;
+    }
+
+    private BulkWriteOperation createBulk(String collectionName) {
+        List<Object> values = new ArrayList<>();
+        BulkWriteOperation bulk = mock(BulkWriteOperation.class);
+        doAnswer(invocation -> values.add(((DBObject) invocation.getArgument(0)).get("value"))).when(bulk)
+                .insert(any(DBObject.class));
+        when(bulk.execute()).thenAnswer(invocation -> {
+            boolean ok = available;
+            attempts.incrementAndGet();
+            if (!ok) {
+                throw new MongoException("connection lost");
+            }
+            writes.add(Map.entry(collectionName, values));
+            BulkWriteResult result = mock(BulkWriteResult.class);
+            when(result.getInsertedCount()).thenReturn(values.size());
+            return result;
+        });
+        return bulk;
+    }
+
+    private DBObject document(int value) {
+        return new BasicDBObject("value", value);
+    }
+
+    private List<Object> writtenValues() {
+        synchronized (writes) {
+            return writes.stream().flatMap(write -> write.getValue().stream()).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void documentsAreWrittenWhenTheBatchSizeIsReached() {
+        MongoDBBulkWriter writer = createWriter(ONE_HOUR, 3);
+        writer.add("item", document(1));
+        writer.add("item", document(2));
+        assertThat(writes.isEmpty(), is(true));
+
+        writer.add("item", document(3));
+
+        waitForAssert(() -> assertThat(writes.size(), is(1)));
+        assertThat(writtenValues(), is(List.of(1, 2, 3)));
+    }
+
+    @Test
+    public void documentsAreWrittenAfterTheFlushInterval() {
+        MongoDBBulkWriter writer = createWriter(50, 100);
+        writer.add("item", document(1));
+
+        waitForAssert(() -> assertThat(writtenValues(), is(List.of(1))));
+    }
+
+    @Test
+    public void closeWritesTheCollectedDocumentsPerCollection() {
+        // the persistence service closes its writer when it is deactivated
+        MongoDBBulkWriter writer = createWriter(ONE_HOUR, 100);
+        writer.add("item1", document(1));
+        writer.add("item2", document(2));
+        writer.add("item1", document(3));
+
+        writer.close();
+
+        assertThat(writes.size(), is(2));
+        assertThat(writes.get(0), is(Map.entry("item1", List.<Object> of(1, 3))));
+        assertThat(writes.get(1), is(Map.entry("item2", List.<Object> of(2))));
+        assertThat(writer.add("item1", document(4)), is(false));
+        assertThat(writes.size(), is(2));
+    }
+
+    @Test
+    public void failedWriteIsRetriedWithTheNextFlush() {
+        available = false;
+        MongoDBBulkWriter writer = createWriter(20, 100);
+        writer.add("item", document(1));
+        waitForAssert(() -> assertThat(attempts.get() >= 1, is(true)));
+
+        available = true;
+
+        waitForAssert(() -> assertThat(writtenValues(), is(List.of(1))));
+    }
+
+    @Test
+    public void documentsAreRetriedWhileTheDatabaseCannotBeReached() {
+        connected = false;
+        MongoDBBulkWriter writer = createWriter(ONE_HOUR, 1);
+        writer.add("item", document(1));
+
+        connected = true;
+        writer.close();
+
+        assertThat(writtenValues(), is(List.of(1)));
+    }
+
+    @Test
+    public void failedWriteIsDiscardedAfterTooManyAttempts() {
+        available = false;
+        MongoDBBulkWriter writer = createWriter(10, 100);
+        writer.add("item", document(1));
+        waitForAssert(() -> assertThat(attempts.get() >= MongoDBBulkWriter.MAX_ATTEMPTS, is(true)));
+
+        available = true;
+        writer.add("item", document(2));
+        writer.close();
+
+        assertThat(writtenValues(), is(List.of(2)));
+    }
+}
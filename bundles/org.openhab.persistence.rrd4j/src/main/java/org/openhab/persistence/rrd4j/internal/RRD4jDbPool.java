@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.rrd4j.core.RrdDb;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link RRD4jDbPool} keeps a bounded number of {@link RrdDb} handles open so that they do not have to be opened
+ * and parsed on every access. When the capacity is exceeded, the least recently used handles are closed.
+ *
+ * Every database is guarded by its own lock, so accesses to different databases can run in parallel. A database is
+ * obtained by {@link #acquire(String)} and has to be released again by closing the returned {@link Lease}.
+ *
+ * An evicted database is closed as soon as its current user releases it. Until then, a new lease for the same name
+ * waits before it opens the database again, so there is never more than one open handle per file.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jDbPool {
+
+    private final Logger logger = LoggerFactory.getLogger(RRD4jDbPool.class);
+
+    private final Function<String, @Nullable RrdDb> opener;
+
+    // access-ordered, so iteration starts with the least recently used entry
+    private final Map<String, Lease> leases = new LinkedHashMap<>(16, 0.75f, true);
+    // evicted leases that are not closed yet
+    private final Map<String, Lease> closing = new HashMap<>();
+    private int capacity;
+
+    /**
+     * Create a new pool
+     *
+     * @param opener function that opens (or creates) the database for a given name, returns <code>null</code> if the
+     *            database can't be opened
+     * @param capacity maximum number of databases that are kept open
+     */
+    public RRD4jDbPool(Function<String, @Nullable RrdDb> opener, int capacity) {
+        this.opener = opener;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Get the database with the given name and lock it for exclusive use by the calling thread.
+     *
+     * The returned {@link Lease} must be closed when the database is no longer needed.
+     *
+     * @param name the name of the database (i.e. the item name or alias)
+     * @return the locked database or <code>null</code> if it could not be opened
+     */
+    public @Nullable Lease acquire(String name) {
+        while (true) {
+            Lease lease;
+            List<Lease> evicted = List.of();
+            synchronized (leases) {
+                lease = leases.get(name);
+                if (lease == null) {
+                    lease = new Lease(name, closing.get(name));
+                    leases.put(name, lease);
+                    evicted = removeExceeding();
+                }
+            }
+            closeAll(evicted);
+
+            lease.lock.lock();
+            if (lease.closed) {
+                // the database was evicted or closed between lookup and locking, try again
+                lease.lock.unlock();
+                continue;
+            }
+            if (lease.db == null) {
+                RrdDb db = null;
+                try {
+                    Lease predecessor = lease.predecessor;
+                    if (predecessor != null) {
+                        // the previous handle of this database may still be in use, wait for it to be closed
+                        closeLease(predecessor);
+                        lease.predecessor = null;
+                    }
+                    db = opener.apply(name);
+                } finally {
+                    if (db == null) {
+                        lease.closed = true;
+                        synchronized (leases) {
+                            leases.remove(name, lease);
+                        }
+                        lease.lock.unlock();
+                    }
+                }
+                if (db == null) {
+                    return null;
+                }
+                lease.db = db;
+            }
+            return lease;
+        }
+    }
+
+    /**
+     * Change the maximum number of open databases. Exceeding databases are closed immediately.
+     *
+     * @param capacity the new capacity
+     */
+    public void setCapacity(int capacity) {
+        List<Lease> evicted;
+        synchronized (leases) {
+            this.capacity = Math.max(1, capacity);
+            evicted = removeExceeding();
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Close all open databases
+     */
+    public void close() {
+        List<Lease> evicted;
+        synchronized (leases) {
+            evicted = new ArrayList<>(leases.values());
+            leases.clear();
+            evicted.forEach(lease -> closing.put(lease.name, lease));
+        }
+        closeAll(evicted);
+    }
+
+    // must be called while holding the monitor of leases
+    private List<Lease> removeExceeding() {
+        if (leases.size() <= capacity) {
+            return List.of();
+        }
+        List<Lease> evicted = new ArrayList<>();
+        Iterator<Lease> iterator = leases.values().iterator();
+        while (leases.size() > capacity && iterator.hasNext()) {
+            Lease lease = iterator.next();
+            iterator.remove();
+            closing.put(lease.name, lease);
+            evicted.add(lease);
+        }
+        return evicted;
+    }
+
+    private void closeAll(List<Lease> evicted) {
+        evicted.forEach(this::closeLease);
+    }
+
+    // waits until the lease is released by its current user, the lease must not be in the leases map anymore
+    private void closeLease(Lease lease) {
+        lease.lock.lock();
+        try {
+            lease.closed = true;
+            Lease predecessor = lease.predecessor;
+            if (predecessor != null) {
+                closeLease(predecessor);
+                lease.predecessor = null;
+            }
+            RrdDb db = lease.db;
+            if (db != null) {
+                lease.db = null;
+                try {
+                    db.close();
+                } catch (IOException e) {
+                    logger.debug("Error closing rrd4j database '{}': {}", lease.name, e.getMessage());
+                }
+            }
+            synchronized (leases) {
+                closing.remove(lease.name, lease);
+            }
+        } finally {
+            lease.lock.unlock();
+        }
+    }
+
+    /**
+     * A {@link Lease} grants exclusive access to an open {@link RrdDb} until it is closed.
+     */
+    public static class Lease implements AutoCloseable {
+        private final String name;
+        private final ReentrantLock lock = new ReentrantLock();
+        private @Nullable RrdDb db;
+        private @Nullable Lease predecessor;
+        private boolean closed = false;
+
+        private Lease(String name, @Nullable Lease predecessor) {
+            this.name = name;
+            this.predecessor = predecessor;
+        }
+
+        public RrdDb getDb() {
+            RrdDb db = this.db;
+            if (db == null || !lock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("Database '" + name + "' is not leased by the current thread");
+            }
+            return db;
+        }
+
+        /**
+         * Releases the database for use by other threads. The database itself stays open.
+         */
+        @Override
+        public void close() {
+            lock.unlock();
+        }
+    }
+}
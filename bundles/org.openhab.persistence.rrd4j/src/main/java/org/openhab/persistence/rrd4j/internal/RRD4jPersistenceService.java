@@ -18,14 +18,18 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -67,14 +71,18 @@ import org.openhab.core.types.State;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
+import org.rrd4j.core.RrdBackendFactory;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDef;
+import org.rrd4j.core.RrdNioBackendFactory;
+import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
 import org.rrd4j.core.Sample;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,8 +97,8 @@ import org.slf4j.LoggerFactory;
  * @author Karel Goderis - remove TimerThread dependency
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class,
-        QueryablePersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
+@Component(service = { PersistenceService.class, QueryablePersistenceService.class,
+        RRD4jPersistenceService.class }, configurationPid = "org.openhab.rrd4j", configurationPolicy = ConfigurationPolicy.OPTIONAL)
 public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private static final String DEFAULT_OTHER = "default_other";
@@ -105,13 +113,32 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private final Map<String, RrdDefConfig> rrdDefs = new ConcurrentHashMap<>();
 
+    // the consolidation function of the first archive, determined once when a database is opened
+    private final Map<String, ConsolFun> consolidationFunctions = new ConcurrentHashMap<>();
+
     private static final String DATASOURCE_STATE = "state";
 
+    private static final String CONFIG_POOL_SIZE = "poolSize";
+    private static final String CONFIG_BACKEND = "backend";
+    private static final String CONFIG_SYNC_PERIOD = "syncPeriod";
+    private static final Set<String> SERVICE_OPTIONS = Set.of(CONFIG_POOL_SIZE, CONFIG_BACKEND, CONFIG_SYNC_PERIOD);
+
+    private static final int DEFAULT_POOL_SIZE = 200;
+    private static final String BACKEND_NIO = "nio";
+    private static final String BACKEND_FILE = "file";
+    private static final int DEFAULT_SYNC_PERIOD = 300;
+
     public static final String DB_FOLDER = getUserPersistenceDataFolder() + File.separator + "rrd4j";
 
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
 
-    private final Map<String, ScheduledFuture<?>> scheduledJobs = new HashMap<>();
+    private final Map<String, ScheduledFuture<?>> scheduledJobs = new ConcurrentHashMap<>();
+
+    private final RRD4jDbPool dbPool = new RRD4jDbPool(this::getDB, DEFAULT_POOL_SIZE);
+
+    private String backend = BACKEND_NIO;
+    private int syncPeriod = DEFAULT_SYNC_PERIOD;
+    private volatile RrdBackendFactory backendFactory = new RrdNioBackendFactory(DEFAULT_SYNC_PERIOD);
 
     protected final ItemRegistry itemRegistry;
 
@@ -131,15 +158,18 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     }
 
     @Override
-    public synchronized void store(final Item item, @Nullable final String alias) {
+    public void store(final Item item, @Nullable final String alias) {
         if (!isSupportedItemType(item)) {
             logger.trace("Ignoring item '{}' since its type {} is not supported", item.getName(), item.getType());
             return;
         }
         final String name = alias == null ? item.getName() : alias;
-        RrdDb db = getDB(name);
-        if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
+        try (RRD4jDbPool.Lease lease = dbPool.acquire(name)) {
+            if (lease == null) {
+                return;
+            }
+            RrdDb db = lease.getDb();
+            ConsolFun function = getConsolidationFunction(name, db);
             long now = System.currentTimeMillis() / 1000;
             if (function != ConsolFun.AVERAGE) {
                 try {
@@ -215,11 +245,6 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             } catch (Exception e) {
                 logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
             }
-            try {
-                db.close();
-            } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
-            }
         }
     }
 
@@ -232,11 +257,17 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     public Iterable<HistoricItem> query(FilterCriteria filter) {
         String itemName = filter.getItemName();
 
-        RrdDb db = getDB(itemName);
-        if (db == null) {
-            logger.debug("Could not find item '{}' in rrd4j database", itemName);
-            return List.of();
+        try (RRD4jDbPool.Lease lease = dbPool.acquire(itemName)) {
+            if (lease == null) {
+                logger.debug("Could not find item '{}' in rrd4j database", itemName);
+                return List.of();
+            }
+            return query(filter, lease.getDb());
         }
+    }
+
+    private Iterable<HistoricItem> query(FilterCriteria filter, RrdDb db) {
+        String itemName = filter.getItemName();
 
         Item item = null;
         Unit<?> unit = null;
@@ -287,7 +318,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 start = filter.getBeginDate().toInstant().getEpochSecond();
             }
 
-            FetchRequest request = db.createFetchRequest(getConsolidationFunction(db), start, end, 1);
+            FetchRequest request = db.createFetchRequest(getConsolidationFunction(itemName, db), start, end, 1);
             FetchData result = request.fetchData();
 
             List<HistoricItem> items = new ArrayList<>();
@@ -308,18 +339,74 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Fetches the data of several items at once, e.g. for rendering a chart. The databases are read in parallel.
+     *
+     * @param itemNames the names of the items
+     * @param start start of the requested range (seconds since epoch)
+     * @param end end of the requested range (seconds since epoch)
+     * @param resolution requested resolution in seconds, used to select the best matching archive
+     * @return the fetched data by item name, items that could not be fetched are not contained
+     */
+    public Map<String, FetchData> fetchAll(Collection<String> itemNames, long start, long end, long resolution) {
+        Map<String, Future<@Nullable FetchData>> futures = new LinkedHashMap<>();
+        for (String itemName : itemNames) {
+            if (!futures.containsKey(itemName)) {
+                futures.put(itemName, scheduler.submit(() -> fetch(itemName, start, end, resolution)));
+            }
+        }
+
+        Map<String, FetchData> result = new HashMap<>();
+        for (Map.Entry<String, Future<@Nullable FetchData>> entry : futures.entrySet()) {
+            try {
+                FetchData data = entry.getValue().get();
+                if (data != null) {
+                    result.put(entry.getKey(), data);
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                logger.warn("Could not fetch data from rrd4j database for item '{}': {}", entry.getKey(),
+                        cause != null ? cause.getMessage() : e.getMessage());
+            } catch (InterruptedException e) {
+                futures.values().forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return result;
+    }
+
+    private @Nullable FetchData fetch(String itemName, long start, long end, long resolution) throws IOException {
+        try (RRD4jDbPool.Lease lease = dbPool.acquire(itemName)) {
+            if (lease == null) {
+                logger.debug("Could not find item '{}' in rrd4j database", itemName);
+                return null;
+            }
+            RrdDb db = lease.getDb();
+            return db.createFetchRequest(getConsolidationFunction(itemName, db), start, end, resolution).fetchData();
+        }
+    }
+
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
         return Set.of();
     }
 
-    protected synchronized @Nullable RrdDb getDB(String alias) {
+    /**
+     * Opens the database for the given name, or creates it if it does not exist yet.
+     *
+     * Databases are usually obtained from the {@link RRD4jDbPool}, which uses this method to open them.
+     *
+     * @param alias the item name or alias
+     * @return the opened database or <code>null</code> if it could not be opened
+     */
+    protected @Nullable RrdDb getDB(String alias) {
         RrdDb db = null;
         File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
         try {
             if (file.exists()) {
                 // recreate the RrdDb instance from the file
-                db = RrdDb.of(file.getAbsolutePath());
+                db = RrdDb.getBuilder().setPath(file.getAbsolutePath()).setBackendFactory(backendFactory).build();
             } else {
                 File folder = new File(DB_FOLDER);
                 if (!folder.exists()) {
@@ -328,7 +415,7 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 RrdDef rrdDef = getRrdDef(alias, file);
                 if (rrdDef != null) {
                     // create a new database file
-                    db = RrdDb.of(rrdDef);
+                    db = RrdDb.getBuilder().setRrdDef(rrdDef).setBackendFactory(backendFactory).build();
                 } else {
                     logger.debug(
                             "Did not create rrd4j database for item '{}' since no rrd definition could be determined. This is likely due to an unsupported item type.",
@@ -341,6 +428,9 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
             // this happens if the system is shut down
             logger.debug("Could not create rrd4j database file '{}': {}", file.getAbsolutePath(), e.getMessage());
         }
+        if (db != null) {
+            consolidationFunctions.put(alias, getConsolidationFunction(db));
+        }
         return db;
     }
 
@@ -392,6 +482,10 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private ConsolFun getConsolidationFunction(String alias, RrdDb db) {
+        return consolidationFunctions.computeIfAbsent(alias, a -> getConsolidationFunction(db));
+    }
+
     public ConsolFun getConsolidationFunction(RrdDb db) {
         try {
             return db.getRrdDef().getArcDefs()[0].getConsolFun();
@@ -443,6 +537,47 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         modified(config);
     }
 
+    @Deactivate
+    protected void deactivate() {
+        scheduledJobs.values().forEach(job -> job.cancel(true));
+        scheduledJobs.clear();
+        dbPool.close();
+        closeBackendFactory(backendFactory);
+    }
+
+    private void configureBackend(String newBackend, int newSyncPeriod) {
+        if (!BACKEND_NIO.equals(newBackend) && !BACKEND_FILE.equals(newBackend)) {
+            logger.warn("Unknown backend '{}', using '{}'", newBackend, BACKEND_NIO);
+            newBackend = BACKEND_NIO;
+        }
+        if (newSyncPeriod < 1) {
+            logger.warn("Ignoring illegal sync period '{}', using default {}", newSyncPeriod, DEFAULT_SYNC_PERIOD);
+            newSyncPeriod = DEFAULT_SYNC_PERIOD;
+        }
+        if (newBackend.equals(backend) && (BACKEND_FILE.equals(newBackend) || newSyncPeriod == syncPeriod)) {
+            return;
+        }
+
+        RrdBackendFactory oldFactory = backendFactory;
+        backend = newBackend;
+        syncPeriod = newSyncPeriod;
+        backendFactory = BACKEND_FILE.equals(newBackend) ? new RrdRandomAccessFileBackendFactory()
+                : new RrdNioBackendFactory(newSyncPeriod);
+        logger.debug("Using rrd4j backend '{}' (sync period {}s)", newBackend, newSyncPeriod);
+
+        // open databases are bound to the old backend and have to be re-opened
+        dbPool.close();
+        closeBackendFactory(oldFactory);
+    }
+
+    private void closeBackendFactory(RrdBackendFactory factory) {
+        try {
+            factory.close();
+        } catch (IOException e) {
+            logger.debug("Error closing rrd4j backend: {}", e.getMessage());
+        }
+    }
+
     @Modified
     protected void modified(final Map<String, Object> config) {
         // clean existing definitions
@@ -487,6 +622,14 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         defaultOther.addArchives("LAST,0.5,1,720:LAST,0.5,12,10080:LAST,0.5,180,35040:LAST,0.5,2880,21900");
         rrdDefs.put(DEFAULT_OTHER, defaultOther);
 
+        int poolSize = getIntOption(config, CONFIG_POOL_SIZE, DEFAULT_POOL_SIZE);
+        dbPool.setCapacity(poolSize);
+        logger.debug("Keeping up to {} rrd4j databases open", poolSize);
+
+        Object backendOption = config.get(CONFIG_BACKEND);
+        configureBackend(backendOption == null ? BACKEND_NIO : backendOption.toString().trim().toLowerCase(),
+                getIntOption(config, CONFIG_SYNC_PERIOD, DEFAULT_SYNC_PERIOD));
+
         if (config.isEmpty()) {
             logger.debug("using default configuration only");
             return;
@@ -501,6 +644,11 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
                 continue;
             }
 
+            if (SERVICE_OPTIONS.contains(key)) {
+                // already processed
+                continue;
+            }
+
             String[] subkeys = key.split("\\.");
             if (subkeys.length != 2) {
                 logger.debug("config '{}' should have the format 'name.configkey'", key);
@@ -552,6 +700,19 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private int getIntOption(Map<String, Object> config, String key, int defaultValue) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring illegal value '{}' for '{}', using default {}", value, key, defaultValue);
+            return defaultValue;
+        }
+    }
+
     private class RrdArchiveDef {
         public @Nullable ConsolFun fcn;
         public double xff;
@@ -17,13 +17,16 @@ import static java.util.Map.entry;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 import javax.servlet.Servlet;
@@ -48,8 +51,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.HttpService;
 import org.osgi.service.http.NamespaceException;
-import org.rrd4j.ConsolFun;
-import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.FetchData;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphConstants.FontTag;
 import org.rrd4j.graph.RrdGraphDef;
@@ -81,6 +83,8 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     private static final int DEFAULT_HEIGHT = 240;
     private static final int DEFAULT_WIDTH = 480;
 
+    private static final String DATASOURCE_STATE = "state";
+
     /** the URI of this servlet */
     public static final String SERVLET_NAME = "/rrdchart.png";
 
@@ -93,6 +97,10 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
 
     private static final Duration DEFAULT_PERIOD = Duration.ofDays(1);
 
+    /** rendered charts are re-used for identical requests within this time */
+    private static final long CHART_CACHE_SECONDS = 10;
+    private static final int CHART_CACHE_SIZE = 50;
+
     private static final Map<String, Duration> PERIODS = Map.ofEntries( //
             entry("h", Duration.ofHours(1)), entry("4h", Duration.ofHours(4)), //
             entry("8h", Duration.ofHours(8)), entry("12h", Duration.ofHours(12)), //
@@ -106,13 +114,18 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     private final HttpService httpService;
     private final ItemUIRegistry itemUIRegistry;
     private final TimeZoneProvider timeZoneProvider;
+    private final RRD4jPersistenceService persistenceService;
+
+    private final Map<String, CachedChart> chartCache = new ConcurrentHashMap<>();
 
     @Activate
     public RRD4jChartServlet(final @Reference HttpService httpService, final @Reference ItemUIRegistry itemUIRegistry,
-            final @Reference TimeZoneProvider timeZoneProvider) {
+            final @Reference TimeZoneProvider timeZoneProvider,
+            final @Reference RRD4jPersistenceService persistenceService) {
         this.httpService = httpService;
         this.itemUIRegistry = itemUIRegistry;
         this.timeZoneProvider = timeZoneProvider;
+        this.persistenceService = persistenceService;
     }
 
     @Activate
@@ -130,6 +143,7 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Deactivate
     protected void deactivate() {
         httpService.unregister(SERVLET_NAME);
+        chartCache.clear();
     }
 
     @Override
@@ -179,30 +193,22 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
      *
      * @param graphDef the graph definition to fill
      * @param item the item to add a line for
+     * @param fetchData the data of the item, fetched from its database
      * @param counter defines the number of the datasource and is used to determine the line color
      */
-    protected void addLine(RrdGraphDef graphDef, Item item, int counter) {
+    protected void addLine(RrdGraphDef graphDef, Item item, FetchData fetchData, int counter) {
         Color color = LINECOLORS[counter % LINECOLORS.length];
         String label = itemUIRegistry.getLabel(item.getName());
-        String rrdName = RRD4jPersistenceService.DB_FOLDER + File.separator + item.getName() + ".rrd";
-        ConsolFun consolFun;
         if (label != null && label.contains("[") && label.contains("]")) {
             label = label.substring(0, label.indexOf('['));
         }
-        try {
-            RrdDb db = RrdDb.of(rrdName);
-            consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
-            db.close();
-        } catch (IOException e) {
-            consolFun = ConsolFun.MAX;
-        }
         if (item instanceof NumberItem) {
             // we only draw a line
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
+            graphDef.datasource(Integer.toString(counter), DATASOURCE_STATE, fetchData);
             graphDef.line(Integer.toString(counter), color, label, 2);
         } else {
             // we draw a line and fill the area beneath it with a transparent color
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
+            graphDef.datasource(Integer.toString(counter), DATASOURCE_STATE, fetchData);
             Color areaColor = AREACOLORS[counter % LINECOLORS.length];
 
             graphDef.area(Integer.toString(counter), areaColor);
@@ -240,6 +246,29 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     public BufferedImage createChart(@Nullable String service, @Nullable String theme, ZonedDateTime startTime,
             ZonedDateTime endTime, int height, int width, @Nullable String items, @Nullable String groups,
             @Nullable Integer dpi, @Nullable Boolean legend) throws ItemNotFoundException {
+        // identical requests within the same cache period get the same chart
+        String cacheKey = String.join("|", String.valueOf(theme), String.valueOf(items), String.valueOf(groups),
+                Long.toString(startTime.toEpochSecond() / CHART_CACHE_SECONDS),
+                Long.toString(endTime.toEpochSecond() / CHART_CACHE_SECONDS), Integer.toString(width),
+                Integer.toString(height), String.valueOf(dpi), String.valueOf(legend));
+        long now = System.currentTimeMillis();
+        CachedChart cachedChart = chartCache.get(cacheKey);
+        if (cachedChart != null && cachedChart.expiry > now) {
+            logger.trace("Using cached chart for '{}'", cacheKey);
+            return cachedChart.image;
+        }
+
+        BufferedImage image = renderChart(startTime, endTime, height, width, items, groups);
+
+        chartCache.values().removeIf(chart -> chart.expiry <= now);
+        if (chartCache.size() < CHART_CACHE_SIZE) {
+            chartCache.put(cacheKey, new CachedChart(image, now + CHART_CACHE_SECONDS * 1000));
+        }
+        return image;
+    }
+
+    private BufferedImage renderChart(ZonedDateTime startTime, ZonedDateTime endTime, int height, int width,
+            @Nullable String items, @Nullable String groups) throws ItemNotFoundException {
         RrdGraphDef graphDef = new RrdGraphDef(startTime.toEpochSecond(), endTime.toEpochSecond());
         graphDef.setWidth(width);
         graphDef.setHeight(height);
@@ -249,14 +278,13 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         graphDef.setFont(FontTag.TITLE, new Font("SansSerif", Font.PLAIN, 15));
         graphDef.setFont(FontTag.DEFAULT, new Font("SansSerif", Font.PLAIN, 11));
 
-        int seriesCounter = 0;
+        List<Item> chartItems = new ArrayList<>();
 
         // Loop through all the items
         if (items != null) {
             String[] itemNames = items.split(",");
             for (String itemName : itemNames) {
-                Item item = itemUIRegistry.getItem(itemName);
-                addLine(graphDef, item, seriesCounter++);
+                chartItems.add(itemUIRegistry.getItem(itemName));
             }
         }
 
@@ -267,15 +295,31 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
                 Item item = itemUIRegistry.getItem(groupName);
                 if (item instanceof GroupItem) {
                     GroupItem groupItem = (GroupItem) item;
-                    for (Item member : groupItem.getMembers()) {
-                        addLine(graphDef, member, seriesCounter++);
-                    }
+                    chartItems.addAll(groupItem.getMembers());
                 } else {
                     throw new ItemNotFoundException("Item '" + item.getName() + "' defined in groups is not a group.");
                 }
             }
         }
 
+        // fetch the data of all items at once, using a resolution of about one row per pixel
+        long start = startTime.toEpochSecond();
+        long end = endTime.toEpochSecond();
+        Map<String, FetchData> fetchData = persistenceService.fetchAll(
+                chartItems.stream().map(Item::getName).collect(Collectors.toList()), start, end,
+                Math.max(1, (end - start) / Math.max(1, width)));
+
+        int seriesCounter = 0;
+        for (Item item : chartItems) {
+            FetchData data = fetchData.get(item.getName());
+            if (data != null) {
+                addLine(graphDef, item, data, seriesCounter);
+            } else {
+                logger.debug("No data for item '{}', not adding it to the chart", item.getName());
+            }
+            seriesCounter++;
+        }
+
         // Write the chart as a PNG image
         try {
             RrdGraph graph = new RrdGraph(graphDef);
@@ -292,4 +336,14 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     public ImageType getChartType() {
         return ImageType.png;
     }
+
+    private static class CachedChart {
+        private final BufferedImage image;
+        private final long expiry;
+
+        private CachedChart(BufferedImage image, long expiry) {
+            this.image = image;
+            this.expiry = expiry;
+        }
+    }
 }
@@ -0,0 +1,213 @@
+/**
+ * Copyright (c) 2010-2022 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.test.java.JavaTest;
+import org.rrd4j.core.RrdDb;
+
+/**
+ * Tests the {@link RRD4jDbPool}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class RRD4jDbPoolTest extends JavaTest {
+
+    // all handles that were opened, per database name
+    private final Map<String, List<RrdDb>> opened = new HashMap<>();
+    // number of open handles per database name
+    private final Map<String, AtomicInteger> open = new HashMap<>();
+    private final AtomicInteger maxOpenPerName = new AtomicInteger();
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(1000);
+        }
+    }
+
+    private synchronized @Nullable RrdDb openDb(String name) {
+        RrdDb db = mock(RrdDb.class);
+        AtomicInteger counter = open.computeIfAbsent(name, n -> new AtomicInteger());
+        maxOpenPerName.accumulateAndGet(counter.incrementAndGet(), Math::max);
+        try {
+            doAnswer(invocation -> counter.decrementAndGet()).when(db).close();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        opened.computeIfAbsent(name, n -> new ArrayList<>()).add(db);
+        return db;
+    }
+
+    private synchronized List<RrdDb> opened(String name) {
+        return new ArrayList<>(opened.getOrDefault(name, List.of()));
+    }
+
+    private RrdDb use(RRD4jDbPool pool, String name) {
+        try (RRD4jDbPool.Lease lease = Objects.requireNonNull(pool.acquire(name))) {
+            return lease.getDb();
+        }
+    }
+
+    private Thread start(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        threads.add(thread);
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void databasesStayOpenBetweenLeases() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::openDb, 2);
+
+        RrdDb db = use(pool, "a");
+        assertSame(db, use(pool, "a"));
+
+        assertEquals(1, opened("a").size());
+        verify(db, never()).close();
+    }
+
+    @Test
+    public void leastRecentlyUsedDatabaseIsClosedWhenFull() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::openDb, 2);
+
+        RrdDb a = use(pool, "a");
+        RrdDb b = use(pool, "b");
+        use(pool, "a");
+        RrdDb c = use(pool, "c");
+
+        verify(b).close();
+        verify(a, never()).close();
+        verify(c, never()).close();
+
+        // b is opened again when it is needed
+        assertNotSame(b, use(pool, "b"));
+        assertEquals(2, opened("b").size());
+        verify(a).close();
+    }
+
+    @Test
+    public void databaseThatCannotBeOpenedIsNotLeased() {
+        RRD4jDbPool pool = new RRD4jDbPool(name -> null, 2);
+
+        assertNull(pool.acquire("a"));
+        assertNull(pool.acquire("a"));
+    }
+
+    @Test
+    public void evictedDatabaseIsClosedWhenItsLeaseIsReleased() throws InterruptedException, IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::openDb, 1);
+        CountDownLatch leased = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // a store() that is still running on database a
+        Thread storing = start(() -> {
+            try (RRD4jDbPool.Lease lease = Objects.requireNonNull(pool.acquire("a"))) {
+                leased.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(leased.await(5, TimeUnit.SECONDS));
+
+        // evicts a, but has to wait until it is released
+        Thread evicting = start(() -> use(pool, "b"));
+        waitForAssert(() -> assertEquals(Thread.State.WAITING, evicting.getState()));
+
+        // a is needed again while the evicted handle is still in use
+        Thread reacquiring = start(() -> use(pool, "a"));
+        waitForAssert(() -> assertEquals(Thread.State.WAITING, reacquiring.getState()));
+        assertEquals(1, opened("a").size());
+        verify(opened("a").get(0), never()).close();
+
+        release.countDown();
+        storing.join(5000);
+        evicting.join(5000);
+        reacquiring.join(5000);
+
+        assertFalse(reacquiring.isAlive());
+        verify(opened("a").get(0)).close();
+        assertTrue(opened("a").size() > 1);
+        // the database was never open twice at the same time
+        assertEquals(1, maxOpenPerName.get());
+    }
+
+    @Test
+    public void exceedingDatabasesAreClosedWhenTheCapacityIsReduced() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::openDb, 3);
+        RrdDb a = use(pool, "a");
+        RrdDb b = use(pool, "b");
+        RrdDb c = use(pool, "c");
+
+        pool.setCapacity(1);
+
+        verify(a).close();
+        verify(b).close();
+        verify(c, never()).close();
+
+        pool.setCapacity(2);
+        use(pool, "a");
+        verify(c, never()).close();
+    }
+
+    @Test
+    public void closeClosesAllDatabases() throws IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::openDb, 3);
+        RrdDb a = use(pool, "a");
+        RrdDb b = use(pool, "b");
+
+        pool.close();
+
+        verify(a).close();
+        verify(b).close();
+
+        // the pool can still be used afterwards
+        assertNotSame(a, use(pool, "a"));
+    }
+
+    @Test
+    public void closeWaitsForLeasedDatabases() throws InterruptedException, IOException {
+        RRD4jDbPool pool = new RRD4jDbPool(this::openDb, 3);
+        RRD4jDbPool.Lease lease = Objects.requireNonNull(pool.acquire("a"));
+        RrdDb a = lease.getDb();
+
+        Thread closing = start(pool::close);
+        waitForAssert(() -> assertEquals(Thread.State.WAITING, closing.getState()));
+        verify(a, never()).close();
+
+        lease.close();
+        closing.join(5000);
+        verify(a).close();
+    }
+}
@@ -17,11 +17,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.time.Duration;
-import java.util.Base64;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -32,7 +28,6 @@ import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
-import org.openhab.core.cache.ExpiringCacheMap;
 import org.openhab.core.transform.TransformationException;
 import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
@@ -50,10 +45,11 @@ public class JavaScriptEngineManager {
 
     private final Logger logger = LoggerFactory.getLogger(JavaScriptEngineManager.class);
     private final ScriptEngineManager manager = new ScriptEngineManager();
-    /* keep memory foot print low. max 2 concurrent threads are estimated */
-    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>(4, 0.5f, 2);
-    private final ExpiringCacheMap<String, CompiledScript> cacheForInlineScripts = new ExpiringCacheMap<>(
-            Duration.ofDays(1));
+    /* reads are lock-free, a script compiled twice by concurrent first calls is harmless */
+    private final Map<String, CompiledScript> compiledScriptMap = new ConcurrentHashMap<>();
+    /* inline scripts are keyed by their text, whose hash code is cached by the string */
+    private final Map<String, CompiledScript> cacheForInlineScripts = new ConcurrentHashMap<>();
+    private static final int MAX_INLINE_SCRIPTS = 256;
 
     /**
      * Get a pre compiled script {@link CompiledScript} from cache. If it is not in the cache, then load it from
@@ -64,25 +60,22 @@ public class JavaScriptEngineManager {
      * @throws TransformationException if compile of JavaScript failed
      */
     protected CompiledScript getCompiledScriptByFilename(final String filename) throws TransformationException {
-        synchronized (compiledScriptMap) {
-            CompiledScript compiledScript = compiledScriptMap.get(filename);
-            if (compiledScript != null) {
-                logger.debug("Loading JavaScript {} from cache.", filename);
-                return compiledScript;
-            } else {
-                final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
-                logger.debug("Loading script {} from storage ", path);
-                try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(reader);
-                    logger.debug("Putting compiled JavaScript {} to cache.", cScript);
-                    compiledScriptMap.put(filename, cScript);
-                    return cScript;
-                } catch (IOException | ScriptException e) {
-                    throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(),
-                            e);
-                }
-            }
+        CompiledScript compiledScript = compiledScriptMap.get(filename);
+        if (compiledScript != null) {
+            logger.trace("Loading JavaScript {} from cache.", filename);
+            return compiledScript;
+        }
+
+        final String path = TransformationScriptWatcher.TRANSFORM_FOLDER + File.separator + filename;
+        logger.debug("Loading script {} from storage ", path);
+        try (final Reader reader = new InputStreamReader(new FileInputStream(path))) {
+            final ScriptEngine engine = manager.getEngineByName("javascript");
+            compiledScript = ((Compilable) engine).compile(reader);
+            logger.debug("Putting compiled JavaScript {} to cache.", filename);
+            CompiledScript previous = compiledScriptMap.putIfAbsent(filename, compiledScript);
+            return previous != null ? previous : compiledScript;
+        } catch (IOException | ScriptException e) {
+            throw new TransformationException("An error occurred while loading JavaScript. " + e.getMessage(), e);
         }
     }
 
@@ -95,24 +88,30 @@ public class JavaScriptEngineManager {
      * @throws TransformationException if compile of JavaScript failed
      */
     protected CompiledScript getCompiledScriptByInlineScript(final String script) throws TransformationException {
-        synchronized (cacheForInlineScripts) {
-            try {
-                final String hash = calcHash(script);
-                final CompiledScript compiledScript = cacheForInlineScripts.get(hash);
-                if (compiledScript != null) {
-                    logger.debug("Loading JavaScript from cache.");
-                    return compiledScript;
-                } else {
-                    logger.debug("Compiling script {}", script);
-                    final ScriptEngine engine = manager.getEngineByName("javascript");
-                    final CompiledScript cScript = ((Compilable) engine).compile(script);
-                    cacheForInlineScripts.put(hash, () -> cScript);
-                    return cScript;
-                }
-            } catch (ScriptException | NoSuchAlgorithmException e) {
-                throw new TransformationException("An error occurred while compiling JavaScript. " + e.getMessage(), e);
+        CompiledScript compiledScript = cacheForInlineScripts.get(script);
+        if (compiledScript != null) {
+            logger.trace("Loading JavaScript from cache.");
+            return compiledScript;
+        }
+
+        logger.debug("Compiling script {}", script);
+        try {
+            final ScriptEngine engine = manager.getEngineByName("javascript");
+            compiledScript = ((Compilable) engine).compile(script);
+        } catch (ScriptException e) {
+            throw new TransformationException("An error occurred while compiling JavaScript. " + e.getMessage(), e);
+        }
+        if (cacheForInlineScripts.size() >= MAX_INLINE_SCRIPTS) {
+            // inline scripts are defined in item and thing configurations, so this only happens with generated
+            // scripts; dropping any entry keeps the cache bounded without tracking the access order
+            Iterator<String> it = cacheForInlineScripts.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
             }
         }
+        CompiledScript previous = cacheForInlineScripts.putIfAbsent(script, compiledScript);
+        return previous != null ? previous : compiledScript;
     }
 
     /**
@@ -124,10 +123,4 @@ public class JavaScriptEngineManager {
         logger.debug("Removing JavaScript {} from cache.", fileName);
         compiledScriptMap.remove(fileName);
     }
-
-    private String calcHash(final String script) throws NoSuchAlgorithmException {
-        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        byte[] hash = digest.digest(script.getBytes(StandardCharsets.UTF_8));
-        return Base64.getEncoder().encodeToString(hash);
-    }
 }
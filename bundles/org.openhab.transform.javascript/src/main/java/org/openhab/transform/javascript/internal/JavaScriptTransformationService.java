@@ -120,6 +120,7 @@ public class JavaScriptTransformationService implements TransformationService, C
         }
 
         try {
+            // new bindings have a new global scope, so variables defined by a script are not kept between calls
             final Bindings bindings = cScript.getEngine().createBindings();
             bindings.put(SCRIPT_DATA_WORD, source);
             vars.forEach((k, v) -> bindings.put(k, v));
@@ -19,7 +19,12 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterEach;
@@ -167,4 +172,36 @@ public class JavaScriptTransformationServiceTest {
         String transformedResponse = processor.transform(SCRIPT, DATA);
         assertEquals("ab?d&f", transformedResponse);
     }
+
+    @Test
+    public void testVariablesAreNotKeptBetweenCalls() throws Exception {
+        assertEquals("ab", processor.transform("returntest.js?a=1&test=ab&b=2", "foo"));
+
+        assertThrows(TransformationException.class, () -> processor.transform("returntest.js?a=1&b=2", "foo"));
+    }
+
+    @Test
+    public void testGlobalsAreNotKeptBetweenCalls() throws Exception {
+        final String SCRIPT = "| var seen = (typeof seen === 'undefined') ? input : seen + input; seen";
+        assertEquals("a", processor.transform(SCRIPT, "a"));
+        assertEquals("b", processor.transform(SCRIPT, "b"));
+    }
+
+    @Test
+    public void testConcurrentInlineScripts() throws Exception {
+        final String SCRIPT = "| parseInt(input) + parseInt(input)";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String data = Integer.toString(i);
+                results.add(executor.submit(() -> processor.transform(SCRIPT, data)));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Integer.toString(i * 2), results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -14,11 +14,15 @@ package org.openhab.transform.jinja.internal;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -33,11 +37,20 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hubspot.jinjava.Jinjava;
 import com.hubspot.jinjava.JinjavaConfig;
 import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
+import com.hubspot.jinjava.interpret.InterpretException;
+import com.hubspot.jinjava.interpret.JinjavaInterpreter;
+import com.hubspot.jinjava.interpret.TemplateError;
+import com.hubspot.jinjava.interpret.TemplateError.ErrorType;
+import com.hubspot.jinjava.tree.Node;
 
 /**
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by Jinja2 Expressions.
  *
+ * <p>
+ * Parsed templates are kept in a LRU cache, so a template is only parsed once and then rendered with the bindings of
+ * each value.
+ *
  * @author Jochen Klein - Initial contribution
  *
  */
@@ -45,11 +58,26 @@ import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
 @Component(property = { "openhab.transform=JINJA" })
 public class JinjaTransformationService implements TransformationService {
 
+    private static final int MAX_CACHED_TEMPLATES = 128;
+
+    // ObjectMapper is thread-safe once configured
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final Logger logger = LoggerFactory.getLogger(JinjaTransformationService.class);
 
     private final JinjavaConfig config = JinjavaConfig.newBuilder().withFailOnUnknownTokens(true).build();
     private final Jinjava jinjava = new Jinjava(config);
 
+    private final Map<String, Node> templateCache = Collections
+            .synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.@Nullable Entry<String, Node> eldest) {
+                    return size() > MAX_CACHED_TEMPLATES;
+                }
+            });
+
     /**
      * Transforms the input <code>value</code> by Jinja template.
      *
@@ -67,15 +95,15 @@ public class JinjaTransformationService implements TransformationService {
         bindings.put("value", value);
 
         try {
-            JsonNode tree = new ObjectMapper().readTree(value);
+            JsonNode tree = OBJECT_MAPPER.readTree(value);
             bindings.put("value_json", toObject(tree));
         } catch (IOException e) {
             // ok, then value_json is null...
         }
 
         try {
-            transformationResult = jinjava.render(template, bindings);
-        } catch (FatalTemplateErrorsException e) {
+            transformationResult = render(template, bindings);
+        } catch (FatalTemplateErrorsException | InterpretException e) {
             throw new TransformationException("An error occurred while transformation. " + e.getMessage(), e);
         }
 
@@ -84,6 +112,40 @@ public class JinjaTransformationService implements TransformationService {
         return transformationResult;
     }
 
+    /**
+     * Renders the template like {@link Jinjava#render(String, Map)}, but parses the template only once. Jinjava has no
+     * method to render a parsed template, so the parsed template is rendered by a new interpreter of its own, which
+     * keeps the variables of one transformation from being seen by others.
+     */
+    private String render(String template, Map<String, @Nullable Object> bindings) {
+        Node root = templateCache.get(template);
+        if (root == null) {
+            root = runInterpreter(template, Map.of(), interpreter -> interpreter.parse(template));
+            templateCache.put(template, root);
+        }
+        final Node parsedRoot = root;
+        return runInterpreter(template, bindings, interpreter -> interpreter.render(parsedRoot));
+    }
+
+    private <T> T runInterpreter(String template, Map<String, @Nullable Object> bindings,
+            Function<JinjavaInterpreter, T> action) {
+        JinjavaInterpreter interpreter = jinjava.newInterpreter();
+        interpreter.getContext().putAll(bindings);
+        // filters and functions look up the interpreter of the current thread
+        JinjavaInterpreter.pushCurrent(interpreter);
+        try {
+            T result = action.apply(interpreter);
+            List<TemplateError> fatalErrors = interpreter.getErrorsCopy().stream()
+                    .filter(error -> error.getSeverity() == ErrorType.FATAL).collect(Collectors.toList());
+            if (!fatalErrors.isEmpty()) {
+                throw new FatalTemplateErrorsException(template, fatalErrors);
+            }
+            return result;
+        } finally {
+            JinjavaInterpreter.popCurrent();
+        }
+    }
+
     private static @Nullable Object toObject(JsonNode node) {
         switch (node.getNodeType()) {
             case ARRAY: {
@@ -14,6 +14,15 @@ package org.openhab.transform.jinja.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openhab.core.transform.TransformationException;
@@ -115,4 +124,54 @@ public class JinjaTransformationServiceTest {
         // then map key is defined
         assertEquals("true", transformedResponse);
     }
+
+    @Test
+    public void testCachedTemplateIsRenderedWithNewValues() throws TransformationException {
+        for (int i = 0; i < 3; i++) {
+            String transformedResponse = processor.transform("{{ value_json.temperature }} {{ value_json.unit }}",
+                    "{\"temperature\": " + i + ", \"unit\": \"C\"}");
+            assertEquals(i + " C", transformedResponse);
+        }
+    }
+
+    @Test
+    public void testCachedTemplateErrorIsReportedAgain() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(TransformationException.class,
+                    () -> processor.transform("Hello {{ value_json.missing }}!", "{\"string\": \"world\"}"));
+        }
+    }
+
+    @Test
+    public void testTemplatesRenderedConcurrentlyDoNotShareState() throws Exception {
+        // the first template sets a variable, the second one must not see it
+        String setting = "{% set name = value %}{{ name }}";
+        String checking = "{{ name is defined }} {{ value }}";
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> renderers = List.of(() -> {
+            start.await();
+            for (int i = 0; i < 500; i++) {
+                assertEquals("set" + i, processor.transform(setting, "set" + i));
+            }
+            return null;
+        }, () -> {
+            start.await();
+            for (int i = 0; i < 500; i++) {
+                assertEquals("false check" + i, processor.transform(checking, "check" + i));
+            }
+            return null;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(renderers.size());
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            renderers.forEach(renderer -> futures.add(executor.submit(renderer)));
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
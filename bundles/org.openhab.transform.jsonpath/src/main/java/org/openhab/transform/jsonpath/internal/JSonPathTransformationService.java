@@ -12,7 +12,11 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -24,6 +28,7 @@ import org.osgi.service.component.annotations.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
@@ -33,6 +38,11 @@ import com.jayway.jsonpath.PathNotFoundException;
  * <p>
  * The implementation of {@link TransformationService} which transforms the input by JSonPath Expressions.
  *
+ * <p>
+ * Compiled expressions are kept in a LRU cache. Parsed JSON documents are kept for a short time, so several channels
+ * extracting different values from the same payload parse it only once. At most {@value #DOCUMENT_CACHE_SIZE}
+ * documents are kept, and expired documents are removed whenever a document is looked up.
+ *
  * @author Gaël L'hopital
  * @author Sebastian Janzen
  *
@@ -41,8 +51,25 @@ import com.jayway.jsonpath.PathNotFoundException;
 @Component(property = { "openhab.transform=JSONPATH" })
 public class JSonPathTransformationService implements TransformationService {
 
+    private static final int PATH_CACHE_SIZE = 256;
+    private static final int DOCUMENT_CACHE_SIZE = 16;
+    private static final long DOCUMENT_CACHE_DURATION = TimeUnit.SECONDS.toNanos(2);
+
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    private final Map<String, JsonPath> pathCache = Collections.synchronizedMap(new LruMap<>(PATH_CACHE_SIZE));
+    private final Map<String, CachedDocument> documentCache = Collections
+            .synchronizedMap(new LruMap<>(DOCUMENT_CACHE_SIZE));
+    private final long documentCacheDuration;
+
+    public JSonPathTransformationService() {
+        this(DOCUMENT_CACHE_DURATION);
+    }
+
+    JSonPathTransformationService(long documentCacheDuration) {
+        this.documentCacheDuration = documentCacheDuration;
+    }
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -60,7 +87,7 @@ public class JSonPathTransformationService implements TransformationService {
         logger.debug("about to transform '{}' by the function '{}'", source, jsonPathExpression);
 
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
+            Object transformationResult = getDocument(source).read(getPath(jsonPathExpression));
             logger.debug("transformation resulted in '{}'", transformationResult);
             if (transformationResult == null) {
                 return null;
@@ -76,6 +103,36 @@ public class JSonPathTransformationService implements TransformationService {
         }
     }
 
+    private JsonPath getPath(String jsonPathExpression) {
+        JsonPath path = pathCache.get(jsonPathExpression);
+        if (path == null) {
+            path = JsonPath.compile(jsonPathExpression);
+            pathCache.put(jsonPathExpression, path);
+        }
+        return path;
+    }
+
+    private DocumentContext getDocument(String source) {
+        long now = System.nanoTime();
+        CachedDocument cached;
+        synchronized (documentCache) {
+            // the cache is small, so the expired documents are removed right away instead of keeping large payloads
+            documentCache.values().removeIf(document -> now - document.expiresAt >= 0);
+            cached = documentCache.get(source);
+        }
+        if (cached != null) {
+            return cached.document;
+        }
+        // parsed documents are only read, so they can safely be shared by concurrent transformations
+        DocumentContext document = JsonPath.parse(source);
+        documentCache.put(source, new CachedDocument(document, now + documentCacheDuration));
+        return document;
+    }
+
+    int getCachedDocumentCount() {
+        return documentCache.size();
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
@@ -100,4 +157,30 @@ public class JSonPathTransformationService implements TransformationService {
     private String createStringList(List<?> list) {
         return list.stream().map(n -> "\"" + String.valueOf(n) + "\"").collect(Collectors.joining(", ", "[", "]"));
     }
+
+    private static class CachedDocument {
+        private final DocumentContext document;
+        private final long expiresAt;
+
+        private CachedDocument(DocumentContext document, long expiresAt) {
+            this.document = document;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.@Nullable Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
 }
@@ -127,4 +127,43 @@ public class JSonPathTransformationServiceTest {
         String transformedResponse = processor.transform("$.data", json);
         assertEquals(list, transformedResponse);
     }
+
+    @Test
+    public void testSamePayloadWithDifferentPaths() throws TransformationException {
+        for (int i = 0; i < 2; i++) {
+            assertEquals("bob", processor.transform("$[0].name", jsonArray));
+            assertEquals("alice", processor.transform("$[1].name", jsonArray));
+            assertEquals("[1, 2]", processor.transform("$.*.id", jsonArray));
+        }
+    }
+
+    @Test
+    public void testChangedPayloadIsParsedAgain() throws TransformationException {
+        assertEquals("1", processor.transform("$.value", "{\"value\":1}"));
+        assertEquals("2", processor.transform("$.value", "{\"value\":2}"));
+        assertEquals("1", processor.transform("$.value", new String("{\"value\":1}")));
+    }
+
+    @Test
+    public void testInvalidPathFailsEveryTime() {
+        assertThrows(TransformationException.class, () -> processor.transform("$$", jsonArray));
+        assertThrows(TransformationException.class, () -> processor.transform("$$", jsonArray));
+    }
+
+    @Test
+    public void testDocumentCacheIsBounded() throws TransformationException {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(String.valueOf(i), processor.transform("$.value", "{\"value\":" + i + "}"));
+        }
+        assertEquals(16, processor.getCachedDocumentCount());
+    }
+
+    @Test
+    public void testExpiredDocumentsAreRemoved() throws TransformationException {
+        JSonPathTransformationService expiringProcessor = new JSonPathTransformationService(0);
+        assertEquals("1", expiringProcessor.transform("$.value", "{\"value\":1}"));
+        assertEquals("2", expiringProcessor.transform("$.value", "{\"value\":2}"));
+        assertEquals("1", expiringProcessor.transform("$.value", "{\"value\":1}"));
+        assertEquals(1, expiringProcessor.getCachedDocumentCount());
+    }
 }
@@ -75,4 +75,17 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testTransformByRegex_cachedPatterns() throws TransformationException {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("SetMode(" + i + ")",
+                    processor.transform("s/^OP:(.*?),ARG:(.*)$/$1($2)/", "OP:SetMode,ARG:" + i));
+            assertEquals(String.valueOf(i), processor.transform("ARG:(.*)", "ARG:" + i));
+        }
+
+        // Asserts
+        assertEquals(2, processor.getCacheMisses());
+        assertEquals(4, processor.getCacheHits());
+    }
 }
@@ -14,20 +14,56 @@ package org.openhab.transform.xslt.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Locale;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
 import org.openhab.core.transform.TransformationException;
+import org.osgi.framework.BundleContext;
 
 /**
  * @author Thomas.Eichstaedt-Engelen
  */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.WARN)
 public class XsltTransformationServiceTest extends AbstractTransformationServiceTest {
 
-    private XsltTransformationService processor;
+    private @Mock BundleContext bundleContext;
+
+    private TestableXsltTransformationService processor;
+
+    private class TestableXsltTransformationService extends XsltTransformationService {
+        @Override
+        protected Locale getLocale() {
+            return Locale.US;
+        }
+
+        @Override
+        public void activate(BundleContext context) {
+            super.activate(context);
+        }
+
+        @Override
+        public void deactivate() {
+            super.deactivate();
+        }
+    };
 
     @BeforeEach
     public void init() {
-        processor = new XsltTransformationService();
+        processor = new TestableXsltTransformationService();
+        processor.activate(bundleContext);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        processor.deactivate();
     }
 
     @Test
@@ -38,4 +74,16 @@ public class XsltTransformationServiceTest extends AbstractTransformationService
         // Asserts
         assertEquals("8", transformedResponse);
     }
+
+    @Test
+    public void testTransformByCachedXSLT() throws TransformationException {
+        assertEquals("8", processor.transform("http/google_weather.xsl", source));
+        assertEquals("12", processor.transform("http/google_weather.xsl",
+                source.replace("<temp_c data=\"8\"", "<temp_c data=\"12\"")));
+    }
+
+    @Test
+    public void testTransformByMissingXSLT() {
+        assertThrows(TransformationException.class, () -> processor.transform("http/missing.xsl", source));
+    }
 }